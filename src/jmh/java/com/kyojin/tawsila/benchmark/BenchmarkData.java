@@ -0,0 +1,84 @@
+package com.kyojin.tawsila.benchmark;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Warehouse;
+import com.kyojin.tawsila.enums.DeliveryStatus;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic delivery data for the benchmarks, generated around the same
+ * coordinates as the {@code warehouse} bean in applicationContext.xml.
+ */
+public final class BenchmarkData {
+
+    public static final double WAREHOUSE_LAT = 33.5731;
+    public static final double WAREHOUSE_LON = -7.5898;
+
+    // roughly 11 km around the warehouse, the size of the city
+    private static final double AREA_DEGREES = 0.1;
+    // roughly 500 m spread around a cluster center
+    private static final double CLUSTER_SPREAD_DEGREES = 0.005;
+    private static final int DELIVERIES_PER_CLUSTER = 50;
+
+    public enum Distribution {
+        UNIFORM,
+        CLUSTERED
+    }
+
+    private BenchmarkData() {
+    }
+
+    public static Warehouse warehouse() {
+        Warehouse warehouse = new Warehouse();
+        warehouse.setAddress("Darbida");
+        warehouse.setLatitude(WAREHOUSE_LAT);
+        warehouse.setLongitude(WAREHOUSE_LON);
+        warehouse.setOpenTime(LocalTime.of(6, 0));
+        warehouse.setCloseTime(LocalTime.of(22, 0));
+        return warehouse;
+    }
+
+    /**
+     * Generates deliveries with a fixed seed so every fork measures the same input.
+     * Weights and volumes are small enough that each delivery fits on a BIKE.
+     */
+    public static List<Delivery> deliveries(int count, Distribution distribution, long seed) {
+        Random random = new Random(seed);
+        List<Delivery> deliveries = new ArrayList<>(count);
+
+        int clusters = Math.max(1, count / DELIVERIES_PER_CLUSTER);
+        double[] centerLat = new double[clusters];
+        double[] centerLon = new double[clusters];
+        for (int c = 0; c < clusters; c++) {
+            centerLat[c] = WAREHOUSE_LAT + (random.nextDouble() * 2 - 1) * AREA_DEGREES;
+            centerLon[c] = WAREHOUSE_LON + (random.nextDouble() * 2 - 1) * AREA_DEGREES;
+        }
+
+        for (int i = 0; i < count; i++) {
+            double lat;
+            double lon;
+            if (distribution == Distribution.CLUSTERED) {
+                int c = random.nextInt(clusters);
+                lat = centerLat[c] + random.nextGaussian() * CLUSTER_SPREAD_DEGREES;
+                lon = centerLon[c] + random.nextGaussian() * CLUSTER_SPREAD_DEGREES;
+            } else {
+                lat = WAREHOUSE_LAT + (random.nextDouble() * 2 - 1) * AREA_DEGREES;
+                lon = WAREHOUSE_LON + (random.nextDouble() * 2 - 1) * AREA_DEGREES;
+            }
+
+            deliveries.add(Delivery.builder()
+                    .id((long) i + 1)
+                    .latitude(lat)
+                    .longitude(lon)
+                    .weightKg(0.5 + random.nextDouble() * 4.5)
+                    .volumeM3(0.005 + random.nextDouble() * 0.045)
+                    .status(DeliveryStatus.PENDING)
+                    .build());
+        }
+        return deliveries;
+    }
+}
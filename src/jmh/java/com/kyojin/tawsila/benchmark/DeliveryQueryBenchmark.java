@@ -0,0 +1,172 @@
+package com.kyojin.tawsila.benchmark;
+
+import liquibase.integration.spring.SpringLiquibase;
+import org.h2.Driver;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivery lookups against a 1M-row H2 file database built by the Liquibase changelogs,
+ * with and without the delivery indexes. The statements are the ones the repository queries
+ * translate to, ordered by the leading index columns so H2 reads the index in order.
+ * <p>
+ * Building the database takes a while, it is kept in {@code target/benchmark-db} and reused
+ * by the next trials and runs ({@code mvn clean} removes it). H2 always indexes foreign keys,
+ * so the tour lookup without the composite index still has one on {@code tour_id} and only
+ * loses the ordering.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeliveryQueryBenchmark {
+
+    private static final int DELIVERY_COUNT = 1_000_000;
+    private static final int TOUR_COUNT = 50_000;
+    private static final int VEHICLE_COUNT = 1_000;
+    private static final int PAGE_SIZE = 100;
+    private static final int INSERT_CHUNK = 100_000;
+    private static final String[] STATUSES = {"PENDING", "IN_TRANSIT", "DELIVERED", "FAILED"};
+
+    @Param({"true", "false"})
+    private boolean indexed;
+
+    private Connection connection;
+    private PreparedStatement pendingPage;
+    private PreparedStatement countByStatus;
+    private PreparedStatement tourDeliveries;
+    private PreparedStatement boundingBox;
+    private Random random;
+    private int count;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Path file = Path.of("target", "benchmark-db", "deliveries-" + (indexed ? "indexed" : "plain"));
+        boolean exists = Files.exists(file.resolveSibling(file.getFileName() + ".mv.db"));
+        String url = "jdbc:h2:file:" + file.toAbsolutePath();
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource(new Driver(), url, "sa", "");
+
+        if (!exists) {
+            SpringLiquibase liquibase = new SpringLiquibase();
+            liquibase.setDataSource(dataSource);
+            liquibase.setChangeLog("classpath:db/changelog/db.changelog-master.yaml");
+            liquibase.setContexts("dev");
+            liquibase.setResourceLoader(new DefaultResourceLoader());
+            liquibase.afterPropertiesSet();
+        }
+
+        if (!exists) {
+            populate(dataSource);
+        }
+        connection = dataSource.getConnection();
+
+        pendingPage = connection.prepareStatement("""
+                SELECT id, latitude, longitude, weight_kg, volume_m3, time_slot, status, tour_id
+                FROM deliveries WHERE status = 'PENDING' AND tour_id IS NULL AND id > ? ORDER BY status, id LIMIT ?""");
+        countByStatus = connection.prepareStatement("SELECT COUNT(*) FROM deliveries WHERE status = ?");
+        tourDeliveries = connection.prepareStatement("""
+                SELECT id, latitude, longitude, weight_kg, volume_m3, time_slot, status, delivery_order
+                FROM deliveries WHERE tour_id = ? ORDER BY tour_id, delivery_order""");
+        boundingBox = connection.prepareStatement("""
+                SELECT id FROM deliveries
+                WHERE latitude BETWEEN ? AND ? AND longitude BETWEEN ? AND ?""");
+        random = new Random(42L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void pendingKeysetPage(Blackhole bh) throws SQLException {
+        pendingPage.setLong(1, random.nextInt(DELIVERY_COUNT));
+        pendingPage.setInt(2, PAGE_SIZE);
+        consume(pendingPage, bh);
+    }
+
+    @Benchmark
+    public void countByStatus(Blackhole bh) throws SQLException {
+        // a different status every call, H2 reuses the last result when the parameters do not change
+        countByStatus.setString(1, STATUSES[count++ % STATUSES.length]);
+        consume(countByStatus, bh);
+    }
+
+    @Benchmark
+    public void tourDeliveriesInOrder(Blackhole bh) throws SQLException {
+        tourDeliveries.setLong(1, 1 + random.nextInt(TOUR_COUNT));
+        consume(tourDeliveries, bh);
+    }
+
+    @Benchmark
+    public void deliveriesInBoundingBox(Blackhole bh) throws SQLException {
+        // roughly 500 m around a random point of the city
+        double lat = BenchmarkData.WAREHOUSE_LAT - 0.1 + random.nextDouble() * 0.2;
+        double lon = BenchmarkData.WAREHOUSE_LON - 0.1 + random.nextDouble() * 0.2;
+        boundingBox.setDouble(1, lat - 0.0025);
+        boundingBox.setDouble(2, lat + 0.0025);
+        boundingBox.setDouble(3, lon - 0.0025);
+        boundingBox.setDouble(4, lon + 0.0025);
+        consume(boundingBox, bh);
+    }
+
+    private void consume(PreparedStatement query, Blackhole bh) throws SQLException {
+        try (ResultSet rs = query.executeQuery()) {
+            while (rs.next()) {
+                bh.consume(rs.getLong(1));
+            }
+        }
+    }
+
+    /**
+     * One delivery in ten is pending and unassigned, the others are spread over the tours
+     * in 20 stops each. Coordinates are a deterministic scatter over the city.
+     * Rows are inserted in chunks, a single 1M-row transaction makes H2 crawl, and the file is
+     * compacted afterwards.
+     */
+    private void populate(SimpleDriverDataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            if (!indexed) {
+                statement.execute("DROP INDEX idx_deliveries_status");
+                statement.execute("DROP INDEX idx_deliveries_tour_order");
+                statement.execute("DROP INDEX idx_deliveries_location");
+            }
+            statement.execute("INSERT INTO vehicles (id, type, max_weight_kg, max_volumem3, max_deliveries) "
+                    + "SELECT X, 'VAN', 1000, 8, 50 FROM SYSTEM_RANGE(1, " + VEHICLE_COUNT + ")");
+            statement.execute("INSERT INTO tours (id, date, vehicle_id) "
+                    + "SELECT X, DATEADD(DAY, MOD(X, 30), DATE '2030-01-01'), MOD(X, " + VEHICLE_COUNT + ") + 1 "
+                    + "FROM SYSTEM_RANGE(1, " + TOUR_COUNT + ")");
+            for (int from = 1; from <= DELIVERY_COUNT; from += INSERT_CHUNK) {
+                statement.execute("""
+                    INSERT INTO deliveries (id, latitude, longitude, weight_kg, volume_m3, status, tour_id, delivery_order)
+                    SELECT X,
+                           %1$s - 0.1 + MOD(X * 7919, 20000) / 100000.0,
+                           %2$s - 0.1 + MOD(X * 104729, 20000) / 100000.0,
+                           1 + MOD(X, 20), 0.1,
+                           CASE MOD(X, 10) WHEN 0 THEN 'PENDING' WHEN 1 THEN 'IN_TRANSIT' WHEN 2 THEN 'FAILED' ELSE 'DELIVERED' END,
+                           CASE WHEN MOD(X, 10) = 0 THEN NULL ELSE MOD(X, %3$d) + 1 END,
+                           CASE WHEN MOD(X, 10) = 0 THEN NULL ELSE X / %3$d END
+                    FROM SYSTEM_RANGE(%4$d, %5$d)""".formatted(
+                        BenchmarkData.WAREHOUSE_LAT, BenchmarkData.WAREHOUSE_LON, TOUR_COUNT,
+                        from, from + INSERT_CHUNK - 1));
+            }
+            statement.execute("ANALYZE");
+            statement.execute("SHUTDOWN COMPACT");
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.kyojin.tawsila.benchmark;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.util.DistanceCalculator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raw Haversine throughput, one call per delivery from the warehouse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DistanceCalculatorBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int deliveryCount;
+
+    @Param({"UNIFORM", "CLUSTERED"})
+    private BenchmarkData.Distribution distribution;
+
+    private double[] lat;
+    private double[] lon;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Delivery> deliveries = BenchmarkData.deliveries(deliveryCount, distribution, 42L);
+        lat = new double[deliveryCount];
+        lon = new double[deliveryCount];
+        for (int i = 0; i < deliveryCount; i++) {
+            lat[i] = deliveries.get(i).getLatitude();
+            lon[i] = deliveries.get(i).getLongitude();
+        }
+    }
+
+    @Benchmark
+    public void haversineFromWarehouse(Blackhole bh) {
+        for (int i = 0; i < lat.length; i++) {
+            bh.consume(DistanceCalculator.calculateDistance(
+                    BenchmarkData.WAREHOUSE_LAT, BenchmarkData.WAREHOUSE_LON, lat[i], lon[i]));
+        }
+    }
+}
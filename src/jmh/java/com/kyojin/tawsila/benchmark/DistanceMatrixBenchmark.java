@@ -0,0 +1,87 @@
+package com.kyojin.tawsila.benchmark;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Warehouse;
+import com.kyojin.tawsila.optimizer.DistanceKernel;
+import com.kyojin.tawsila.optimizer.DistanceMatrix;
+import com.kyojin.tawsila.optimizer.DistanceProvider;
+import com.kyojin.tawsila.optimizer.SavingsStrategy;
+import com.kyojin.tawsila.optimizer.SavingsList;
+import com.kyojin.tawsila.optimizer.impl.EquirectangularDistanceProvider;
+import com.kyojin.tawsila.optimizer.impl.HaversineDistanceProvider;
+import com.kyojin.tawsila.optimizer.impl.ParallelSavingsStrategy;
+import com.kyojin.tawsila.optimizer.impl.ScalarDistanceKernel;
+import com.kyojin.tawsila.util.DistanceCalculator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Matrix build and Clarke-Wright savings for each way of computing distances: the Haversine
+ * formula pair by pair, the great-circle kernel (scalar or SIMD), and the equirectangular
+ * approximation with radians and cosines precomputed per point.
+ * <p>
+ * The SIMD kernel is only built and used with the vector profile ({@code -P benchmark,vector}),
+ * HAVERSINE_SIMD runs the scalar kernel otherwise.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class DistanceMatrixBenchmark {
+
+    public enum Provider {
+        HAVERSINE_PER_PAIR(() -> DistanceCalculator::calculateDistance, ScalarDistanceKernel::new),
+        HAVERSINE_SCALAR(() -> new HaversineDistanceProvider(new ScalarDistanceKernel()), ScalarDistanceKernel::new),
+        HAVERSINE_SIMD(HaversineDistanceProvider::new, DistanceKernel::create),
+        EQUIRECTANGULAR(EquirectangularDistanceProvider::new, DistanceKernel::create);
+
+        private final Supplier<DistanceProvider> provider;
+        private final Supplier<DistanceKernel> kernel;
+
+        Provider(Supplier<DistanceProvider> provider, Supplier<DistanceKernel> kernel) {
+            this.provider = provider;
+            this.kernel = kernel;
+        }
+    }
+
+    @Param({"100", "1000", "3000"})
+    private int deliveryCount;
+
+    @Param({"HAVERSINE_PER_PAIR", "HAVERSINE_SCALAR", "HAVERSINE_SIMD", "EQUIRECTANGULAR"})
+    private Provider provider;
+
+    private Warehouse warehouse;
+    private List<Delivery> deliveries;
+    private DistanceProvider distanceProvider;
+    private DistanceMatrix matrix;
+    private List<Integer> eligible;
+    private SavingsStrategy savingsStrategy;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        warehouse = BenchmarkData.warehouse();
+        deliveries = BenchmarkData.deliveries(deliveryCount, BenchmarkData.Distribution.UNIFORM, 42L);
+        distanceProvider = provider.provider.get();
+        matrix = DistanceMatrix.of(warehouse, deliveries, distanceProvider);
+        eligible = IntStream.range(0, deliveryCount).boxed().toList();
+        // on the calling thread, the kernel is compared and not the fork-join split
+        savingsStrategy = new ParallelSavingsStrategy(new ForkJoinPool(1), 0, provider.kernel.get());
+    }
+
+    @Benchmark
+    public DistanceMatrix distanceMatrix() {
+        return DistanceMatrix.of(warehouse, deliveries, distanceProvider);
+    }
+
+    @Benchmark
+    public SavingsList savings() {
+        return savingsStrategy.calculateSavings(eligible, matrix);
+    }
+}
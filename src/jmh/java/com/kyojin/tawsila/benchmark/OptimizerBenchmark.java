@@ -0,0 +1,81 @@
+package com.kyojin.tawsila.benchmark;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Vehicle;
+import com.kyojin.tawsila.entity.Warehouse;
+import com.kyojin.tawsila.enums.VehicleType;
+import com.kyojin.tawsila.optimizer.DistanceMatrix;
+import com.kyojin.tawsila.optimizer.TourOptimizer;
+import com.kyojin.tawsila.optimizer.impl.ClarkeWrightOptimizer;
+import com.kyojin.tawsila.optimizer.impl.ImprovedTourOptimizer;
+import com.kyojin.tawsila.optimizer.impl.LocalSearchImprover;
+import com.kyojin.tawsila.optimizer.impl.NearestNeighborOptimizer;
+import com.kyojin.tawsila.optimizer.impl.ParallelSavingsStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end optimizer throughput for each scenario.
+ * The optimizers are called through the public API, so the distance matrix build is included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class OptimizerBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int deliveryCount;
+
+    @Param({"UNIFORM", "CLUSTERED"})
+    private BenchmarkData.Distribution distribution;
+
+    @Param({"BIKE", "VAN", "TRUCK"})
+    private VehicleType vehicleType;
+
+    private Warehouse warehouse;
+    private List<Delivery> deliveries;
+    private Vehicle vehicle;
+
+    private final TourOptimizer nearestNeighbor = new NearestNeighborOptimizer();
+    private final TourOptimizer clarkeWright = new ClarkeWrightOptimizer();
+    private final TourOptimizer clarkeWrightParallel = new ClarkeWrightOptimizer(new ParallelSavingsStrategy(0));
+    private final TourOptimizer nearestNeighbor2Opt =
+            new ImprovedTourOptimizer(nearestNeighbor, new LocalSearchImprover(200, 10));
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        warehouse = BenchmarkData.warehouse();
+        deliveries = BenchmarkData.deliveries(deliveryCount, distribution, 42L);
+        vehicle = new Vehicle(vehicleType);
+    }
+
+    @Benchmark
+    public List<Delivery> nearestNeighbor() {
+        return nearestNeighbor.calculateOptimalTour(warehouse, deliveries, vehicle);
+    }
+
+    @Benchmark
+    public List<Delivery> clarkeWright() {
+        return clarkeWright.calculateOptimalTour(warehouse, deliveries, vehicle);
+    }
+
+    @Benchmark
+    public List<Delivery> clarkeWrightParallel() {
+        return clarkeWrightParallel.calculateOptimalTour(warehouse, deliveries, vehicle);
+    }
+
+    @Benchmark
+    public List<Delivery> nearestNeighbor2Opt() {
+        return nearestNeighbor2Opt.calculateOptimalTour(warehouse, deliveries, vehicle);
+    }
+
+    @Benchmark
+    public DistanceMatrix distanceMatrix() {
+        return DistanceMatrix.of(warehouse, deliveries);
+    }
+}
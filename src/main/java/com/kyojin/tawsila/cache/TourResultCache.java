@@ -0,0 +1,83 @@
+package com.kyojin.tawsila.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of results computed from a tour, such as its optimized order or its distance.
+ * <p>
+ * Entries are keyed by tour id and by a fingerprint of the tour content (see
+ * {@link com.kyojin.tawsila.util.TourFingerprint}), so a changed tour never hits an old entry.
+ * Services still invalidate a tour when they change it so its stale entries do not take room.
+ * Concurrent misses on the same entry share a single computation (see {@link SingleFlight}).
+ * Hits and misses are published as the {@code cache.*} metrics with {@code cache=tourResults},
+ * misses that waited for another caller's computation as {@code cache.shared}.
+ */
+public class TourResultCache implements MeterBinder {
+
+    private static final String NAME = "tourResults";
+
+    private record Key(Long tourId, String fingerprint) {
+    }
+
+    private final Cache<Key, Object> cache;
+    private final SingleFlight<Key, Object> inFlight = new SingleFlight<>();
+
+    public TourResultCache(long maxSize, Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached result, or computes and caches it.
+     * The computation runs outside of the cache so a long one does not block other tours,
+     * callers that miss while it runs wait for it instead of computing the same result again.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Long tourId, String fingerprint, Supplier<T> compute) {
+        Key key = new Key(tourId, fingerprint);
+        T cached = (T) cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        return (T) inFlight.run(key, () -> {
+            // a computation may have finished between the miss and now
+            Object done = cache.asMap().get(key);
+            if (done != null) return done;
+
+            T result = compute.get();
+            if (result != null) {
+                cache.put(key, result);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Drops every entry of the tour.
+     */
+    public void invalidateTour(Long tourId) {
+        if (tourId == null) return;
+        cache.asMap().keySet().removeIf(key -> key.tourId().equals(tourId));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, NAME);
+        FunctionCounter.builder("cache.shared", inFlight, SingleFlight::shared)
+                .tag("cache", NAME)
+                .description("Misses that got the result of a computation already in progress")
+                .register(registry);
+    }
+}
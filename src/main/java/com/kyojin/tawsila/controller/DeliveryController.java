@@ -1,12 +1,22 @@
 package com.kyojin.tawsila.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kyojin.tawsila.dto.BulkResultDTO;
 import com.kyojin.tawsila.dto.DeliveryDTO;
 import com.kyojin.tawsila.dto.DeliveryStatusDTO;
+import com.kyojin.tawsila.dto.PageDTO;
 import com.kyojin.tawsila.service.DeliveryService;
+import com.kyojin.tawsila.util.NdjsonUtil;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -14,9 +24,11 @@ import java.util.List;
 public class DeliveryController {
 
     private final DeliveryService deliveryService;
+    private final ObjectMapper objectMapper;
 
-    public DeliveryController(DeliveryService deliveryService) {
+    public DeliveryController(DeliveryService deliveryService, ObjectMapper objectMapper) {
         this.deliveryService = deliveryService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -25,11 +37,36 @@ public class DeliveryController {
         return ResponseEntity.ok(createdDelivery);
     }
 
+    // a JSON array or one delivery per line, read as it arrives
+    @PostMapping(value = "/bulk", consumes = {"application/json", "application/x-ndjson"})
+    public ResponseEntity<BulkResultDTO> createDeliveries(HttpServletRequest request) throws IOException {
+        try (MappingIterator<DeliveryDTO> rows = objectMapper.readerFor(DeliveryDTO.class)
+                .readValues(request.getInputStream())) {
+            return ResponseEntity.ok(deliveryService.createDeliveries(rows));
+        }
+    }
+
     @GetMapping
     public ResponseEntity<List<DeliveryDTO>> getAllDeliveries() {
         return ResponseEntity.ok(deliveryService.getAllDeliveries());
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<PageDTO<DeliveryDTO>> getDeliveriesPage(
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(deliveryService.getDeliveriesPage(afterId, size, status, date));
+    }
+
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportDeliveries(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return NdjsonUtil.<DeliveryDTO>stream(objectMapper, consumer -> deliveryService.exportDeliveries(status, date, consumer));
+    }
+
     @GetMapping("/{id}" )
     public ResponseEntity<DeliveryDTO> getDeliveryById(@PathVariable Long id) {
         return deliveryService.getDeliveryById(id)
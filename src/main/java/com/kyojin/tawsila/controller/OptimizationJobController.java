@@ -0,0 +1,23 @@
+package com.kyojin.tawsila.controller;
+
+import com.kyojin.tawsila.dto.OptimizationJobDTO;
+import com.kyojin.tawsila.service.OptimizationJobService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/optimize/jobs")
+public class OptimizationJobController {
+
+    private final OptimizationJobService optimizationJobService;
+
+    public OptimizationJobController(OptimizationJobService optimizationJobService) {
+        this.optimizationJobService = optimizationJobService;
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<OptimizationJobDTO> getJob(@PathVariable String jobId) {
+        return optimizationJobService.getJob(jobId).map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -1,15 +1,23 @@
 package com.kyojin.tawsila.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kyojin.tawsila.dto.OptimizationJobDTO;
+import com.kyojin.tawsila.dto.PageDTO;
 import com.kyojin.tawsila.dto.TourDTO;
 import com.kyojin.tawsila.dto.TourDistanceDTO;
 import com.kyojin.tawsila.entity.Tour;
 import com.kyojin.tawsila.enums.AlgorithmType;
+import com.kyojin.tawsila.service.OptimizationJobService;
 import com.kyojin.tawsila.service.TourService;
+import com.kyojin.tawsila.util.NdjsonUtil;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -17,9 +25,14 @@ import java.util.List;
 public class TourController {
 
     private final TourService tourService;
+    private final OptimizationJobService optimizationJobService;
+    private final ObjectMapper objectMapper;
 
-    public TourController(TourService tourService) {
+    public TourController(TourService tourService, OptimizationJobService optimizationJobService,
+                          ObjectMapper objectMapper) {
         this.tourService = tourService;
+        this.optimizationJobService = optimizationJobService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -33,6 +46,20 @@ public class TourController {
         return  ResponseEntity.ok(tourService.getAllTours());
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<PageDTO<TourDTO>> getToursPage(
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(tourService.getToursPage(afterId, size, date));
+    }
+
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportTours(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return NdjsonUtil.<TourDTO>stream(objectMapper, consumer -> tourService.exportTours(date, consumer));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<TourDTO> getTour(@PathVariable Long id) {
         return tourService.getTourById(id).map(ResponseEntity::ok)
@@ -58,8 +85,28 @@ public class TourController {
         return ResponseEntity.ok(optimizedTour);
     }
 
+    @PostMapping("/{id}/optimize/jobs")
+    public ResponseEntity<OptimizationJobDTO> submitOptimization(@PathVariable Long id,
+                                                                 @RequestParam(defaultValue = "NEAREST_NEIGHBOR") String algorithm) {
+        var job = optimizationJobService.submit(id, algorithm);
+        return ResponseEntity.accepted().body(job);
+    }
+
+    @GetMapping("/distance")
+    public ResponseEntity<TourDistanceDTO> getFleetDistance(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(tourService.getFleetDistance(date));
+    }
+
     @GetMapping("/{id}/distance")
     public ResponseEntity<TourDistanceDTO> getTourDistance(@PathVariable Long id) {
         return ResponseEntity.ok(tourService.getTotalDistance(id));
     }
+
+    @PostMapping("/plan")
+    public ResponseEntity<List<TourDTO>> planTours(@RequestParam(required = false)
+                                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        var plannedTours = tourService.planTours(date != null ? date : LocalDate.now());
+        return ResponseEntity.ok(plannedTours);
+    }
 }
@@ -0,0 +1,31 @@
+package com.kyojin.tawsila.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkResultDTO {
+
+    private int received;
+
+    private int created;
+
+    private List<RowError> errors = new ArrayList<>();
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RowError {
+        private int row; // 1-based position in the input
+        private String message;
+    }
+}
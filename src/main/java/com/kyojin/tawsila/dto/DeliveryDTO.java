@@ -1,6 +1,7 @@
 package com.kyojin.tawsila.dto;
 
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -28,6 +29,7 @@ public class DeliveryDTO {
     @NotNull(message = "Volume in m3 is required")
     private Double volumeM3;
 
+    @Pattern(regexp = "([01]\\d|2[0-3]):[0-5]\\d-([01]\\d|2[0-3]):[0-5]\\d", message = "Time slot must be HH:mm-HH:mm")
     private String timeSlot; // ex: "09:00-12:00"
 
     private String status;
@@ -0,0 +1,27 @@
+package com.kyojin.tawsila.dto;
+
+import com.kyojin.tawsila.enums.DeliveryStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Flat projection of a delivery and its tour, read straight from the query result
+ * so exports do not build one managed entity per row.
+ */
+@Getter
+@AllArgsConstructor
+public class DeliveryRow {
+
+    private Long id;
+    private Double latitude;
+    private Double longitude;
+    private Double weightKg;
+    private Double volumeM3;
+    private String timeSlot;
+    private DeliveryStatus status;
+    private Long tourId;
+    private LocalDate tourDate;
+    private Long vehicleId;
+}
@@ -0,0 +1,32 @@
+package com.kyojin.tawsila.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class OptimizationJobDTO {
+
+    private String jobId;
+
+    private Long tourId;
+
+    private String algorithm;
+
+    private String status;
+
+    private Instant submittedAt;
+
+    private Instant finishedAt;
+
+    private String error;
+
+    // the optimized tour, once the job is done
+    private TourDTO result;
+}
@@ -0,0 +1,29 @@
+package com.kyojin.tawsila.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * An optimized tour by delivery ID, so it does not depend on the order the deliveries were read in.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class OptimizedOrderDTO {
+
+    // routed deliveries, in visiting order
+    private List<Long> deliveryIds;
+
+    private List<TourDTO.UnassignedDeliveryDTO> unassigned;
+
+    // version of the tour the order was computed from, null to apply it whatever the version
+    private Long tourVersion;
+
+    // exact distance of each leg of the routed deliveries, the last one back to the warehouse
+    private double[] legDistancesKm;
+}
@@ -0,0 +1,23 @@
+package com.kyojin.tawsila.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing.
+ * Pass {@code nextCursor} as {@code afterId} to get the next page, it is null on the last one.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PageDTO<T> {
+
+    private List<T> items;
+
+    private Long nextCursor;
+}
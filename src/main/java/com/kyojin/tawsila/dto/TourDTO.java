@@ -1,5 +1,6 @@
 package com.kyojin.tawsila.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.FutureOrPresent;
 import jakarta.validation.constraints.NotEmpty;
@@ -29,4 +30,17 @@ public class TourDTO {
 
     @NotEmpty(message = "Tour must have at least one delivery")
     private List<DeliveryDTO> deliveries;
+
+    // deliveries the optimizer could not route, at the end of the deliveries; only set on optimization results
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<UnassignedDeliveryDTO> unassigned;
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class UnassignedDeliveryDTO {
+        private Long deliveryId;
+        private String reason;
+    }
 }
@@ -0,0 +1,33 @@
+package com.kyojin.tawsila.dto;
+
+import com.kyojin.tawsila.enums.DeliveryStatus;
+import com.kyojin.tawsila.enums.VehicleType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Flat projection of a tour, its vehicle and one of its deliveries, read straight from the
+ * query result so exports do not build managed entities. A tour without deliveries gives one
+ * row with a null delivery id.
+ */
+@Getter
+@AllArgsConstructor
+public class TourRow {
+
+    private Long tourId;
+    private LocalDate date;
+    private Long vehicleId;
+    private VehicleType vehicleType;
+    private double maxWeightKg;
+    private double maxVolumeM3;
+    private int maxDeliveries;
+    private Long deliveryId;
+    private Double latitude;
+    private Double longitude;
+    private Double weightKg;
+    private Double volumeM3;
+    private String timeSlot;
+    private DeliveryStatus status;
+}
@@ -14,8 +14,10 @@ import lombok.*;
 @Builder
 public class Delivery {
 
+    // pooled sequence, ids are handed out by blocks of 50 and inserts can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "deliveries_seq")
+    @SequenceGenerator(name = "deliveries_seq", sequenceName = "deliveries_seq", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -46,6 +48,10 @@ public class Delivery {
     @JoinColumn(name = "tour_id")
     private Tour tour;
 
+    // from the previous stop of the tour, or from the warehouse for the first one
+    @Column(name = "leg_distance_km")
+    private Double legDistanceKm;
+
 
     @PrePersist
     protected void onCreate() {
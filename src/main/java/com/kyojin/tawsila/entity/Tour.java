@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -23,11 +25,22 @@ public class Tour {
 
     private LocalDate date;
 
+    // incremented on every write, a write based on an older version is rejected
+    @Version
+    private Long version;
+
+    // warehouse to warehouse through every delivery, null when a delivery changed since it was stored
+    @Column(name = "total_distance_km")
+    private Double totalDistanceKm;
+
+    // loaded by id rather than joined, so it comes from the second-level cache
     @ManyToOne
+    @Fetch(FetchMode.SELECT)
     @JoinColumn(name = "vehicle_id", nullable = false)
     private Vehicle vehicle;
 
-    @OneToMany(mappedBy = "tour", cascade = CascadeType.ALL, orphanRemoval = true)
+    // a delivery taken out of the tour goes back to being unassigned, it is not deleted
+    @OneToMany(mappedBy = "tour", cascade = CascadeType.ALL)
     @OrderColumn(name = "delivery_order")
     private List<Delivery> deliveries;
 
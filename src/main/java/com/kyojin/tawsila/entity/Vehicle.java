@@ -6,9 +6,14 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+// vehicles are read with every tour and rarely written, Hibernate updates the cached entry on each write
 @Entity
 @Table(name = "vehicles")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "vehicles")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -33,6 +38,7 @@ public class Vehicle {
     private int maxDeliveries;
 
     public Vehicle(VehicleType type) {
+        this.type = type;
         this.maxWeightKg = type.getMaxWeightKg();
         this.maxVolumeM3 = type.getMaxVolumeM3();
         this.maxDeliveries = type.getMaxDeliveries();
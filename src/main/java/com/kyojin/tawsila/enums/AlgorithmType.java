@@ -3,4 +3,7 @@ package com.kyojin.tawsila.enums;
 public enum AlgorithmType {
     NEAREST_NEIGHBOR,
     CLARKE_WRIGHT,
+    NEAREST_NEIGHBOR_2OPT,
+    CLARKE_WRIGHT_2OPT,
+    TIME_WINDOWS,
 }
@@ -0,0 +1,8 @@
+package com.kyojin.tawsila.enums;
+
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED
+}
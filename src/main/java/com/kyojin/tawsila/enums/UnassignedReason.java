@@ -0,0 +1,13 @@
+package com.kyojin.tawsila.enums;
+
+/**
+ * Why an optimizer left a delivery out of its route.
+ */
+public enum UnassignedReason {
+    // too heavy or too big for the vehicle, alone or on top of the route's load
+    CAPACITY,
+    // the route already has as many stops as the vehicle allows
+    STOP_LIMIT,
+    // it would fit, but the heuristic did not reach it (Clarke-Wright keeps its largest subtour)
+    NOT_ROUTED
+}
@@ -3,6 +3,7 @@ package com.kyojin.tawsila.exception;
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -34,6 +35,50 @@ public class AppExceptionHandler {
         return new ResponseEntity<>(err, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleServiceUnavailable(ServiceUnavailableException ex, HttpServletRequest request) {
+        String traceId = genId();
+        log.warn("Trace ID: {}, Exception: {}, Message: {}, Request URI: {}",
+                traceId, ex.getClass().getSimpleName(), ex.getMessage(), request.getRequestURI());
+
+        ErrorResponse err = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Unavailable",
+                ex.getMessage(),
+                request.getRequestURI(),
+                traceId
+        );
+        return new ResponseEntity<>(err, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * Handles writes based on a version of the data that changed meanwhile:
+     * - the tour was written by another request since it was read (OptimisticLockingFailureException)
+     * - the order applied was computed from an older version of the tour (ConflictException)
+     */
+    @ExceptionHandler({
+            ConflictException.class,
+            OptimisticLockingFailureException.class
+    })
+    public ResponseEntity<ErrorResponse> handleConflict(Exception ex, HttpServletRequest request) {
+        String traceId = genId();
+        log.warn("Trace ID: {}, Exception: {}, Message: {}, Request URI: {}",
+                traceId, ex.getClass().getSimpleName(), ex.getMessage(), request.getRequestURI());
+
+        String message = ex instanceof ConflictException
+                ? ex.getMessage()
+                : "The resource was modified by another request, reload it and try again";
+
+        ErrorResponse err = new ErrorResponse(
+                HttpStatus.CONFLICT.value(),
+                "Conflict",
+                message,
+                request.getRequestURI(),
+                traceId
+        );
+        return new ResponseEntity<>(err, HttpStatus.CONFLICT);
+    }
+
     /**
      * Handles all "Bad Request" exceptions, including:
      * - @Valid validation failures (MethodArgumentNotValidException)
@@ -1,6 +1,7 @@
 package com.kyojin.tawsila.mapper;
 
 import com.kyojin.tawsila.dto.DeliveryDTO;
+import com.kyojin.tawsila.dto.DeliveryRow;
 import com.kyojin.tawsila.entity.Delivery;
 import org.mapstruct.AfterMapping;
 import org.mapstruct.Mapper;
@@ -15,9 +16,11 @@ public interface DeliveryMapper {
     DeliveryDTO toDTO(Delivery delivery);
 
     @Mapping(target = "tour", ignore = true)
+    @Mapping(target = "legDistanceKm", ignore = true)
     Delivery toEntity(DeliveryDTO deliveryDTO);
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "legDistanceKm", ignore = true)
     void updateEntityFromDTO(DeliveryDTO dto, @MappingTarget Delivery entity);
 
     @AfterMapping
@@ -27,6 +30,21 @@ public interface DeliveryMapper {
         }
     }
 
+    default DeliveryDTO rowToDTO(DeliveryRow row) {
+        DeliveryDTO dto = new DeliveryDTO();
+        dto.setId(row.getId());
+        dto.setLatitude(row.getLatitude());
+        dto.setLongitude(row.getLongitude());
+        dto.setWeightKg(row.getWeightKg());
+        dto.setVolumeM3(row.getVolumeM3());
+        dto.setTimeSlot(row.getTimeSlot());
+        dto.setStatus(row.getStatus() != null ? row.getStatus().name() : null);
+        if (row.getTourId() != null) {
+            dto.setTour(new DeliveryDTO.TourEmbeddedDTO(row.getTourId(), row.getTourDate(), row.getVehicleId()));
+        }
+        return dto;
+    }
+
     @AfterMapping
     default void mapTourEmbedded(Delivery delivery, @MappingTarget DeliveryDTO dto) {
         if (delivery.getTour() != null) {
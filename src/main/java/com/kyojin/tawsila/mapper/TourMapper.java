@@ -10,12 +10,18 @@ import org.mapstruct.MappingTarget;
 @Mapper(componentModel = "spring", uses = {DeliveryMapper.class, VehicleMapper.class})
 public interface TourMapper {
 
+    @Mapping(target = "unassigned", ignore = true)
     TourDTO toDTO(Tour tour);
 
     @Mapping(target = "deliveries", ignore = true)
+    @Mapping(target = "totalDistanceKm", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Tour toEntity(TourDTO dto);
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "deliveries", ignore = true)
+    @Mapping(target = "totalDistanceKm", ignore = true)
+    @Mapping(target = "version", ignore = true)
     void updateEntityFromDTO(TourDTO dto, @MappingTarget Tour entity);
 
     TourDistanceDTO toDistanceDTO(Double distance);
@@ -0,0 +1,161 @@
+package com.kyojin.tawsila.optimizer;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Splits points into k geographic clusters of at most {@code capacity} points each.
+ * <p>
+ * Points are unit vectors on the sphere, as in {@link KdTree}, so the straight-line distance
+ * ranks them like the Haversine distance. Centers are seeded with k-means++ and moved to the
+ * mean of their points, as in Lloyd's algorithm. The assignment step respects the capacity:
+ * points go to their nearest center with room left, and the points that would lose the most by
+ * not getting their nearest center (the largest gap to their second nearest) are placed first.
+ * Each round costs O(n k), and the seed is fixed so the same points always give the same
+ * clusters.
+ */
+public class CapacitatedKMeans {
+
+    private static final long SEED = 42;
+
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    private final int n;
+
+    public CapacitatedKMeans(double[] lat, double[] lon) {
+        double[][] unit = DistanceKernel.toUnitVectors(lat, lon);
+        this.x = unit[0];
+        this.y = unit[1];
+        this.z = unit[2];
+        this.n = lat.length;
+    }
+
+    /**
+     * @param k          number of clusters, {@code k * capacity} must be at least the number of points
+     * @param capacity   maximum number of points in a cluster
+     * @param iterations maximum number of assignment and update rounds
+     * @return the cluster of every point, from 0 to k - 1
+     */
+    public int[] cluster(int k, int capacity, int iterations) {
+        if ((long) k * capacity < n) {
+            throw new IllegalArgumentException(k + " clusters of " + capacity + " cannot hold " + n + " points");
+        }
+        double[][] centers = seed(k);
+        int[] assignment = new int[n];
+        Arrays.fill(assignment, -1);
+
+        for (int round = 0; round < iterations; round++) {
+            int[] next = assign(centers, capacity);
+            if (Arrays.equals(next, assignment)) break;
+            assignment = next;
+            update(centers, assignment);
+        }
+        return assignment;
+    }
+
+    /**
+     * k-means++: each new center is drawn with a probability proportional to the squared distance
+     * to the nearest center already picked.
+     */
+    private double[][] seed(int k) {
+        Random random = new Random(SEED);
+        double[][] centers = new double[k][];
+        double[] nearest = new double[n];
+        Arrays.fill(nearest, Double.MAX_VALUE);
+
+        int first = random.nextInt(n);
+        centers[0] = new double[]{x[first], y[first], z[first]};
+        for (int c = 1; c < k; c++) {
+            double total = 0;
+            for (int i = 0; i < n; i++) {
+                nearest[i] = Math.min(nearest[i], distance(centers[c - 1], i));
+                total += nearest[i];
+            }
+            double target = random.nextDouble() * total;
+            int pick = n - 1;
+            for (int i = 0; i < n; i++) {
+                target -= nearest[i];
+                if (target <= 0) {
+                    pick = i;
+                    break;
+                }
+            }
+            centers[c] = new double[]{x[pick], y[pick], z[pick]};
+        }
+        return centers;
+    }
+
+    private int[] assign(double[][] centers, int capacity) {
+        int k = centers.length;
+        double[] regret = new double[n];
+        for (int i = 0; i < n; i++) {
+            double best = Double.MAX_VALUE;
+            double second = Double.MAX_VALUE;
+            for (int c = 0; c < k; c++) {
+                double d = distance(centers[c], i);
+                if (d < best) {
+                    second = best;
+                    best = d;
+                } else if (d < second) {
+                    second = d;
+                }
+            }
+            regret[i] = k > 1 ? second - best : 0;
+        }
+
+        // largest regret first, ties by index so the order is stable
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> {
+            int cmp = Double.compare(regret[b], regret[a]);
+            return cmp != 0 ? cmp : Integer.compare(a, b);
+        });
+
+        int[] size = new int[k];
+        int[] assignment = new int[n];
+        for (int i : order) {
+            // distances are computed again rather than kept, n * k of them would not fit for large batches
+            int best = -1;
+            double bestDistance = Double.MAX_VALUE;
+            for (int c = 0; c < k; c++) {
+                if (size[c] >= capacity) continue;
+                double d = distance(centers[c], i);
+                if (d < bestDistance) {
+                    bestDistance = d;
+                    best = c;
+                }
+            }
+            assignment[i] = best;
+            size[best]++;
+        }
+        return assignment;
+    }
+
+    private void update(double[][] centers, int[] assignment) {
+        int k = centers.length;
+        double[][] sums = new double[k][3];
+        int[] counts = new int[k];
+        for (int i = 0; i < n; i++) {
+            int c = assignment[i];
+            sums[c][0] += x[i];
+            sums[c][1] += y[i];
+            sums[c][2] += z[i];
+            counts[c]++;
+        }
+        for (int c = 0; c < k; c++) {
+            if (counts[c] == 0) continue; // keeps its position
+            centers[c][0] = sums[c][0] / counts[c];
+            centers[c][1] = sums[c][1] / counts[c];
+            centers[c][2] = sums[c][2] / counts[c];
+        }
+    }
+
+    // squared chord length, enough to compare distances
+    private double distance(double[] center, int i) {
+        double dx = center[0] - x[i];
+        double dy = center[1] - y[i];
+        double dz = center[2] - z[i];
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
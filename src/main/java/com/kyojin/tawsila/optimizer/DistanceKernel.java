@@ -0,0 +1,101 @@
+package com.kyojin.tawsila.optimizer;
+
+/**
+ * Batched great-circle distances and savings over primitive arrays, the inner loops of the
+ * matrix build and of Clarke-Wright.
+ * <p>
+ * Points are given in struct-of-arrays layout as unit vectors on the sphere (see
+ * {@link #toUnitVectors}), so a distance is a chord length and an arc sine, without the
+ * trigonometry of the Haversine formula. {@link #create()} returns a SIMD implementation on the
+ * Vector API when it was built (the {@code vector} Maven profile) and the {@code jdk.incubator.vector}
+ * module is enabled ({@code --add-modules jdk.incubator.vector}), and a scalar one otherwise.
+ */
+public interface DistanceKernel {
+
+    String VECTOR_MODULE = "jdk.incubator.vector";
+    String VECTOR_KERNEL = "com.kyojin.tawsila.optimizer.impl.VectorDistanceKernel";
+    String SCALAR_KERNEL = "com.kyojin.tawsila.optimizer.impl.ScalarDistanceKernel";
+
+    /**
+     * Great-circle distances in kilometers from point {@code from} to the points {@code [start, end)},
+     * where {@code x}, {@code y} and {@code z} are the unit vectors of the points. The distance to
+     * point {@code k} is written at {@code out[outOffset + k - start]}.
+     */
+    void greatCircle(double[] x, double[] y, double[] z, int from, int start, int end, double[] out, int outOffset);
+
+    /**
+     * Clarke-Wright savings of delivery a with the deliveries {@code [start, end)}:
+     * {@code out[b] = depotA + depot[b] - distances[rowOffset + columns[b]]}.
+     *
+     * @param depotA    distance from the warehouse to delivery a
+     * @param depot     distance from the warehouse to each delivery
+     * @param distances flat distance matrix, read at the row of delivery a
+     * @param rowOffset start of that row in {@code distances}
+     * @param columns   column of each delivery in the matrix
+     */
+    void savings(double depotA, double[] depot, double[] distances, int rowOffset, int[] columns,
+                 int start, int end, double[] out);
+
+    /**
+     * Great-circle distances between every pair of points, computed row by row on the upper
+     * triangle and mirrored.
+     *
+     * @return a flat row-major array where {@code [i * n + j]} is the distance between point i and point j
+     */
+    default double[] matrix(double[] lat, double[] lon) {
+        int n = lat.length;
+        double[][] unit = toUnitVectors(lat, lon);
+        double[] distances = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            greatCircle(unit[0], unit[1], unit[2], i, i + 1, n, distances, i * n + i + 1);
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                distances[j * n + i] = distances[i * n + j];
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * @return the x, y and z arrays of the points as unit vectors, one pass of trigonometry per point
+     */
+    static double[][] toUnitVectors(double[] lat, double[] lon) {
+        int n = lat.length;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] z = new double[n];
+        for (int i = 0; i < n; i++) {
+            double phi = Math.toRadians(lat[i]);
+            double lambda = Math.toRadians(lon[i]);
+            double cosPhi = Math.cos(phi);
+            x[i] = cosPhi * Math.cos(lambda);
+            y[i] = cosPhi * Math.sin(lambda);
+            z[i] = Math.sin(phi);
+        }
+        return new double[][]{x, y, z};
+    }
+
+    /**
+     * The SIMD kernel if it was built and the incubator module is there, the scalar one otherwise.
+     * The vector kernel is loaded by name so its classes are never linked without the module.
+     */
+    static DistanceKernel create() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                return load(VECTOR_KERNEL);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // not built, or the module is there but unusable, the scalar kernel gives the same results
+            }
+        }
+        try {
+            return load(SCALAR_KERNEL);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot load the scalar distance kernel", e);
+        }
+    }
+
+    private static DistanceKernel load(String kernel) throws ReflectiveOperationException {
+        return (DistanceKernel) Class.forName(kernel).getDeclaredConstructor().newInstance();
+    }
+}
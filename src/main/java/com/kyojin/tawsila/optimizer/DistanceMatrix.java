@@ -0,0 +1,161 @@
+package com.kyojin.tawsila.optimizer;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Warehouse;
+import com.kyojin.tawsila.util.DistanceCalculator;
+
+import java.util.List;
+
+/**
+ * Precomputed distances between the warehouse and a list of deliveries.
+ * <p>
+ * Node 0 is the warehouse and node {@code i + 1} is {@code deliveries.get(i)}, so callers
+ * address deliveries by their position in the list the matrix was built from.
+ * All pairs are requested from the {@link DistanceProvider} at once and stored in a flat
+ * row-major array, where {@code get(i, j)} is the distance from node i to node j.
+ */
+public class DistanceMatrix {
+
+    private final int nodes;
+    private final double[] distances;
+    private final boolean greatCircle;
+    private final boolean symmetric;
+    // the provider of the reported distances when the stored ones are an approximation, else null
+    private final DistanceProvider exact;
+    private final double[] lat;
+    private final double[] lon;
+
+    private DistanceMatrix(int nodes, double[] distances, boolean greatCircle, DistanceProvider exact,
+                           double[] lat, double[] lon) {
+        this.nodes = nodes;
+        this.distances = distances;
+        this.greatCircle = greatCircle;
+        // great-circle distances are symmetric, road distances are not on one-way streets
+        this.symmetric = greatCircle || isSymmetric(nodes, distances);
+        this.exact = exact;
+        this.lat = lat;
+        this.lon = lon;
+    }
+
+    /**
+     * Builds the matrix for the given warehouse and deliveries with the Haversine distance.
+     *
+     * @param warehouse  the depot, stored as node 0
+     * @param deliveries the deliveries, stored in list order starting at node 1
+     * @return the populated distance matrix
+     */
+    public static DistanceMatrix of(Warehouse warehouse, List<Delivery> deliveries) {
+        return of(warehouse, deliveries, new DistanceProvider() {
+            @Override
+            public double distance(double lat1, double lon1, double lat2, double lon2) {
+                return DistanceCalculator.calculateDistance(lat1, lon1, lat2, lon2);
+            }
+
+            @Override
+            public boolean isGreatCircle() {
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Builds the matrix for the given warehouse and deliveries in a single batched query.
+     *
+     * @param warehouse  the depot, stored as node 0
+     * @param deliveries the deliveries, stored in list order starting at node 1
+     * @param provider   the distances to use
+     * @return the populated distance matrix
+     */
+    public static DistanceMatrix of(Warehouse warehouse, List<Delivery> deliveries, DistanceProvider provider) {
+        int n = deliveries.size() + 1;
+
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        lat[0] = warehouse.getLatitude();
+        lon[0] = warehouse.getLongitude();
+        for (int i = 1; i < n; i++) {
+            Delivery del = deliveries.get(i - 1);
+            lat[i] = del.getLatitude();
+            lon[i] = del.getLongitude();
+        }
+
+        DistanceProvider exact = provider.exact() != provider ? provider.exact() : null;
+        return new DistanceMatrix(n, provider.matrix(lat, lon), provider.isGreatCircle(), exact, lat, lon);
+    }
+
+    /**
+     * @return true if the distances rank like the great-circle distance, see {@link DistanceProvider#isGreatCircle()}
+     */
+    public boolean isGreatCircle() {
+        return greatCircle;
+    }
+
+    /**
+     * @return true if the distance from i to j is always the one from j to i; routes can then be
+     * reversed without changing their length
+     */
+    public boolean isSymmetric() {
+        return symmetric;
+    }
+
+    private static boolean isSymmetric(int nodes, double[] distances) {
+        for (int i = 0; i < nodes; i++) {
+            for (int j = i + 1; j < nodes; j++) {
+                if (distances[i * nodes + j] != distances[j * nodes + i]) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of deliveries covered by this matrix (warehouse excluded)
+     */
+    public int size() {
+        return nodes - 1;
+    }
+
+    /**
+     * Distance between two nodes, where 0 is the warehouse and {@code i + 1} is delivery {@code i}.
+     */
+    public double get(int fromNode, int toNode) {
+        return distances[fromNode * nodes + toNode];
+    }
+
+    /**
+     * Distance between two nodes as reported to users, see {@link DistanceProvider#exact()}: the
+     * stored one, unless the matrix holds an approximation used to rank candidates.
+     */
+    public double exact(int fromNode, int toNode) {
+        if (exact == null) return get(fromNode, toNode);
+        return exact.distance(lat[fromNode], lon[fromNode], lat[toNode], lon[toNode]);
+    }
+
+    /**
+     * The flat row-major array itself, for kernels that read whole rows: node i's row starts at
+     * {@code i * (size() + 1)}. It must not be modified.
+     */
+    public double[] values() {
+        return distances;
+    }
+
+    /**
+     * Distance between the warehouse and the delivery at the given index.
+     */
+    public double fromWarehouse(int delivery) {
+        return distances[delivery + 1];
+    }
+
+    /**
+     * Distance from the delivery at the given index back to the warehouse.
+     */
+    public double toWarehouse(int delivery) {
+        return distances[(delivery + 1) * nodes];
+    }
+
+    /**
+     * Distance between the deliveries at the given indexes.
+     */
+    public double between(int delivery1, int delivery2) {
+        return distances[(delivery1 + 1) * nodes + delivery2 + 1];
+    }
+}
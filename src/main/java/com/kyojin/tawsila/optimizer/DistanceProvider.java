@@ -0,0 +1,56 @@
+package com.kyojin.tawsila.optimizer;
+
+/**
+ * Distance in kilometers between two coordinates, as used by the optimizers.
+ * <p>
+ * Implementations range from the great-circle distance to the length of the shortest path on
+ * the road network, in which case the distance from a to b can differ from b to a.
+ */
+@FunctionalInterface
+public interface DistanceProvider {
+
+    /**
+     * @return the distance in kilometers from the first point to the second
+     */
+    double distance(double lat1, double lon1, double lat2, double lon2);
+
+    /**
+     * Distances between every pair of points in one call, so providers that can share work
+     * between queries (one search per point instead of one per pair) override it.
+     * <p>
+     * The default computes each pair once and mirrors it, which assumes a symmetric distance.
+     *
+     * @param lat latitudes of the points
+     * @param lon longitudes of the points, same length as {@code lat}
+     * @return a flat row-major array where {@code [i * n + j]} is the distance from point i to point j
+     */
+    default double[] matrix(double[] lat, double[] lon) {
+        int n = lat.length;
+        double[] distances = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double d = distance(lat[i], lon[i], lat[j], lon[j]);
+                // distance is symmetric, we mirror it instead of computing it twice
+                distances[i * n + j] = d;
+                distances[j * n + i] = d;
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Whether the distances rank points like the great-circle distance, so a spatial index on the
+     * sphere finds the same nearest point as the distances would. Road distances do not.
+     */
+    default boolean isGreatCircle() {
+        return false;
+    }
+
+    /**
+     * Provider for the distances reported to users, like the total of a tour. Approximations
+     * that are only good enough to rank candidates return the exact distance they stand for.
+     */
+    default DistanceProvider exact() {
+        return this;
+    }
+}
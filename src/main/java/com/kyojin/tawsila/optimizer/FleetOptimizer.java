@@ -0,0 +1,36 @@
+package com.kyojin.tawsila.optimizer;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Vehicle;
+import com.kyojin.tawsila.entity.Warehouse;
+
+import java.util.List;
+
+public interface FleetOptimizer {
+
+    /**
+     * Splits deliveries across a whole fleet in a single pass.
+     *
+     * @param warehouse  The starting/ending point (depot) shared by every vehicle.
+     * @param deliveries The deliveries to distribute.
+     * @param vehicles   The vehicles available for the day.
+     * @param matrix     Distances built from the same warehouse and deliveries list.
+     * @return One ordered route per vehicle, at the same position as the vehicle in {@code vehicles}.
+     *         A vehicle that gets nothing has an empty route; deliveries that fit no vehicle are left out.
+     */
+    List<List<Delivery>> planFleet(Warehouse warehouse, List<Delivery> deliveries, List<Vehicle> vehicles, DistanceMatrix matrix);
+
+    /**
+     * Splits deliveries across a whole fleet, computing the distances it needs itself.
+     *
+     * @param warehouse  The starting/ending point (depot) shared by every vehicle.
+     * @param deliveries The deliveries to distribute.
+     * @param vehicles   The vehicles available for the day.
+     * @param distances  Distances between two coordinates.
+     * @return One ordered route per vehicle, as with a precomputed matrix.
+     */
+    default List<List<Delivery>> planFleet(Warehouse warehouse, List<Delivery> deliveries, List<Vehicle> vehicles,
+                                           DistanceProvider distances) {
+        return planFleet(warehouse, deliveries, vehicles, DistanceMatrix.of(warehouse, deliveries, distances));
+    }
+}
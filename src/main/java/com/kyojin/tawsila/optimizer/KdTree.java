@@ -0,0 +1,241 @@
+package com.kyojin.tawsila.optimizer;
+
+import com.kyojin.tawsila.entity.Delivery;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Static k-d tree over delivery coordinates, answering "nearest remaining delivery that still
+ * fits the vehicle" with deletion.
+ * <p>
+ * Points are stored on the unit sphere (x, y, z) so the straight-line (chord) distance ranks
+ * deliveries exactly like the Haversine distance. The tree is implicit: each node is a range of
+ * {@code order} split at its middle element, so nothing is allocated per node.
+ * Every node keeps the number of deliveries still in it and the smallest weight and volume
+ * it holds, which lets the search skip empty subtrees and subtrees where nothing fits.
+ */
+public class KdTree {
+
+    private final double[][] coords; // [axis][delivery index]
+    private final double[] weight;
+    private final double[] volume;
+
+    private final int[] order;     // delivery indexes in tree order
+    private final int[] position;  // delivery index -> position in order, -1 if not indexed
+    private final int[] axis;      // split axis of the node whose middle is at this position
+    private final int[] alive;     // deliveries still in the node whose middle is at this position
+    private final double[] minWeight;
+    private final double[] minVolume;
+    private final boolean[] removed;
+
+    private int size;
+
+    // search state, the tree is not meant to be shared between threads
+    private double qx, qy, qz;
+    private double usedWeight, maxWeight, usedVolume, maxVolume;
+    private int best;
+    private double bestDistance;
+
+    /**
+     * Builds the tree over the given deliveries.
+     *
+     * @param deliveries all deliveries, indexes returned by the tree refer to this list
+     * @param indexes    the indexes of the deliveries to put in the tree
+     */
+    public KdTree(List<Delivery> deliveries, List<Integer> indexes) {
+        int n = deliveries.size();
+        this.coords = new double[3][n];
+        this.weight = new double[n];
+        this.volume = new double[n];
+        this.position = new int[n];
+        this.removed = new boolean[n];
+
+        this.size = indexes.size();
+        this.order = new int[size];
+        this.axis = new int[size];
+        this.alive = new int[size];
+        this.minWeight = new double[size];
+        this.minVolume = new double[size];
+
+        for (int k = 0; k < size; k++) {
+            int i = indexes.get(k);
+            Delivery del = deliveries.get(i);
+            double lat = Math.toRadians(del.getLatitude());
+            double lon = Math.toRadians(del.getLongitude());
+            coords[0][i] = Math.cos(lat) * Math.cos(lon);
+            coords[1][i] = Math.cos(lat) * Math.sin(lon);
+            coords[2][i] = Math.sin(lat);
+            weight[i] = del.getWeightKg();
+            volume[i] = del.getVolumeM3();
+            order[k] = i;
+        }
+
+        Arrays.fill(position, -1);
+        build(0, size);
+        for (int k = 0; k < size; k++) {
+            position[order[k]] = k;
+        }
+    }
+
+    /**
+     * @return the number of deliveries still in the tree
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Finds the closest delivery to the given point among the ones still in the tree whose
+     * weight and volume can be added to the current load.
+     *
+     * @return the delivery index, or -1 if nothing fits
+     */
+    public int nearest(double latitude, double longitude,
+                       double usedWeight, double maxWeight, double usedVolume, double maxVolume) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        this.qx = Math.cos(lat) * Math.cos(lon);
+        this.qy = Math.cos(lat) * Math.sin(lon);
+        this.qz = Math.sin(lat);
+        this.usedWeight = usedWeight;
+        this.maxWeight = maxWeight;
+        this.usedVolume = usedVolume;
+        this.maxVolume = maxVolume;
+        this.best = -1;
+        this.bestDistance = Double.MAX_VALUE;
+
+        search(0, order.length);
+        return best;
+    }
+
+    /**
+     * Removes a delivery from the tree, it will not be returned by {@link #nearest} anymore.
+     */
+    public void remove(int index) {
+        int target = position[index];
+        if (target < 0 || removed[index]) return;
+
+        removed[index] = true;
+        size--;
+
+        // walk down the implicit tree to the node holding the delivery
+        int lo = 0;
+        int hi = order.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            alive[mid]--;
+            if (target == mid) return;
+            if (target < mid) hi = mid;
+            else lo = mid + 1;
+        }
+    }
+
+    private void build(int lo, int hi) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+
+        int splitAxis = widestAxis(lo, hi);
+        select(lo, hi - 1, mid, coords[splitAxis]);
+        axis[mid] = splitAxis;
+        alive[mid] = hi - lo;
+
+        double minW = Double.MAX_VALUE;
+        double minV = Double.MAX_VALUE;
+        for (int k = lo; k < hi; k++) {
+            minW = Math.min(minW, weight[order[k]]);
+            minV = Math.min(minV, volume[order[k]]);
+        }
+        minWeight[mid] = minW;
+        minVolume[mid] = minV;
+
+        build(lo, mid);
+        build(mid + 1, hi);
+    }
+
+    private void search(int lo, int hi) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+
+        // nothing left here, or even the lightest delivery does not fit
+        if (alive[mid] == 0
+                || usedWeight + minWeight[mid] > maxWeight
+                || usedVolume + minVolume[mid] > maxVolume) {
+            return;
+        }
+
+        int i = order[mid];
+        if (!removed[i] && usedWeight + weight[i] <= maxWeight && usedVolume + volume[i] <= maxVolume) {
+            double dx = coords[0][i] - qx;
+            double dy = coords[1][i] - qy;
+            double dz = coords[2][i] - qz;
+            double d = dx * dx + dy * dy + dz * dz;
+            if (d < bestDistance) {
+                bestDistance = d;
+                best = i;
+            }
+        }
+
+        int a = axis[mid];
+        double diff = query(a) - coords[a][i];
+        if (diff < 0) {
+            search(lo, mid);
+            if (diff * diff < bestDistance) search(mid + 1, hi);
+        } else {
+            search(mid + 1, hi);
+            if (diff * diff < bestDistance) search(lo, mid);
+        }
+    }
+
+    private double query(int a) {
+        return a == 0 ? qx : a == 1 ? qy : qz;
+    }
+
+    private int widestAxis(int lo, int hi) {
+        int widest = 0;
+        double widestSpread = -1;
+        for (int a = 0; a < 3; a++) {
+            double min = Double.MAX_VALUE;
+            double max = -Double.MAX_VALUE;
+            for (int k = lo; k < hi; k++) {
+                double v = coords[a][order[k]];
+                if (v < min) min = v;
+                if (v > max) max = v;
+            }
+            if (max - min > widestSpread) {
+                widestSpread = max - min;
+                widest = a;
+            }
+        }
+        return widest;
+    }
+
+    /**
+     * Quickselect: reorders order[lo..hi] so that order[k] holds the k-th smallest value.
+     */
+    private void select(int lo, int hi, int k, double[] values) {
+        while (lo < hi) {
+            double pivot = values[order[(lo + hi) >>> 1]];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (values[order[i]] < pivot) i++;
+                while (values[order[j]] > pivot) j--;
+                if (i <= j) {
+                    int tmp = order[i];
+                    order[i] = order[j];
+                    order[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) hi = j;
+            else if (k >= i) lo = i;
+            else return;
+        }
+    }
+}
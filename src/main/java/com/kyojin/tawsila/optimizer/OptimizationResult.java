@@ -0,0 +1,89 @@
+package com.kyojin.tawsila.optimizer;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Vehicle;
+import com.kyojin.tawsila.enums.UnassignedReason;
+import com.kyojin.tawsila.enums.VehicleType;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A route described by positions in the deliveries list given to the optimizer, the same
+ * positions as in the {@link DistanceMatrix}.
+ *
+ * @param order         positions of the routed deliveries, in visiting order
+ * @param unassigned    the other deliveries, in list order, with the reason they were left out
+ * @param legs          distance of each leg in kilometers, exact even when the matrix ranks on an
+ *                      approximation: {@code legs[k]} leads to stop k (from the warehouse for the
+ *                      first one) and the last leg goes back to the warehouse
+ * @param totalDistance sum of the legs
+ */
+public record OptimizationResult(int[] order, List<Unassigned> unassigned, double[] legs, double totalDistance) {
+
+    public record Unassigned(int delivery, UnassignedReason reason) {
+    }
+
+    /**
+     * Describes a route returned by an optimizer.
+     *
+     * @param deliveries The deliveries given to the optimizer.
+     * @param route      The route it returned, made of deliveries from that list.
+     * @param vehicle    The vehicle the route was computed for, its limits explain the left out deliveries.
+     * @param matrix     Distances built from the same deliveries list.
+     */
+    public static OptimizationResult of(List<Delivery> deliveries, List<Delivery> route, Vehicle vehicle,
+                                        DistanceMatrix matrix) {
+        Map<Delivery, Integer> indexes = new IdentityHashMap<>();
+        for (int i = 0; i < deliveries.size(); i++) {
+            indexes.put(deliveries.get(i), i);
+        }
+
+        int[] order = new int[route.size()];
+        boolean[] routed = new boolean[deliveries.size()];
+        double weight = 0;
+        double volume = 0;
+        for (int k = 0; k < route.size(); k++) {
+            Delivery del = route.get(k);
+            order[k] = indexes.get(del);
+            routed[order[k]] = true;
+            weight += del.getWeightKg();
+            volume += del.getVolumeM3();
+        }
+
+        double[] legs = new double[order.length == 0 ? 0 : order.length + 1];
+        double total = 0;
+        for (int k = 0; k < legs.length; k++) {
+            int from = k == 0 ? 0 : order[k - 1] + 1;
+            int to = k == order.length ? 0 : order[k] + 1;
+            legs[k] = matrix.exact(from, to);
+            total += legs[k];
+        }
+
+        VehicleType type = vehicle != null ? vehicle.getType() : null;
+        int stopLimit = type != null ? Math.min(vehicle.getMaxDeliveries(), type.getMaxDeliveries()) : Integer.MAX_VALUE;
+        List<Unassigned> unassigned = new ArrayList<>();
+        for (int i = 0; i < deliveries.size(); i++) {
+            if (routed[i]) continue;
+            unassigned.add(new Unassigned(i, reason(deliveries.get(i), type, route.size(), stopLimit, weight, volume)));
+        }
+
+        return new OptimizationResult(order, unassigned, legs, total);
+    }
+
+    private static UnassignedReason reason(Delivery del, VehicleType type, int stops, int stopLimit,
+                                           double weight, double volume) {
+        if (type != null && !type.canHandle(del.getWeightKg(), del.getVolumeM3())) {
+            return UnassignedReason.CAPACITY;
+        }
+        if (stops >= stopLimit) {
+            return UnassignedReason.STOP_LIMIT;
+        }
+        if (type != null && !type.canHandle(weight + del.getWeightKg(), volume + del.getVolumeM3())) {
+            return UnassignedReason.CAPACITY;
+        }
+        return UnassignedReason.NOT_ROUTED;
+    }
+}
@@ -0,0 +1,115 @@
+package com.kyojin.tawsila.optimizer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.util.function.Supplier;
+
+/**
+ * Meters of the optimizer hot paths, all named {@code tawsila.optimizer.*}.
+ * <p>
+ * Optimizers record into a composite registry that Spring Boot binds to the application
+ * registry, so they work the same, without publishing anything, when built outside Spring.
+ * Counters are incremented once per run with the run totals, never inside the loops.
+ */
+public class OptimizerMetrics implements MeterBinder {
+
+    private final CompositeMeterRegistry registry = new CompositeMeterRegistry();
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        registry.add(meterRegistry);
+    }
+
+    /**
+     * Times an optimization, tagged by algorithm and vehicle type.
+     */
+    public <T> T time(String algorithm, String vehicleType, Supplier<T> optimization) {
+        return Timer.builder("tawsila.optimizer.duration")
+                .description("Time spent computing a route")
+                .tag("algorithm", algorithm)
+                .tag("vehicle.type", vehicleType)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(optimization);
+    }
+
+    /**
+     * Deliveries given to an optimizer, and how many ended up in its route.
+     */
+    public void deliveries(String algorithm, int considered, int routed) {
+        deliveriesCounter(algorithm, "considered").increment(considered);
+        deliveriesCounter(algorithm, "routed").increment(routed);
+    }
+
+    public void savingsGenerated(int count) {
+        Counter.builder("tawsila.optimizer.savings")
+                .description("Clarke-Wright savings generated")
+                .register(registry)
+                .increment(count);
+    }
+
+    /**
+     * Clarke-Wright merges, rejected ones are split between capacity and non-endpoint deliveries.
+     */
+    public void merges(int accepted, int rejectedByCapacity, int rejectedByPosition) {
+        mergesCounter("accepted").increment(accepted);
+        mergesCounter("rejected_capacity").increment(rejectedByCapacity);
+        mergesCounter("rejected_position").increment(rejectedByPosition);
+    }
+
+    /**
+     * Multi-start runs: starts that finished before the deadline, starts dropped because of it,
+     * and runs where a randomized start beat the plain heuristic.
+     */
+    public void starts(int completed, int dropped, boolean improved) {
+        startsCounter("completed").increment(completed);
+        startsCounter("dropped").increment(dropped);
+        if (improved) {
+            Counter.builder("tawsila.optimizer.starts.improved")
+                    .description("Multi-start runs won by a randomized start")
+                    .register(registry)
+                    .increment();
+        }
+    }
+
+    public void distanceCalculations(long count) {
+        Counter.builder("tawsila.optimizer.distance.calculations")
+                .description("Distances computed between two coordinates")
+                .register(registry)
+                .increment(count);
+    }
+
+    /**
+     * Counts the distances computed to build the matrix.
+     */
+    public void distanceMatrix(DistanceMatrix matrix) {
+        long nodes = matrix.size() + 1L;
+        distanceCalculations(nodes * (nodes - 1) / 2);
+    }
+
+    private Counter deliveriesCounter(String algorithm, String stage) {
+        return Counter.builder("tawsila.optimizer.deliveries")
+                .description("Deliveries handled by the optimizers")
+                .tag("algorithm", algorithm)
+                .tag("stage", stage)
+                .register(registry);
+    }
+
+    private Counter startsCounter(String result) {
+        return Counter.builder("tawsila.optimizer.starts")
+                .description("Constructions run by the multi-start optimizers")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private Counter mergesCounter(String result) {
+        return Counter.builder("tawsila.optimizer.merges")
+                .description("Clarke-Wright subtour merges")
+                .tag("result", result)
+                .register(registry);
+    }
+}
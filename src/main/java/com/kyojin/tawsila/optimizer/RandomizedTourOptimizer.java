@@ -0,0 +1,28 @@
+package com.kyojin.tawsila.optimizer;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Vehicle;
+import com.kyojin.tawsila.entity.Warehouse;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A construction heuristic that can be run again with some of its choices randomized, so
+ * several runs explore different routes.
+ */
+public interface RandomizedTourOptimizer extends TourOptimizer {
+
+    /**
+     * Same contract as {@link #calculateOptimalTour(Warehouse, List, Vehicle, DistanceMatrix)},
+     * with the heuristic's choices drawn from {@code random}. Safe to call from several threads
+     * at once with different generators.
+     *
+     * @param random Source of the randomized choices, the same seed always gives the same route.
+     * @param stop Polled while the route is built, the run is given up as soon as it returns true.
+     * @return The route, or null if the run was given up.
+     */
+    List<Delivery> calculateRandomizedTour(Warehouse warehouse, List<Delivery> deliveries, Vehicle vehicle,
+                                           DistanceMatrix matrix, Random random, BooleanSupplier stop);
+}
@@ -0,0 +1,417 @@
+package com.kyojin.tawsila.optimizer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Road network preprocessed with contraction hierarchies, as written by {@link RoadGraphBuilder}.
+ * <p>
+ * Every node has a rank, and only the edges towards higher ranked nodes are kept, shortcuts
+ * included: {@code up} edges in the driving direction and {@code down} edges against it, stored
+ * at their lower ranked end. A shortest path climbs from the source and from the target and
+ * meets at its highest ranked node, so a query only settles the few hundred nodes above its
+ * two ends instead of a whole district. Edges are stored as compressed row arrays and weights
+ * are road lengths in meters.
+ * <p>
+ * The file is a sequence of big-endian ints and floats: magic, version, node count, up edge
+ * count, down edge count, the latitudes, the longitudes, then the offsets, targets and weights
+ * of the up edges and of the down edges.
+ * <p>
+ * Queries can run from several threads, each one has its own search state.
+ */
+public class RoadGraph {
+
+    static final int MAGIC = 0x54574348; // "TWCH"
+    static final int VERSION = 1;
+
+    // grid used to snap coordinates to the nearest node, cells are about 500 m high
+    private static final int CELLS_PER_DEGREE = 200;
+    private static final int MAX_SNAP_RINGS = 20;
+
+    private final int nodes;
+    private final float[] lat;
+    private final float[] lon;
+    private final int[] upOffsets;
+    private final int[] upTargets;
+    private final int[] upWeights;
+    private final int[] downOffsets;
+    private final int[] downTargets;
+    private final int[] downWeights;
+
+    // node indexes sorted by grid cell, with the cell of each of them
+    private final int minCellY;
+    private final int minCellX;
+    private final int cellRows;
+    private final int cellColumns;
+    private final int[] cellNodes;
+    private final int[] cellKeys;
+
+    private final ThreadLocal<Search[]> searches;
+
+    RoadGraph(float[] lat, float[] lon,
+              int[] upOffsets, int[] upTargets, int[] upWeights,
+              int[] downOffsets, int[] downTargets, int[] downWeights) {
+        this.nodes = lat.length;
+        this.lat = lat;
+        this.lon = lon;
+        this.upOffsets = upOffsets;
+        this.upTargets = upTargets;
+        this.upWeights = upWeights;
+        this.downOffsets = downOffsets;
+        this.downTargets = downTargets;
+        this.downWeights = downWeights;
+
+        // the grid only spans the cells of the graph's bounding box
+        int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE, minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
+        for (int v = 0; v < nodes; v++) {
+            minY = Math.min(minY, cellOf(lat[v]));
+            maxY = Math.max(maxY, cellOf(lat[v]));
+            minX = Math.min(minX, cellOf(lon[v]));
+            maxX = Math.max(maxX, cellOf(lon[v]));
+        }
+        this.minCellY = minY;
+        this.minCellX = minX;
+        this.cellRows = nodes == 0 ? 0 : maxY - minY + 1;
+        this.cellColumns = nodes == 0 ? 0 : maxX - minX + 1;
+
+        long[] keyed = new long[nodes];
+        for (int v = 0; v < nodes; v++) {
+            keyed[v] = (long) cellKey(cellOf(lat[v]), cellOf(lon[v])) << 32 | v;
+        }
+        Arrays.sort(keyed);
+        this.cellNodes = new int[nodes];
+        this.cellKeys = new int[nodes];
+        for (int k = 0; k < nodes; k++) {
+            cellNodes[k] = (int) keyed[k];
+            cellKeys[k] = (int) (keyed[k] >>> 32);
+        }
+
+        this.searches = ThreadLocal.withInitial(() -> new Search[]{new Search(nodes), new Search(nodes)});
+    }
+
+    /**
+     * Loads a graph written by {@link #write(Path)}.
+     */
+    public static RoadGraph read(Path path) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(path + " is not a road graph file");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported road graph version " + version + " in " + path);
+            }
+            int nodes = in.readInt();
+            int upEdges = in.readInt();
+            int downEdges = in.readInt();
+
+            float[] lat = readFloats(in, nodes);
+            float[] lon = readFloats(in, nodes);
+            int[] upOffsets = readInts(in, nodes + 1);
+            int[] upTargets = readInts(in, upEdges);
+            int[] upWeights = readInts(in, upEdges);
+            int[] downOffsets = readInts(in, nodes + 1);
+            int[] downTargets = readInts(in, downEdges);
+            int[] downWeights = readInts(in, downEdges);
+            return new RoadGraph(lat, lon, upOffsets, upTargets, upWeights, downOffsets, downTargets, downWeights);
+        }
+    }
+
+    public void write(Path path) throws IOException {
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(nodes);
+            out.writeInt(upTargets.length);
+            out.writeInt(downTargets.length);
+            for (float v : lat) out.writeFloat(v);
+            for (float v : lon) out.writeFloat(v);
+            for (int[] array : new int[][]{upOffsets, upTargets, upWeights, downOffsets, downTargets, downWeights}) {
+                for (int v : array) out.writeInt(v);
+            }
+        }
+    }
+
+    /**
+     * @return the number of nodes of the graph
+     */
+    public int size() {
+        return nodes;
+    }
+
+    public double latitude(int node) {
+        return lat[node];
+    }
+
+    public double longitude(int node) {
+        return lon[node];
+    }
+
+    /**
+     * Nearest node to a coordinate, looked up in the grid cells around it.
+     *
+     * @return the node index, or -1 if no node is within about 10 km
+     */
+    public int nearestNode(double latitude, double longitude) {
+        int cy = cellOf(latitude);
+        int cx = cellOf(longitude);
+        double cos = Math.cos(Math.toRadians(latitude));
+
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        for (int ring = 0; ring <= MAX_SNAP_RINGS; ring++) {
+            for (int y = cy - ring; y <= cy + ring; y++) {
+                boolean edgeRow = y == cy - ring || y == cy + ring;
+                // inner rows only have the two cells on the border of the ring
+                for (int x = cx - ring; x <= cx + ring; x += edgeRow ? 1 : 2 * ring) {
+                    int key = cellKey(y, x);
+                    if (key < 0) continue; // outside the graph
+                    for (int k = firstInCell(key); k < nodes && cellKeys[k] == key; k++) {
+                        int v = cellNodes[k];
+                        double dy = lat[v] - latitude;
+                        double dx = (lon[v] - longitude) * cos;
+                        double d = dx * dx + dy * dy;
+                        if (d < bestDistance) {
+                            bestDistance = d;
+                            best = v;
+                        }
+                    }
+                }
+            }
+            // anything outside the ring is at least ring cells away
+            double reach = ring * cos / CELLS_PER_DEGREE;
+            if (best >= 0 && bestDistance <= reach * reach) break;
+        }
+        return best;
+    }
+
+    /**
+     * Length of the shortest path between two nodes.
+     *
+     * @return the distance in kilometers, or {@link Double#POSITIVE_INFINITY} if there is no path
+     */
+    public double distance(int from, int to) {
+        if (from == to) return 0;
+        Search[] pair = searches.get();
+        Search forward = pair[0];
+        Search backward = pair[1];
+
+        forward.run(from, upOffsets, upTargets, upWeights, (node, d) -> true);
+
+        int[] best = {Integer.MAX_VALUE};
+        backward.run(to, downOffsets, downTargets, downWeights, (node, d) -> {
+            if (d >= best[0]) return false; // nothing left can be shorter
+            int up = forward.dist[node];
+            if (up != Integer.MAX_VALUE && up + d < best[0]) best[0] = up + d;
+            return true;
+        });
+        return best[0] == Integer.MAX_VALUE ? Double.POSITIVE_INFINITY : best[0] / 1000.0;
+    }
+
+    /**
+     * Lengths of the shortest paths from every source to every target, with one search per
+     * node instead of one per pair: the searches from the targets leave their distance in a
+     * bucket at every node they settle, and the searches from the sources read the buckets
+     * of the nodes they settle.
+     *
+     * @return a flat row-major array where {@code [i * targets.length + j]} is the distance in
+     *         kilometers from {@code sources[i]} to {@code targets[j]}, or
+     *         {@link Double#POSITIVE_INFINITY} if there is no path
+     */
+    public double[] distances(int[] sources, int[] targets) {
+        Search search = searches.get()[0];
+
+        // bucket entries: settled node, target position and distance to the target
+        int[] entryNode = new int[64];
+        int[] entryTarget = new int[64];
+        int[] entryDistance = new int[64];
+        int entries = 0;
+        for (int j = 0; j < targets.length; j++) {
+            search.run(targets[j], downOffsets, downTargets, downWeights, (node, d) -> true);
+            if (entries + search.touchedCount > entryNode.length) {
+                int capacity = Math.max(entryNode.length * 2, entries + search.touchedCount);
+                entryNode = Arrays.copyOf(entryNode, capacity);
+                entryTarget = Arrays.copyOf(entryTarget, capacity);
+                entryDistance = Arrays.copyOf(entryDistance, capacity);
+            }
+            for (int t = 0; t < search.touchedCount; t++) {
+                int node = search.touched[t];
+                entryNode[entries] = node;
+                entryTarget[entries] = j;
+                entryDistance[entries] = search.dist[node];
+                entries++;
+            }
+        }
+
+        // buckets sorted by node, so a settled node finds its entries with a binary search
+        long[] buckets = new long[entries];
+        for (int e = 0; e < entries; e++) {
+            buckets[e] = (long) entryNode[e] << 32 | e;
+        }
+        Arrays.sort(buckets);
+
+        int[] best = new int[sources.length * targets.length];
+        Arrays.fill(best, Integer.MAX_VALUE);
+        int[] targetOf = entryTarget;
+        int[] distanceOf = entryDistance;
+        for (int i = 0; i < sources.length; i++) {
+            int row = i * targets.length;
+            search.run(sources[i], upOffsets, upTargets, upWeights, (node, d) -> {
+                for (int k = firstBucket(buckets, node); k < buckets.length && (buckets[k] >>> 32) == node; k++) {
+                    int e = (int) buckets[k];
+                    int total = d + distanceOf[e];
+                    if (total < best[row + targetOf[e]]) best[row + targetOf[e]] = total;
+                }
+                return true;
+            });
+        }
+
+        double[] distances = new double[best.length];
+        for (int k = 0; k < best.length; k++) {
+            distances[k] = best[k] == Integer.MAX_VALUE ? Double.POSITIVE_INFINITY : best[k] / 1000.0;
+        }
+        return distances;
+    }
+
+    private int firstInCell(int key) {
+        int lo = 0;
+        int hi = nodes;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cellKeys[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int firstBucket(long[] buckets, int node) {
+        long key = (long) node << 32;
+        int lo = 0;
+        int hi = buckets.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (buckets[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int cellOf(double degrees) {
+        return (int) Math.floor(degrees * CELLS_PER_DEGREE);
+    }
+
+    /**
+     * @return the index of the cell in the grid, or -1 if it is outside the bounding box
+     */
+    private int cellKey(int y, int x) {
+        int row = y - minCellY;
+        int column = x - minCellX;
+        if (row < 0 || row >= cellRows || column < 0 || column >= cellColumns) return -1;
+        return row * cellColumns + column;
+    }
+
+    private static float[] readFloats(DataInputStream in, int count) throws IOException {
+        float[] values = new float[count];
+        for (int i = 0; i < count; i++) values[i] = in.readFloat();
+        return values;
+    }
+
+    private static int[] readInts(DataInputStream in, int count) throws IOException {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) values[i] = in.readInt();
+        return values;
+    }
+
+    @FunctionalInterface
+    private interface Settled {
+
+        /**
+         * @return false to stop the search
+         */
+        boolean settle(int node, int distance);
+    }
+
+    /**
+     * Dijkstra over one direction of the upward graph. Distances are reset through the list of
+     * touched nodes, so a search costs its own size and not the size of the graph.
+     */
+    private static class Search {
+        final int[] dist;
+        final int[] touched;
+        int touchedCount;
+
+        // binary heap of (distance << 32 | node), stale entries are skipped when popped
+        long[] heap = new long[64];
+        int heapSize;
+
+        Search(int nodes) {
+            this.dist = new int[nodes];
+            this.touched = new int[nodes];
+            Arrays.fill(dist, Integer.MAX_VALUE);
+        }
+
+        void run(int source, int[] offsets, int[] targets, int[] weights, Settled settled) {
+            for (int t = 0; t < touchedCount; t++) {
+                dist[touched[t]] = Integer.MAX_VALUE;
+            }
+            touchedCount = 0;
+            heapSize = 0;
+
+            dist[source] = 0;
+            touched[touchedCount++] = source;
+            push((long) source);
+
+            while (heapSize > 0) {
+                long top = pop();
+                int node = (int) top;
+                int d = (int) (top >>> 32);
+                if (d > dist[node]) continue;
+                if (!settled.settle(node, d)) return;
+
+                for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                    int next = targets[e];
+                    int nd = d + weights[e];
+                    if (nd < dist[next]) {
+                        if (dist[next] == Integer.MAX_VALUE) touched[touchedCount++] = next;
+                        dist[next] = nd;
+                        push((long) nd << 32 | next);
+                    }
+                }
+            }
+        }
+
+        private void push(long value) {
+            if (heapSize == heap.length) heap = Arrays.copyOf(heap, heapSize * 2);
+            int i = heapSize++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= value) break;
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = value;
+        }
+
+        private long pop() {
+            long result = heap[0];
+            long last = heap[--heapSize];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize) break;
+                if (child + 1 < heapSize && heap[child + 1] < heap[child]) child++;
+                if (heap[child] >= last) break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return result;
+        }
+    }
+}
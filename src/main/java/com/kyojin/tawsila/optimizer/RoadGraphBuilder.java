@@ -0,0 +1,255 @@
+package com.kyojin.tawsila.optimizer;
+
+import com.kyojin.tawsila.util.DistanceCalculator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Builds a {@link RoadGraph} from plain road segments by contracting its nodes one by one.
+ * <p>
+ * Contracting a node removes it from the graph and adds a shortcut u → w for every pair of
+ * neighbors whose shortest path went through it. A bounded Dijkstra from u looks for another
+ * path (a witness) first; when it gives up early the shortcut is added anyway, which is never
+ * wrong, only larger. Nodes are picked by edge difference (shortcuts added minus edges removed)
+ * plus the number of already contracted neighbors, which keeps the contraction spread over the
+ * map. Priorities are updated lazily when a node reaches the top of the queue.
+ * <p>
+ * This is an offline step: run {@link #main(String[])} once per map extract and point
+ * {@code distance.road-graph.path} at the file it writes.
+ */
+public class RoadGraphBuilder {
+
+    // settled nodes after which a witness search gives up
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+
+    private final double[] lat;
+    private final double[] lon;
+
+    // remaining graph: for every node, neighbor -> weight in meters, null once contracted
+    private final List<Map<Integer, Integer>> out;
+    private final List<Map<Integer, Integer>> in;
+
+    public RoadGraphBuilder(double[] lat, double[] lon) {
+        this.lat = lat;
+        this.lon = lon;
+        this.out = new ArrayList<>(lat.length);
+        this.in = new ArrayList<>(lat.length);
+        for (int v = 0; v < lat.length; v++) {
+            out.add(new HashMap<>());
+            in.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Adds a directed edge, only the shortest of parallel edges is kept.
+     */
+    public void addEdge(int from, int to, int meters) {
+        if (from == to) return;
+        out.get(from).merge(to, meters, Math::min);
+        in.get(to).merge(from, meters, Math::min);
+    }
+
+    /**
+     * Adds a road segment whose length is the distance between its two nodes.
+     */
+    public void addRoad(int from, int to, boolean oneWay) {
+        int meters = (int) Math.round(1000 * DistanceCalculator.calculateDistance(lat[from], lon[from], lat[to], lon[to]));
+        addEdge(from, to, meters);
+        if (!oneWay) addEdge(to, from, meters);
+    }
+
+    /**
+     * Contracts every node. The builder cannot be used afterwards.
+     */
+    public RoadGraph build() {
+        int n = lat.length;
+        int[] contractedNeighbors = new int[n];
+        List<List<int[]>> up = new ArrayList<>(n);
+        List<List<int[]>> down = new ArrayList<>(n);
+        for (int v = 0; v < n; v++) {
+            up.add(new ArrayList<>());
+            down.add(new ArrayList<>());
+        }
+
+        // (priority << 32 | node), priorities are offset so they sort as unsigned
+        PriorityQueue<Long> queue = new PriorityQueue<>();
+        for (int v = 0; v < n; v++) {
+            queue.add(entry(priority(v, contractedNeighbors), v));
+        }
+
+        while (!queue.isEmpty()) {
+            int v = (int) (long) queue.poll();
+            if (out.get(v) == null) continue;
+
+            // lazy update: contract only if the node is still the cheapest
+            long updated = entry(priority(v, contractedNeighbors), v);
+            if (!queue.isEmpty() && updated > queue.peek()) {
+                queue.add(updated);
+                continue;
+            }
+
+            List<int[]> shortcuts = shortcuts(v);
+
+            // the remaining neighbors all get a higher rank than v
+            out.get(v).forEach((w, weight) -> {
+                up.get(v).add(new int[]{w, weight});
+                in.get(w).remove(v);
+                contractedNeighbors[w]++;
+            });
+            in.get(v).forEach((u, weight) -> {
+                down.get(v).add(new int[]{u, weight});
+                out.get(u).remove(v);
+                contractedNeighbors[u]++;
+            });
+            out.set(v, null);
+            in.set(v, null);
+
+            for (int[] shortcut : shortcuts) {
+                addEdge(shortcut[0], shortcut[1], shortcut[2]);
+            }
+        }
+
+        float[] latitudes = new float[n];
+        float[] longitudes = new float[n];
+        for (int v = 0; v < n; v++) {
+            latitudes[v] = (float) lat[v];
+            longitudes[v] = (float) lon[v];
+        }
+        int[][] upEdges = compress(up);
+        int[][] downEdges = compress(down);
+        return new RoadGraph(latitudes, longitudes, upEdges[0], upEdges[1], upEdges[2],
+                downEdges[0], downEdges[1], downEdges[2]);
+    }
+
+    /**
+     * Builds a graph file from two CSV files exported from a map extract.
+     * <p>
+     * Usage: {@code RoadGraphBuilder nodes.csv edges.csv road-graph.bin}, where nodes.csv has
+     * {@code id,latitude,longitude} lines and edges.csv has {@code fromId,toId,oneWay} lines
+     * for every segment between two consecutive nodes of a drivable way.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: RoadGraphBuilder <nodes.csv> <edges.csv> <output>");
+            System.exit(1);
+        }
+
+        Map<Long, Integer> index = new HashMap<>();
+        List<double[]> coordinates = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(Path.of(args[0]))) {
+            for (String line; (line = reader.readLine()) != null; ) {
+                String[] fields = line.split(",");
+                index.put(Long.parseLong(fields[0].trim()), coordinates.size());
+                coordinates.add(new double[]{Double.parseDouble(fields[1].trim()), Double.parseDouble(fields[2].trim())});
+            }
+        }
+
+        double[] lat = coordinates.stream().mapToDouble(c -> c[0]).toArray();
+        double[] lon = coordinates.stream().mapToDouble(c -> c[1]).toArray();
+        RoadGraphBuilder builder = new RoadGraphBuilder(lat, lon);
+        try (BufferedReader reader = Files.newBufferedReader(Path.of(args[1]))) {
+            for (String line; (line = reader.readLine()) != null; ) {
+                String[] fields = line.split(",");
+                Integer from = index.get(Long.parseLong(fields[0].trim()));
+                Integer to = index.get(Long.parseLong(fields[1].trim()));
+                if (from == null || to == null) continue; // segment leaving the extract
+                builder.addRoad(from, to, fields.length > 2 && Boolean.parseBoolean(fields[2].trim()));
+            }
+        }
+
+        builder.build().write(Path.of(args[2]));
+    }
+
+    private int priority(int v, int[] contractedNeighbors) {
+        int removed = out.get(v).size() + in.get(v).size();
+        return shortcuts(v).size() - removed + contractedNeighbors[v];
+    }
+
+    private static long entry(int priority, int v) {
+        return (long) (priority + Integer.MAX_VALUE / 2) << 32 | v;
+    }
+
+    /**
+     * @return the shortcuts {from, to, meters} needed to contract v
+     */
+    private List<int[]> shortcuts(int v) {
+        List<int[]> shortcuts = new ArrayList<>();
+        Map<Integer, Integer> outgoing = out.get(v);
+        if (outgoing.isEmpty()) return shortcuts;
+        int maxOut = outgoing.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+
+        in.get(v).forEach((u, toV) -> {
+            Map<Integer, Integer> witness = witnessSearch(u, v, toV + maxOut);
+            outgoing.forEach((w, fromV) -> {
+                if (w.equals(u)) return;
+                int via = toV + fromV;
+                if (witness.getOrDefault(w, Integer.MAX_VALUE) > via) {
+                    shortcuts.add(new int[]{u, w, via});
+                }
+            });
+        });
+        return shortcuts;
+    }
+
+    /**
+     * Dijkstra from u in the remaining graph without v, up to the given distance.
+     *
+     * @return the distances of the settled nodes
+     */
+    private Map<Integer, Integer> witnessSearch(int u, int v, int maxDistance) {
+        Map<Integer, Integer> settled = new HashMap<>();
+        Map<Integer, Integer> dist = new HashMap<>();
+        PriorityQueue<Long> queue = new PriorityQueue<>();
+        dist.put(u, 0);
+        queue.add((long) u);
+
+        while (!queue.isEmpty() && settled.size() < WITNESS_SETTLE_LIMIT) {
+            long top = queue.poll();
+            int node = (int) top;
+            int d = (int) (top >>> 32);
+            if (d > maxDistance) break;
+            if (settled.containsKey(node)) continue;
+            settled.put(node, d);
+
+            out.get(node).forEach((next, weight) -> {
+                if (next == v) return;
+                int nd = d + weight;
+                if (nd < dist.getOrDefault(next, Integer.MAX_VALUE)) {
+                    dist.put(next, nd);
+                    queue.add((long) nd << 32 | next);
+                }
+            });
+        }
+        return settled;
+    }
+
+    /**
+     * @return the offsets, targets and weights of the edges as compressed rows
+     */
+    private static int[][] compress(List<List<int[]>> edges) {
+        int n = edges.size();
+        int[] offsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] = offsets[v] + edges.get(v).size();
+        }
+        int[] targets = new int[offsets[n]];
+        int[] weights = new int[offsets[n]];
+        for (int v = 0; v < n; v++) {
+            int k = offsets[v];
+            for (int[] edge : edges.get(v)) {
+                targets[k] = edge[0];
+                weights[k] = edge[1];
+                k++;
+            }
+        }
+        return new int[][]{offsets, targets, weights};
+    }
+}
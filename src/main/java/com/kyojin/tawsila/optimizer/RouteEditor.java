@@ -0,0 +1,31 @@
+package com.kyojin.tawsila.optimizer;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Warehouse;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface RouteEditor {
+
+    /**
+     * Adds deliveries to an existing route without reordering it: each one is inserted,
+     * in the given order, between the two stops where it lengthens the route the least.
+     *
+     * @param warehouse The starting/ending point (depot) of the route.
+     * @param route     The deliveries in visiting order.
+     * @param added     The deliveries to insert, not already in the route.
+     * @return A new list with the route and the added deliveries.
+     */
+    List<Delivery> insert(Warehouse warehouse, List<Delivery> route, List<Delivery> added);
+
+    /**
+     * Splices deliveries out of an existing route: their neighbors are joined directly and the
+     * order of the remaining stops is kept.
+     *
+     * @param route      The deliveries in visiting order.
+     * @param removedIds The IDs of the deliveries to take out.
+     * @return A new list with the remaining deliveries.
+     */
+    List<Delivery> remove(List<Delivery> route, Collection<Long> removedIds);
+}
@@ -0,0 +1,14 @@
+package com.kyojin.tawsila.optimizer;
+
+public interface RouteImprover {
+
+    /**
+     * Improves a single route that starts and ends at the warehouse.
+     * Moves only reorder the route, so the vehicle's load stays the same.
+     *
+     * @param route  Delivery indexes (as used by the matrix) in visiting order.
+     * @param matrix Distances between the warehouse and the deliveries.
+     * @return A new array with the same delivery indexes in an order that is never longer.
+     */
+    int[] improve(int[] route, DistanceMatrix matrix);
+}
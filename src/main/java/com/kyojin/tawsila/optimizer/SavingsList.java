@@ -0,0 +1,151 @@
+package com.kyojin.tawsila.optimizer;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Clarke-Wright savings stored in primitive arrays instead of one object per pair.
+ * <p>
+ * Pairs are delivery indexes as used by the {@link DistanceMatrix}. Once sorted, position
+ * {@code k} is the k-th highest saving; ties are broken by {@code from} then {@code to}
+ * so the order is deterministic whichever strategy produced the list.
+ */
+public class SavingsList {
+
+    // below this many pairs a range is sorted on the calling thread
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+
+    private final int[] from;
+    private final int[] to;
+    private final double[] amount;
+    private final int size;
+    private int[] order;
+
+    public SavingsList(int[] from, int[] to, double[] amount, int size) {
+        this.from = from;
+        this.to = to;
+        this.amount = amount;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int from(int k) {
+        return from[order[k]];
+    }
+
+    public int to(int k) {
+        return to[order[k]];
+    }
+
+    public double amount(int k) {
+        return amount[order[k]];
+    }
+
+    /**
+     * Sorts from the highest saving to the lowest.
+     *
+     * @param pool pool to sort in parallel with, or null to sort on the calling thread
+     * @return this list
+     */
+    public SavingsList sort(ForkJoinPool pool) {
+        order = new int[size];
+        for (int k = 0; k < size; k++) order[k] = k;
+
+        int[] buffer = new int[size];
+        if (pool == null || size <= PARALLEL_SORT_THRESHOLD) {
+            mergeSort(order, buffer, 0, size);
+        } else {
+            pool.invoke(new SortTask(order, buffer, 0, size));
+        }
+        return this;
+    }
+
+    /**
+     * A sorted copy where every saving is scaled by a random factor in {@code [1 - noise, 1 + noise]},
+     * so close savings are merged in a different order from one run to the next.
+     *
+     * @param noise relative amplitude of the factor, below 1 so savings stay positive
+     */
+    public SavingsList perturbed(Random random, double noise) {
+        double[] scaled = new double[size];
+        for (int k = 0; k < size; k++) {
+            scaled[k] = amount[k] * (1 + noise * (2 * random.nextDouble() - 1));
+        }
+        return new SavingsList(from, to, scaled, size).sort(null);
+    }
+
+    private int compare(int a, int b) {
+        int cmp = Double.compare(amount[b], amount[a]); // descending
+        if (cmp != 0) return cmp;
+        cmp = Integer.compare(from[a], from[b]);
+        if (cmp != 0) return cmp;
+        return Integer.compare(to[a], to[b]);
+    }
+
+    private void mergeSort(int[] items, int[] buffer, int lo, int hi) {
+        if (hi - lo < 2) return;
+        if (hi - lo <= 16) {
+            insertionSort(items, lo, hi);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        mergeSort(items, buffer, lo, mid);
+        mergeSort(items, buffer, mid, hi);
+        merge(items, buffer, lo, mid, hi);
+    }
+
+    private void insertionSort(int[] items, int lo, int hi) {
+        for (int i = lo + 1; i < hi; i++) {
+            int item = items[i];
+            int j = i - 1;
+            while (j >= lo && compare(items[j], item) > 0) {
+                items[j + 1] = items[j];
+                j--;
+            }
+            items[j + 1] = item;
+        }
+    }
+
+    private void merge(int[] items, int[] buffer, int lo, int mid, int hi) {
+        if (compare(items[mid - 1], items[mid]) <= 0) return; // already in order
+        System.arraycopy(items, lo, buffer, lo, hi - lo);
+        int i = lo;
+        int j = mid;
+        for (int k = lo; k < hi; k++) {
+            if (i < mid && (j >= hi || compare(buffer[i], buffer[j]) <= 0)) {
+                items[k] = buffer[i++];
+            } else {
+                items[k] = buffer[j++];
+            }
+        }
+    }
+
+    private class SortTask extends RecursiveAction {
+        private final int[] items;
+        private final int[] buffer;
+        private final int lo;
+        private final int hi;
+
+        SortTask(int[] items, int[] buffer, int lo, int hi) {
+            this.items = items;
+            this.buffer = buffer;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= PARALLEL_SORT_THRESHOLD) {
+                mergeSort(items, buffer, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new SortTask(items, buffer, lo, mid), new SortTask(items, buffer, mid, hi));
+            merge(items, buffer, lo, mid, hi);
+        }
+    }
+}
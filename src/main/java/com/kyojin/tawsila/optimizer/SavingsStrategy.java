@@ -0,0 +1,21 @@
+package com.kyojin.tawsila.optimizer;
+
+import java.util.List;
+
+public interface SavingsStrategy {
+
+    /**
+     * Computes the Clarke-Wright savings of every pair of eligible deliveries:
+     * saving(i,j) = dist(warehouse, i) + dist(warehouse, j) - dist(i, j).
+     * Only positive savings are kept.
+     * <p>
+     * When the matrix is not symmetric the savings are directed, for both orders of each pair:
+     * saving(i,j) = dist(i, warehouse) + dist(warehouse, j) - dist(i, j) is what is saved by
+     * going from i straight to j.
+     *
+     * @param eligible Indexes of the deliveries to pair, in ascending order.
+     * @param matrix   Distances between the warehouse and the deliveries.
+     * @return The savings sorted from the highest to the lowest.
+     */
+    SavingsList calculateSavings(List<Integer> eligible, DistanceMatrix matrix);
+}
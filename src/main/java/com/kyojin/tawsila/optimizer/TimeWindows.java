@@ -0,0 +1,72 @@
+package com.kyojin.tawsila.optimizer;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Warehouse;
+import com.kyojin.tawsila.util.ParseUtil;
+
+import java.util.List;
+
+/**
+ * Delivery time slots and warehouse hours parsed once into minutes since midnight.
+ * <p>
+ * Deliveries are addressed by their position in the list the windows were built from, like
+ * in the {@link DistanceMatrix}. A delivery without a slot can be served whenever the
+ * warehouse is open, and every slot is clipped to the warehouse hours.
+ */
+public class TimeWindows {
+
+    private final int open;
+    private final int close;
+    private final int[] earliest;
+    private final int[] latest;
+
+    private TimeWindows(int open, int close, int[] earliest, int[] latest) {
+        this.open = open;
+        this.close = close;
+        this.earliest = earliest;
+        this.latest = latest;
+    }
+
+    public static TimeWindows of(Warehouse warehouse, List<Delivery> deliveries) {
+        int open = warehouse.getOpenTime().toSecondOfDay() / 60;
+        int close = warehouse.getCloseTime().toSecondOfDay() / 60;
+
+        int n = deliveries.size();
+        int[] earliest = new int[n];
+        int[] latest = new int[n];
+        for (int i = 0; i < n; i++) {
+            int[] slot = ParseUtil.parseTimeSlot(deliveries.get(i).getTimeSlot());
+            earliest[i] = slot != null ? Math.max(open, slot[0]) : open;
+            latest[i] = slot != null ? Math.min(close, slot[1]) : close;
+        }
+        return new TimeWindows(open, close, earliest, latest);
+    }
+
+    /**
+     * @return the minute the vehicles can leave the warehouse
+     */
+    public int open() {
+        return open;
+    }
+
+    /**
+     * @return the minute the vehicles must be back at the warehouse
+     */
+    public int close() {
+        return close;
+    }
+
+    /**
+     * @return the first minute the delivery can be served
+     */
+    public int earliest(int delivery) {
+        return earliest[delivery];
+    }
+
+    /**
+     * @return the last minute service of the delivery can start
+     */
+    public int latest(int delivery) {
+        return latest[delivery];
+    }
+}
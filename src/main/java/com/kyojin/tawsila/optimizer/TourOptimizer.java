@@ -16,5 +16,35 @@ public interface TourOptimizer {
      * @param vehicle    The specific vehicle that will perform this tour.
      * @return An ordered list of deliveries that respects the vehicle's constraints.
      */
-    List<Delivery> calculateOptimalTour(Warehouse warehouse, List<Delivery> deliveries, Vehicle vehicle);
-}
\ No newline at end of file
+    default List<Delivery> calculateOptimalTour(Warehouse warehouse, List<Delivery> deliveries, Vehicle vehicle) {
+        if (deliveries == null || deliveries.isEmpty()) {
+            return calculateOptimalTour(warehouse, deliveries, vehicle, null);
+        }
+        return calculateOptimalTour(warehouse, deliveries, vehicle, DistanceMatrix.of(warehouse, deliveries));
+    }
+
+    /**
+     * Calculates an optimized list of deliveries for a *single vehicle* using precomputed distances.
+     *
+     * @param warehouse  The starting/ending point (depot).
+     * @param deliveries The list of all deliveries to be considered.
+     * @param vehicle    The specific vehicle that will perform this tour.
+     * @param matrix     Distances built from the same warehouse and deliveries list.
+     * @return An ordered list of deliveries that respects the vehicle's constraints.
+     */
+    List<Delivery> calculateOptimalTour(Warehouse warehouse, List<Delivery> deliveries, Vehicle vehicle, DistanceMatrix matrix);
+
+    /**
+     * Calculates an optimized tour and describes it by position: visiting order, deliveries left
+     * out and why, and the distance of every leg.
+     *
+     * @param warehouse  The starting/ending point (depot).
+     * @param deliveries The list of all deliveries to be considered.
+     * @param vehicle    The specific vehicle that will perform this tour.
+     * @param matrix     Distances built from the same warehouse and deliveries list, also used for the legs.
+     * @return The route as positions in {@code deliveries}.
+     */
+    default OptimizationResult optimize(Warehouse warehouse, List<Delivery> deliveries, Vehicle vehicle, DistanceMatrix matrix) {
+        return OptimizationResult.of(deliveries, calculateOptimalTour(warehouse, deliveries, vehicle, matrix), vehicle, matrix);
+    }
+}
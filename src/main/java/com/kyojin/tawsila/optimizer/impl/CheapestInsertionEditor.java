@@ -0,0 +1,91 @@
+package com.kyojin.tawsila.optimizer.impl;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Warehouse;
+import com.kyojin.tawsila.optimizer.DistanceProvider;
+import com.kyojin.tawsila.optimizer.OptimizerMetrics;
+import com.kyojin.tawsila.optimizer.RouteEditor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Cheapest insertion and splice-out on an existing route.
+ * <p>
+ * Inserting a delivery scans every gap of the route once: the cost of a gap is
+ * dist(prev, new) + dist(new, next) - dist(prev, next), and the distance from the new delivery
+ * to a stop is shared by the two gaps around that stop. That is O(n) distances per delivery,
+ * where re-optimizing the whole tour costs O(n²) or more. Sharing that distance between the
+ * two gaps treats it as symmetric, which on a road graph is an approximation for one-way streets.
+ */
+public class CheapestInsertionEditor implements RouteEditor {
+
+    private final OptimizerMetrics metrics;
+    private final DistanceProvider distanceProvider;
+
+    public CheapestInsertionEditor(OptimizerMetrics metrics, DistanceProvider distanceProvider) {
+        this.metrics = metrics;
+        this.distanceProvider = distanceProvider;
+    }
+
+    @Override
+    public List<Delivery> insert(Warehouse warehouse, List<Delivery> route, List<Delivery> added) {
+        List<Delivery> result = new ArrayList<>(route.size() + added.size());
+        result.addAll(route);
+        for (Delivery delivery : added) {
+            result.add(cheapestPosition(warehouse, result, delivery), delivery);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Delivery> remove(List<Delivery> route, Collection<Long> removedIds) {
+        Set<Long> removed = new HashSet<>(removedIds);
+        List<Delivery> result = new ArrayList<>(route.size());
+        for (Delivery delivery : route) {
+            if (!removed.contains(delivery.getId())) {
+                result.add(delivery);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the position in {@code route} the delivery should be inserted at
+     */
+    private int cheapestPosition(Warehouse warehouse, List<Delivery> route, Delivery delivery) {
+        int n = route.size();
+        metrics.distanceCalculations(2L * (n + 1) + 1);
+
+        double lat = delivery.getLatitude();
+        double lon = delivery.getLongitude();
+
+        double prevLat = warehouse.getLatitude();
+        double prevLon = warehouse.getLongitude();
+        double toPrev = distanceProvider.distance(prevLat, prevLon, lat, lon);
+
+        int best = 0;
+        double bestCost = Double.MAX_VALUE;
+        for (int p = 0; p <= n; p++) {
+            // gap between prev and next, the warehouse closes the route
+            double nextLat = p < n ? route.get(p).getLatitude() : warehouse.getLatitude();
+            double nextLon = p < n ? route.get(p).getLongitude() : warehouse.getLongitude();
+
+            double toNext = distanceProvider.distance(lat, lon, nextLat, nextLon);
+            double leg = distanceProvider.distance(prevLat, prevLon, nextLat, nextLon);
+            double cost = toPrev + toNext - leg;
+            if (cost < bestCost) {
+                bestCost = cost;
+                best = p;
+            }
+
+            prevLat = nextLat;
+            prevLon = nextLon;
+            toPrev = toNext;
+        }
+        return best;
+    }
+}
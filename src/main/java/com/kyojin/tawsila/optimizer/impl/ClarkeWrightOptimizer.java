@@ -4,144 +4,300 @@ import com.kyojin.tawsila.entity.Delivery;
 import com.kyojin.tawsila.entity.Vehicle;
 import com.kyojin.tawsila.entity.Warehouse;
 import com.kyojin.tawsila.enums.VehicleType;
-import com.kyojin.tawsila.optimizer.TourOptimizer;
-import com.kyojin.tawsila.util.DistanceCalculator;
-import lombok.RequiredArgsConstructor;
+import com.kyojin.tawsila.optimizer.DistanceMatrix;
+import com.kyojin.tawsila.optimizer.FleetOptimizer;
+import com.kyojin.tawsila.optimizer.OptimizerMetrics;
+import com.kyojin.tawsila.optimizer.RandomizedTourOptimizer;
+import com.kyojin.tawsila.optimizer.SavingsList;
+import com.kyojin.tawsila.optimizer.SavingsStrategy;
 
 import java.util.*;
+import java.util.function.BooleanSupplier;
 
-public class ClarkeWrightOptimizer implements TourOptimizer {
+public class ClarkeWrightOptimizer implements RandomizedTourOptimizer, FleetOptimizer {
 
-    @RequiredArgsConstructor
-    private static class Saving implements Comparable<Saving> {
-        final Delivery from;
-        final Delivery to;
-        final double amount; // how much distance saved
+    // randomized runs scale each saving by up to +/- 10%
+    private static final double SAVINGS_NOISE = 0.1;
+    // how many savings are merged between two checks of the stop condition
+    private static final int STOP_CHECK_INTERVAL = 1024;
 
-        @Override
-        public int compareTo(Saving other) {
-            // we sort in descending order of savings
-            int cmp = Double.compare(other.amount, this.amount);
-            if (cmp == 0) return Long.compare(this.from.getId(), other.from.getId());
-            return cmp;
-        }
+    private final SavingsStrategy savingsStrategy;
+    private final OptimizerMetrics metrics;
+
+    public ClarkeWrightOptimizer() {
+        this(new SequentialSavingsStrategy());
+    }
+
+    public ClarkeWrightOptimizer(SavingsStrategy savingsStrategy) {
+        this(savingsStrategy, new OptimizerMetrics());
     }
 
-    private static class SubTour {
-        LinkedList<Delivery> deliveries = new LinkedList<>(); // use linked list because THEY ARE LINKED and fast
-        double currentWeight = 0.0;
-        double currentVolume = 0.0;
+    public ClarkeWrightOptimizer(SavingsStrategy savingsStrategy, OptimizerMetrics metrics) {
+        this.savingsStrategy = savingsStrategy;
+        this.metrics = metrics;
+    }
 
-        SubTour(Delivery del) {
-            this.deliveries.add(del);
-            this.currentWeight = del.getWeightKg();
-            this.currentVolume = del.getVolumeM3();
+    /**
+     * Subtours under construction, all keyed by delivery index.
+     * <p>
+     * A subtour is a chain of undirected links between deliveries, so joining two subtours at
+     * their ends never reverses or copies anything: the direction only matters when the subtour
+     * is read back from its first stop. Union-find tells which subtour a delivery belongs to,
+     * and the root of each subtour holds its ends and its cumulative load.
+     * <p>
+     * When the distances are directed (asymmetric matrix) a join that would run one of the
+     * subtours backwards is refused, only the end of one is linked to the start of the other.
+     */
+    private static class SubTours {
+        final int[] parent;   // union-find, a root identifies a subtour
+        final int[] links;    // two neighbors per delivery, -1 on the warehouse side
+        final int[] first;    // valid on roots
+        final int[] last;     // valid on roots
+        final double[] weight;
+        final double[] volume;
+        final int[] stops;
+        final List<Integer> members;
+        final boolean directed;
+
+        SubTours(List<Delivery> deliveries, List<Integer> members, boolean directed) {
+            int n = deliveries.size();
+            this.parent = new int[n];
+            this.links = new int[2 * n];
+            this.first = new int[n];
+            this.last = new int[n];
+            this.weight = new double[n];
+            this.volume = new double[n];
+            this.stops = new int[n];
+            this.members = members;
+            this.directed = directed;
+
+            Arrays.fill(parent, -1); // -1: not part of this run
+            Arrays.fill(links, -1);
+            // each delivery starts as its own subtour
+            for (int i : members) {
+                Delivery del = deliveries.get(i);
+                parent[i] = i;
+                first[i] = i;
+                last[i] = i;
+                weight[i] = del.getWeightKg();
+                volume[i] = del.getVolumeM3();
+                stops[i] = 1;
+            }
         }
 
-        Delivery getFirst() { return deliveries.getFirst(); }
-        Delivery getLast()  { return deliveries.getLast(); }
-        int getSize()  { return deliveries.size(); }
-    }
+        boolean contains(int i) {
+            return parent[i] >= 0;
+        }
 
-    public List<Delivery> calculateOptimalTour(Warehouse warehouse, List<Delivery> deliveries, Vehicle vehicle) {
-        if (deliveries == null || deliveries.isEmpty()) return new ArrayList<>();
+        int find(int i) {
+            while (parent[i] != i) {
+                parent[i] = parent[parent[i]]; // path halving
+                i = parent[i];
+            }
+            return i;
+        }
 
-        VehicleType vehicleType = vehicle.getType();
+        /**
+         * Joins the subtours of roots r1 and r2 through the edge (i, j).
+         */
+        void join(int r1, int r2, int i, int j, int newFirst, int newLast) {
+            links[2 * i + (links[2 * i] == -1 ? 0 : 1)] = j;
+            links[2 * j + (links[2 * j] == -1 ? 0 : 1)] = i;
+
+            // union by size
+            int root = stops[r1] >= stops[r2] ? r1 : r2;
+            int child = root == r1 ? r2 : r1;
+            parent[child] = root;
+
+            weight[root] = weight[r1] + weight[r2];
+            volume[root] = volume[r1] + volume[r2];
+            stops[root] = stops[r1] + stops[r2];
+            first[root] = newFirst;
+            last[root] = newLast;
+        }
 
-        List<Delivery> notVisited = findDeliveries(deliveries, vehicleType);
+        /**
+         * @return the root of every subtour, in the order of their first member
+         */
+        List<Integer> roots() {
+            List<Integer> roots = new ArrayList<>();
+            for (int i : members) {
+                if (parent[i] == i) roots.add(i);
+            }
+            return roots;
+        }
 
-        // same method from before to filter deliveries that can be handled by the vehicle
-        for (Delivery del : deliveries) {
-            if (vehicleType.canHandle(del.getWeightKg(), del.getVolumeM3())) {
-                notVisited.add(del);
+        /**
+         * Reads a subtour from its first stop to its last one.
+         */
+        List<Delivery> read(int root, List<Delivery> deliveries) {
+            List<Delivery> route = new ArrayList<>(stops[root]);
+            int prev = -1;
+            int cur = first[root];
+            while (cur != -1) {
+                route.add(deliveries.get(cur));
+                int next = links[2 * cur] != prev ? links[2 * cur] : links[2 * cur + 1];
+                prev = cur;
+                cur = next;
             }
+            return route;
         }
+    }
+
+    @Override
+    public List<Delivery> calculateOptimalTour(Warehouse warehouse, List<Delivery> deliveries, Vehicle vehicle,
+                                               DistanceMatrix matrix) {
+        return buildTour(deliveries, vehicle, matrix, null, () -> false);
+    }
+
+    /**
+     * Merges in the order of randomly scaled savings, so pairs with close savings are tried in a
+     * different order, and ties are broken at random.
+     */
+    @Override
+    public List<Delivery> calculateRandomizedTour(Warehouse warehouse, List<Delivery> deliveries, Vehicle vehicle,
+                                                  DistanceMatrix matrix, Random random, BooleanSupplier stop) {
+        return buildTour(deliveries, vehicle, matrix, random, stop);
+    }
+
+    /**
+     * @param random perturbs the savings when not null
+     * @param stop checked between the steps and while merging, null is returned once it is true
+     */
+    private List<Delivery> buildTour(List<Delivery> deliveries, Vehicle vehicle, DistanceMatrix matrix, Random random,
+                                     BooleanSupplier stop) {
+        if (deliveries == null || deliveries.isEmpty()) return new ArrayList<>();
+
+        VehicleType vehicleType = vehicle.getType();
+
+        // indexes (in the deliveries list and the matrix) of the deliveries the vehicle can handle
+        List<Integer> notVisited = findDeliveries(deliveries, vehicleType);
 
         // edge cases
         if (notVisited.isEmpty()) return new ArrayList<>();
-        if (notVisited.size() == 1) return notVisited;
+        if (notVisited.size() == 1) return new ArrayList<>(List.of(deliveries.get(notVisited.get(0))));
 
         // calculate all possible savings
-        List<Saving> savings = calculateSavings(warehouse, notVisited);
+        SavingsList savings = savingsStrategy.calculateSavings(notVisited, matrix);
+        metrics.savingsGenerated(savings.size());
+        if (stop.getAsBoolean()) return null;
+        if (random != null) {
+            savings = savings.perturbed(random, SAVINGS_NOISE);
+        }
 
         // each delivery starts as its own subtour
-        Map<Delivery, SubTour> tourMap = initSubTours(notVisited);
+        SubTours subTours = new SubTours(deliveries, notVisited, !matrix.isSymmetric());
 
         // we merge subtours based on savings and vehicle constraints
-        merge(savings, tourMap, vehicleType);
+        if (!merge(savings, subTours, vehicleType, stop)) return null;
 
-        return findBestTour(tourMap);
+        return findBestTour(subTours, deliveries);
     }
 
+    @Override
+    public List<List<Delivery>> planFleet(Warehouse warehouse, List<Delivery> deliveries, List<Vehicle> vehicles,
+                                          DistanceMatrix matrix) {
+        List<List<Delivery>> routes = new ArrayList<>();
+        for (int v = 0; v < vehicles.size(); v++) {
+            routes.add(new ArrayList<>());
+        }
+        if (deliveries == null || deliveries.isEmpty() || vehicles.isEmpty()) return routes;
 
-    /**
-     * Filters deliveries that can be handled by the vehicle type.
-     * @param deliveries List of all deliveries.
-     * @param vType Vehicle type.
-     * @return List of eligible deliveries.
-     */
-    private List<Delivery> findDeliveries(List<Delivery> deliveries, VehicleType vType) {
-        List<Delivery> eligible = new ArrayList<>();
-        for (Delivery del : deliveries) {
-            // constraint check
-            if (vType.canHandle(del.getWeightKg(), del.getVolumeM3())) {
-                eligible.add(del);
-            }
+        // vehicle positions grouped by type, biggest type first so it takes the largest subtours
+        Map<VehicleType, List<Integer>> fleet = new TreeMap<>(
+                Comparator.comparingDouble(VehicleType::getMaxWeightKg).reversed());
+        for (int v = 0; v < vehicles.size(); v++) {
+            fleet.computeIfAbsent(vehicles.get(v).getType(), t -> new ArrayList<>()).add(v);
         }
-        return eligible;
-    }
 
+        // savings are computed once for everything the biggest vehicle can carry
+        VehicleType biggest = fleet.keySet().iterator().next();
+        List<Integer> remaining = findDeliveries(deliveries, biggest);
+        SavingsList savings = savingsStrategy.calculateSavings(remaining, matrix);
+        metrics.savingsGenerated(savings.size());
+
+        for (Map.Entry<VehicleType, List<Integer>> entry : fleet.entrySet()) {
+            VehicleType vType = entry.getKey();
+            List<Integer> vehiclePositions = entry.getValue();
+
+            List<Integer> candidates = new ArrayList<>();
+            for (int i : remaining) {
+                Delivery del = deliveries.get(i);
+                if (vType.canHandle(del.getWeightKg(), del.getVolumeM3())) {
+                    candidates.add(i);
+                }
+            }
+            if (candidates.isEmpty()) continue;
 
-    /**
-     * Calculates savings for all pairs of deliveries.
-     * @param warehouse The warehouse (depot).
-     * @param deliveries List of deliveries.
-     * @return List of savings.
-     */
-    private List<Saving> calculateSavings(Warehouse warehouse, List<Delivery> deliveries) {
-        List<Saving> savings = new ArrayList<>();
-        for (int i = 0; i < deliveries.size(); i++) {
-            for (int j = i + 1; j < deliveries.size(); j++) {
-                Delivery del1 = deliveries.get(i);
-                Delivery del2 = deliveries.get(j);
+            // merge what is left under this type's limits, savings of assigned deliveries are skipped
+            SubTours subTours = new SubTours(deliveries, candidates, !matrix.isSymmetric());
+            merge(savings, subTours, vType, () -> false);
 
-                // saving(i,j) = (dist(warehouse, i) + dist(warehouse, j)) - dist(i, j)
-                double savingAmount = dist(warehouse, del1) + dist(warehouse, del2) - dist(del1, del2);
+            // every vehicle of this type takes one of the largest subtours
+            List<Integer> roots = subTours.roots();
+            roots.sort(Comparator.comparingInt((Integer r) -> subTours.stops[r]).reversed());
 
-                if (savingAmount > 0) {
-                    savings.add(new Saving(del1, del2, savingAmount));
-                }
+            boolean[] assigned = new boolean[deliveries.size()];
+            for (int k = 0; k < vehiclePositions.size() && k < roots.size(); k++) {
+                int root = roots.get(k);
+                routes.get(vehiclePositions.get(k)).addAll(subTours.read(root, deliveries));
+                assigned[root] = true;
             }
+            remaining.removeIf(i -> subTours.contains(i) && assigned[subTours.find(i)]);
         }
-        // sort from high to low
-        Collections.sort(savings);
-        return savings;
+
+        return routes;
     }
 
+
     /**
-     * Initializes each delivery as its own subtour.
-     * @param deliveries List of deliveries.
-     * @return Map of delivery to its subtour.
+     * Filters deliveries that can be handled by the vehicle type.
+     * @param deliveries List of all deliveries.
+     * @param vType Vehicle type.
+     * @return Indexes of eligible deliveries.
      */
-    private Map<Delivery, SubTour> initSubTours(List<Delivery> deliveries) {
-        Map<Delivery, SubTour> tourMap = new HashMap<>();
-        for (Delivery del : deliveries) {
-            tourMap.put(del, new SubTour(del));
+    private List<Integer> findDeliveries(List<Delivery> deliveries, VehicleType vType) {
+        List<Integer> eligible = new ArrayList<>();
+        for (int i = 0; i < deliveries.size(); i++) {
+            Delivery del = deliveries.get(i);
+            // constraint check
+            if (vType.canHandle(del.getWeightKg(), del.getVolumeM3())) {
+                eligible.add(i);
+            }
         }
-        return tourMap;
+        return eligible;
     }
 
 
     /**
      * Merges subtours based on savings and vehicle constraints.
-     * @param savings List of savings.
-     * @param tourMap Map of delivery to its subtour.
+     * @param savings Sorted savings.
+     * @param subTours Subtours of the deliveries in this run.
      * @param vType Vehicle type.
+     * @param stop Checked every {@code STOP_CHECK_INTERVAL} savings.
+     * @return False if the merge was stopped before going through every saving.
      */
-    private void merge(List<Saving> savings, Map<Delivery, SubTour> tourMap, VehicleType vType) {
-        for (Saving saving : savings) {
-            SubTour tour1 = tourMap.get(saving.from);
-            SubTour tour2 = tourMap.get(saving.to);
+    private boolean merge(SavingsList savings, SubTours subTours, VehicleType vType, BooleanSupplier stop) {
+        int accepted = 0;
+        int rejectedByCapacity = 0;
+        int rejectedByPosition = 0;
+
+        for (int k = 0; k < savings.size(); k++) {
+            if (k % STOP_CHECK_INTERVAL == 0 && stop.getAsBoolean()) {
+                metrics.merges(accepted, rejectedByCapacity, rejectedByPosition);
+                return false;
+            }
+
+            int i = savings.from(k);
+            int j = savings.to(k);
+
+            // not part of this run
+            if (!subTours.contains(i) || !subTours.contains(j)) {
+                continue;
+            }
+
+            int tour1 = subTours.find(i);
+            int tour2 = subTours.find(j);
 
             // sanity check if they are already merged
             if (tour1 == tour2) {
@@ -149,47 +305,60 @@ public class ClarkeWrightOptimizer implements TourOptimizer {
             }
 
             // checks
-            double combinedWeight = tour1.currentWeight + tour2.currentWeight;
-            double combinedVolume = tour1.currentVolume + tour2.currentVolume;
-            int combinedStops = tour1.getSize() + tour2.getSize();
+            double combinedWeight = subTours.weight[tour1] + subTours.weight[tour2];
+            double combinedVolume = subTours.volume[tour1] + subTours.volume[tour2];
+            int combinedStops = subTours.stops[tour1] + subTours.stops[tour2];
 
             if (!vType.canHandle(combinedWeight, combinedVolume, combinedStops)) {
+                rejectedByCapacity++;
                 continue;
             }
 
-            tryMerge(saving, tour1, tour2, tourMap);
+            if (tryMerge(subTours, i, j, tour1, tour2)) {
+                accepted++;
+            } else {
+                rejectedByPosition++;
+            }
         }
+
+        metrics.merges(accepted, rejectedByCapacity, rejectedByPosition);
+        return true;
     }
 
     /**
-     * Attempts to merge two subtours based on the saving.
-     * @param saving The saving object.
-     * @param tour1 First subtour.
-     * @param tour2 Second subtour.
-     * @param tourMap Map of delivery to its subtour.
+     * Attempts to merge two subtours based on the saving between deliveries i and j.
+     * @param subTours Subtours of the deliveries in this run.
+     * @param i Delivery of the first subtour.
+     * @param j Delivery of the second subtour.
+     * @param tour1 Root of the first subtour.
+     * @param tour2 Root of the second subtour.
      * @return True if merged, false otherwise.
      */
-    private boolean tryMerge(Saving saving, SubTour tour1, SubTour tour2, Map<Delivery, SubTour> tourMap) {
-        Delivery del1 = saving.from;
-        Delivery del2 = saving.to;
-
-        // case 1 (end-start)
-        if (tour1.getLast().equals(del1) && tour2.getFirst().equals(del2)) {
-            mergeTours(tourMap, tour1, tour2); // merges tour2 into tour1
+    private boolean tryMerge(SubTours subTours, int i, int j, int tour1, int tour2) {
+        int first1 = subTours.first[tour1];
+        int last1 = subTours.last[tour1];
+        int first2 = subTours.first[tour2];
+        int last2 = subTours.last[tour2];
+
+        // case 1 (end-start): tour1 then tour2
+        if (last1 == i && first2 == j) {
+            subTours.join(tour1, tour2, i, j, first1, last2);
         }
-        // case 2 (start-end)
-        else if (tour1.getFirst().equals(del1) && tour2.getLast().equals(del2)) {
-            mergeTours(tourMap, tour2, tour1);
+        // directed savings are only worth it from i to j, the other cases change the direction
+        else if (subTours.directed) {
+            return false;
         }
-        // case 3 (end-end)
-        else if (tour1.getLast().equals(del1) && tour2.getLast().equals(del2)) {
-            Collections.reverse(tour2.deliveries);// reverse tour2
-            mergeTours(tourMap, tour1, tour2);
+        // case 2 (start-end): tour2 then tour1
+        else if (first1 == i && last2 == j) {
+            subTours.join(tour1, tour2, i, j, first2, last1);
         }
-        // case 4 (start-start)
-        else if (tour1.getFirst().equals(del1) && tour2.getFirst().equals(del2)) {
-            Collections.reverse(tour1.deliveries);
-            mergeTours(tourMap, tour1, tour2);
+        // case 3 (end-end): tour1 then reversed tour2
+        else if (last1 == i && last2 == j) {
+            subTours.join(tour1, tour2, i, j, first1, first2);
+        }
+        // case 4 (start-start): reversed tour1 then tour2
+        else if (first1 == i && first2 == j) {
+            subTours.join(tour1, tour2, i, j, last1, last2);
         } else {
             return false; // cannot merge
         }
@@ -198,61 +367,21 @@ public class ClarkeWrightOptimizer implements TourOptimizer {
 
     /**
      * Finds the best tour (with most stops) from the subtours.
-     * @param tourMap Map of delivery to its subtour.
+     * @param subTours Subtours of the deliveries in this run.
+     * @param deliveries List of all deliveries.
      * @return List of deliveries in the best tour.
      */
-    private List<Delivery> findBestTour(Map<Delivery, SubTour> tourMap) {
-        SubTour bestTour = null;
+    private List<Delivery> findBestTour(SubTours subTours, List<Delivery> deliveries) {
+        int bestTour = -1;
         int maxStops = 0;
 
-        // we use a set to avoid duplicates
-        Set<SubTour> finalTours = new HashSet<>(tourMap.values());
-
-        for (SubTour tour : finalTours) {
-            if (tour.getSize() > maxStops) {
-                maxStops = tour.getSize();
-                bestTour = tour;
+        for (int root : subTours.roots()) {
+            if (subTours.stops[root] > maxStops) {
+                maxStops = subTours.stops[root];
+                bestTour = root;
             }
         }
 
-        return (bestTour != null) ? bestTour.deliveries : new ArrayList<>();
-    }
-
-    /**
-     * Calculates distance between Warehouse and a Delivery.
-     */
-    private double dist(Warehouse w, Delivery d) {
-        return DistanceCalculator.calculateDistance(
-                w.getLatitude(), w.getLongitude(),
-                d.getLatitude(), d.getLongitude()
-        );
-    }
-
-    /**
-     * Calculates distance between two Deliveries.
-     */
-    private double dist(Delivery d1, Delivery d2) {
-        return DistanceCalculator.calculateDistance(
-                d1.getLatitude(), d1.getLongitude(),
-                d2.getLatitude(), d2.getLongitude()
-        );
-    }
-
-    /**
-     * Merges tour2 into tour1 and updates the tourMap accordingly.
-     */
-    private void mergeTours(Map<Delivery, SubTour> tourMap, SubTour tour1, SubTour tour2) {
-        // add all deliveries from tour2 to tour1
-        tour1.deliveries.addAll(tour2.deliveries);
-
-        // also add the volume and weight
-        tour1.currentWeight += tour2.currentWeight;
-        tour1.currentVolume += tour2.currentVolume;
-
-        // update the map to point all deliveries in tour2 to tour1
-        for (Delivery del: tour2.deliveries) {
-            tourMap.put(del, tour1);
-        }
-
+        return (bestTour != -1) ? subTours.read(bestTour, deliveries) : new ArrayList<>();
     }
 }
@@ -0,0 +1,196 @@
+package com.kyojin.tawsila.optimizer.impl;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Vehicle;
+import com.kyojin.tawsila.entity.Warehouse;
+import com.kyojin.tawsila.enums.VehicleType;
+import com.kyojin.tawsila.optimizer.CapacitatedKMeans;
+import com.kyojin.tawsila.optimizer.DistanceMatrix;
+import com.kyojin.tawsila.optimizer.DistanceProvider;
+import com.kyojin.tawsila.optimizer.FleetOptimizer;
+import com.kyojin.tawsila.optimizer.OptimizerMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Cluster first, route second: large batches are split into geographic clusters that are
+ * planned independently, in parallel, by another fleet optimizer.
+ * <p>
+ * Clusters come from {@link CapacitatedKMeans} and hold a whole number of routes of the largest
+ * vehicle, up to {@code maxClusterSize} deliveries. Vehicles are then handed out, largest first,
+ * to the cluster with the most deliveries left uncovered, counting what a vehicle can take from
+ * its stop limit and the mean delivery weight and volume. Each cluster with vehicles gets a
+ * distance matrix of its own, so memory and time grow with the cluster size instead of the
+ * square of the batch, and clusters without vehicles are not routed at all.
+ * <p>
+ * Batches up to {@code threshold} deliveries are planned in one piece.
+ */
+public class ClusteredFleetOptimizer implements FleetOptimizer {
+
+    private static final int KMEANS_ITERATIONS = 10;
+
+    private final FleetOptimizer delegate;
+    private final int threshold;
+    private final int maxClusterSize;
+    private final ForkJoinPool pool;
+    private final OptimizerMetrics metrics;
+
+    public ClusteredFleetOptimizer(FleetOptimizer delegate, int threshold, int maxClusterSize) {
+        this(delegate, threshold, maxClusterSize, new OptimizerMetrics());
+    }
+
+    public ClusteredFleetOptimizer(FleetOptimizer delegate, int threshold, int maxClusterSize,
+                                   OptimizerMetrics metrics) {
+        this(ForkJoinPool.commonPool(), delegate, threshold, maxClusterSize, metrics);
+    }
+
+    public ClusteredFleetOptimizer(ForkJoinPool pool, FleetOptimizer delegate, int threshold, int maxClusterSize,
+                                   OptimizerMetrics metrics) {
+        this.pool = pool;
+        this.delegate = delegate;
+        this.threshold = threshold;
+        this.maxClusterSize = maxClusterSize;
+        this.metrics = metrics;
+    }
+
+    /**
+     * The full matrix is already paid for, the batch is planned in one piece.
+     */
+    @Override
+    public List<List<Delivery>> planFleet(Warehouse warehouse, List<Delivery> deliveries, List<Vehicle> vehicles,
+                                          DistanceMatrix matrix) {
+        return delegate.planFleet(warehouse, deliveries, vehicles, matrix);
+    }
+
+    @Override
+    public List<List<Delivery>> planFleet(Warehouse warehouse, List<Delivery> deliveries, List<Vehicle> vehicles,
+                                          DistanceProvider distances) {
+        if (deliveries == null || deliveries.isEmpty() || vehicles.isEmpty() || deliveries.size() <= threshold) {
+            return planCluster(warehouse, deliveries == null ? List.of() : deliveries, vehicles, distances);
+        }
+
+        // deliveries no vehicle can carry would only take room in the clusters
+        List<Delivery> eligible = new ArrayList<>();
+        for (Delivery del : deliveries) {
+            if (vehicles.stream().anyMatch(v -> v.getType().canHandle(del.getWeightKg(), del.getVolumeM3()))) {
+                eligible.add(del);
+            }
+        }
+        List<List<Delivery>> routes = emptyRoutes(vehicles.size());
+        if (eligible.isEmpty()) return routes;
+
+        List<List<Delivery>> clusters = cluster(eligible, vehicles);
+        List<List<Integer>> assigned = assignVehicles(clusters, vehicles, eligible);
+
+        List<ForkJoinTask<List<List<Delivery>>>> tasks = new ArrayList<>();
+        List<List<Integer>> taskVehicles = new ArrayList<>();
+        for (int c = 0; c < clusters.size(); c++) {
+            List<Integer> positions = assigned.get(c);
+            if (positions.isEmpty()) continue;
+            List<Delivery> cluster = clusters.get(c);
+            List<Vehicle> clusterVehicles = positions.stream().map(vehicles::get).toList();
+            tasks.add(pool.submit(() -> planCluster(warehouse, cluster, clusterVehicles, distances)));
+            taskVehicles.add(positions);
+        }
+
+        // the routes of a cluster are at the positions of its vehicles in the fleet
+        for (int t = 0; t < tasks.size(); t++) {
+            List<List<Delivery>> clusterRoutes = tasks.get(t).join();
+            List<Integer> positions = taskVehicles.get(t);
+            for (int k = 0; k < positions.size(); k++) {
+                routes.set(positions.get(k), clusterRoutes.get(k));
+            }
+        }
+        return routes;
+    }
+
+    private List<List<Delivery>> planCluster(Warehouse warehouse, List<Delivery> deliveries, List<Vehicle> vehicles,
+                                             DistanceProvider distances) {
+        if (deliveries.isEmpty() || vehicles.isEmpty()) return emptyRoutes(vehicles.size());
+        DistanceMatrix matrix = DistanceMatrix.of(warehouse, deliveries, distances);
+        metrics.distanceMatrix(matrix);
+        return delegate.planFleet(warehouse, deliveries, vehicles, matrix);
+    }
+
+    private List<List<Delivery>> cluster(List<Delivery> deliveries, List<Vehicle> vehicles) {
+        // a cluster holds whole routes of the largest vehicle
+        int largestRoute = vehicles.stream().mapToInt(ClusteredFleetOptimizer::stopLimit).max().orElse(1);
+        int capacity = Math.max(largestRoute, maxClusterSize / largestRoute * largestRoute);
+        int k = (deliveries.size() + capacity - 1) / capacity;
+
+        int n = deliveries.size();
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = deliveries.get(i).getLatitude();
+            lon[i] = deliveries.get(i).getLongitude();
+        }
+        int[] assignment = new CapacitatedKMeans(lat, lon).cluster(k, capacity, KMEANS_ITERATIONS);
+
+        List<List<Delivery>> clusters = new ArrayList<>(k);
+        for (int c = 0; c < k; c++) {
+            clusters.add(new ArrayList<>());
+        }
+        for (int i = 0; i < n; i++) {
+            clusters.get(assignment[i]).add(deliveries.get(i));
+        }
+        return clusters;
+    }
+
+    /**
+     * @return the positions in {@code vehicles} of the vehicles given to each cluster
+     */
+    private List<List<Integer>> assignVehicles(List<List<Delivery>> clusters, List<Vehicle> vehicles,
+                                               List<Delivery> deliveries) {
+        double meanWeight = deliveries.stream().mapToDouble(Delivery::getWeightKg).average().orElse(0);
+        double meanVolume = deliveries.stream().mapToDouble(Delivery::getVolumeM3).average().orElse(0);
+
+        double[] uncovered = new double[clusters.size()];
+        List<List<Integer>> assigned = new ArrayList<>(clusters.size());
+        for (int c = 0; c < clusters.size(); c++) {
+            uncovered[c] = clusters.get(c).size();
+            assigned.add(new ArrayList<>());
+        }
+
+        List<Integer> positions = new ArrayList<>();
+        for (int v = 0; v < vehicles.size(); v++) positions.add(v);
+        positions.sort((a, b) -> Double.compare(
+                stops(vehicles.get(b), meanWeight, meanVolume), stops(vehicles.get(a), meanWeight, meanVolume)));
+
+        for (int v : positions) {
+            int best = 0;
+            for (int c = 1; c < clusters.size(); c++) {
+                if (uncovered[c] > uncovered[best]) best = c;
+            }
+            assigned.get(best).add(v);
+            uncovered[best] -= stops(vehicles.get(v), meanWeight, meanVolume);
+        }
+        return assigned;
+    }
+
+    /**
+     * @return how many average deliveries the vehicle can take
+     */
+    private static double stops(Vehicle vehicle, double meanWeight, double meanVolume) {
+        VehicleType type = vehicle.getType();
+        double stops = stopLimit(vehicle);
+        if (meanWeight > 0) stops = Math.min(stops, type.getMaxWeightKg() / meanWeight);
+        if (meanVolume > 0) stops = Math.min(stops, type.getMaxVolumeM3() / meanVolume);
+        return Math.max(1, stops);
+    }
+
+    private static int stopLimit(Vehicle vehicle) {
+        return Math.max(1, Math.min(vehicle.getMaxDeliveries(), vehicle.getType().getMaxDeliveries()));
+    }
+
+    private static List<List<Delivery>> emptyRoutes(int vehicles) {
+        List<List<Delivery>> routes = new ArrayList<>(vehicles);
+        for (int v = 0; v < vehicles; v++) {
+            routes.add(new ArrayList<>());
+        }
+        return routes;
+    }
+}
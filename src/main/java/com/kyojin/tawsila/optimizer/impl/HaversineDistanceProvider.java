@@ -0,0 +1,37 @@
+package com.kyojin.tawsila.optimizer.impl;
+
+import com.kyojin.tawsila.optimizer.DistanceKernel;
+import com.kyojin.tawsila.optimizer.DistanceProvider;
+import com.kyojin.tawsila.util.DistanceCalculator;
+
+/**
+ * Great-circle distance, the default. It ignores the road network, so it underestimates
+ * what a vehicle actually drives. Matrices are computed by a {@link DistanceKernel}.
+ */
+public class HaversineDistanceProvider implements DistanceProvider {
+
+    private final DistanceKernel kernel;
+
+    public HaversineDistanceProvider() {
+        this(DistanceKernel.create());
+    }
+
+    public HaversineDistanceProvider(DistanceKernel kernel) {
+        this.kernel = kernel;
+    }
+
+    @Override
+    public double distance(double lat1, double lon1, double lat2, double lon2) {
+        return DistanceCalculator.calculateDistance(lat1, lon1, lat2, lon2);
+    }
+
+    @Override
+    public double[] matrix(double[] lat, double[] lon) {
+        return kernel.matrix(lat, lon);
+    }
+
+    @Override
+    public boolean isGreatCircle() {
+        return true;
+    }
+}
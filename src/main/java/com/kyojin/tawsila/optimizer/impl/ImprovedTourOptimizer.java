@@ -0,0 +1,51 @@
+package com.kyojin.tawsila.optimizer.impl;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Vehicle;
+import com.kyojin.tawsila.entity.Warehouse;
+import com.kyojin.tawsila.optimizer.DistanceMatrix;
+import com.kyojin.tawsila.optimizer.RouteImprover;
+import com.kyojin.tawsila.optimizer.TourOptimizer;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs a construction heuristic, then hands its route to an improvement stage.
+ * Both share the same distance matrix.
+ */
+@RequiredArgsConstructor
+public class ImprovedTourOptimizer implements TourOptimizer {
+
+    private final TourOptimizer construction;
+    private final RouteImprover improver;
+
+    @Override
+    public List<Delivery> calculateOptimalTour(Warehouse warehouse, List<Delivery> deliveries, Vehicle vehicle,
+                                               DistanceMatrix matrix) {
+        List<Delivery> route = construction.calculateOptimalTour(warehouse, deliveries, vehicle, matrix);
+        if (route.size() < 3) return route;
+
+        // the matrix is indexed by position in the original list
+        Map<Delivery, Integer> indexes = new IdentityHashMap<>();
+        for (int i = 0; i < deliveries.size(); i++) {
+            indexes.put(deliveries.get(i), i);
+        }
+
+        int[] order = new int[route.size()];
+        for (int k = 0; k < route.size(); k++) {
+            order[k] = indexes.get(route.get(k));
+        }
+
+        int[] improved = improver.improve(order, matrix);
+
+        List<Delivery> result = new ArrayList<>(improved.length);
+        for (int i : improved) {
+            result.add(deliveries.get(i));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,332 @@
+package com.kyojin.tawsila.optimizer.impl;
+
+import com.kyojin.tawsila.optimizer.DistanceMatrix;
+import com.kyojin.tawsila.optimizer.RouteImprover;
+
+import java.util.Arrays;
+
+/**
+ * 2-opt and Or-opt local search over a single route.
+ * <p>
+ * Every move is evaluated in O(1) from the distance matrix. Candidate moves are restricted to
+ * the closest neighbors of each stop, and the search stops at a local optimum or when the
+ * time budget runs out, whichever comes first.
+ * <p>
+ * 2-opt and reversed Or-opt moves run part of the route the other way. With an asymmetric
+ * matrix (road distances) that changes the length of the part too, it is read from prefix sums
+ * of the legs in both directions, which are rebuilt in O(n) after each applied move.
+ */
+public class LocalSearchImprover implements RouteImprover {
+
+    private static final double EPSILON = 1e-9;
+    private static final int MAX_SEGMENT = 3; // or-opt moves segments of 1 to 3 stops
+
+    private final long timeBudgetMillis;
+    private final int neighborCount;
+
+    public LocalSearchImprover(long timeBudgetMillis, int neighborCount) {
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.neighborCount = neighborCount;
+    }
+
+    @Override
+    public int[] improve(int[] route, DistanceMatrix matrix) {
+        int m = route.length;
+        if (m < 3) return route.clone(); // nothing to improve
+
+        long deadline = System.nanoTime() + timeBudgetMillis * 1_000_000L;
+
+        // local ids: 0 is the warehouse, k is route[k - 1]
+        int[] nodeOf = new int[m + 1];
+        for (int k = 1; k <= m; k++) {
+            nodeOf[k] = route[k - 1] + 1;
+        }
+
+        // the tour holds local ids with the warehouse at both ends, pos is the inverse (warehouse at 0)
+        int[] tour = new int[m + 2];
+        int[] pos = new int[m + 1];
+        for (int k = 1; k <= m; k++) {
+            tour[k] = k;
+            pos[k] = k;
+        }
+
+        // the neighbor lists are part of the search and count against its budget
+        int[][] neighbors = buildNeighbors(nodeOf, matrix, deadline);
+        if (neighbors == null) return route.clone();
+
+        Directions directions = null;
+        if (!matrix.isSymmetric()) {
+            directions = new Directions(tour.length);
+            directions.update(tour, nodeOf, matrix);
+        }
+
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadline) {
+            improved = twoOpt(tour, pos, nodeOf, neighbors, matrix, directions, deadline);
+            improved |= orOpt(tour, pos, nodeOf, neighbors, matrix, directions, deadline);
+        }
+
+        int[] result = new int[m];
+        for (int k = 1; k <= m; k++) {
+            result[k - 1] = nodeOf[tour[k]] - 1;
+        }
+        return result;
+    }
+
+    /**
+     * For each stop (and the warehouse), the closest other stops sorted by distance.
+     * Each row keeps the k nearest in a bounded max-heap, O(m log k) per row without boxing.
+     * @return null if the deadline passed before every list was built
+     */
+    private int[][] buildNeighbors(int[] nodeOf, DistanceMatrix matrix, long deadline) {
+        int size = nodeOf.length;
+        int k = Math.min(neighborCount, size - 1);
+        int[][] neighbors = new int[size][];
+        int[] heap = new int[k];
+        double[] heapDist = new double[k];
+
+        for (int a = 0; a < size; a++) {
+            if (System.nanoTime() >= deadline) return null;
+
+            int count = 0;
+            for (int b = 0; b < size; b++) {
+                if (b == a) continue;
+                double d = matrix.get(nodeOf[a], nodeOf[b]);
+                if (count < k) {
+                    heap[count] = b;
+                    heapDist[count] = d;
+                    siftUp(heap, heapDist, count++);
+                } else if (d < heapDist[0]) {
+                    heap[0] = b;
+                    heapDist[0] = d;
+                    siftDown(heap, heapDist, 0, k);
+                }
+            }
+
+            // popping the farthest to the back leaves the row sorted by distance
+            int[] row = new int[count];
+            for (int n = count - 1; n >= 0; n--) {
+                row[n] = heap[0];
+                heap[0] = heap[n];
+                heapDist[0] = heapDist[n];
+                siftDown(heap, heapDist, 0, n);
+            }
+            neighbors[a] = row;
+        }
+        return neighbors;
+    }
+
+    private static void siftUp(int[] heap, double[] dist, int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (dist[parent] >= dist[i]) return;
+            swap(heap, dist, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, double[] dist, int i, int size) {
+        while (true) {
+            int largest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && dist[left] > dist[largest]) largest = left;
+            if (right < size && dist[right] > dist[largest]) largest = right;
+            if (largest == i) return;
+            swap(heap, dist, i, largest);
+            i = largest;
+        }
+    }
+
+    private static void swap(int[] heap, double[] dist, int i, int j) {
+        int node = heap[i];
+        heap[i] = heap[j];
+        heap[j] = node;
+        double d = dist[i];
+        dist[i] = dist[j];
+        dist[j] = d;
+    }
+
+    /**
+     * One pass of 2-opt: reversing tour[lo + 1..hi] replaces edges (lo, lo + 1) and (hi, hi + 1)
+     * with (lo, hi) and (lo + 1, hi + 1).
+     * @param directions null when the matrix is symmetric
+     * @return true if at least one move was applied
+     */
+    private boolean twoOpt(int[] tour, int[] pos, int[] nodeOf, int[][] neighbors,
+                           DistanceMatrix matrix, Directions directions, long deadline) {
+        int m = pos.length - 1;
+        boolean improved = false;
+
+        for (int i = 0; i <= m; i++) {
+            if (System.nanoTime() >= deadline) break;
+
+            int a = tour[i];
+            double current = dist(a, tour[i + 1], nodeOf, matrix);
+
+            for (int c : neighbors[a]) {
+                // both orientations remove the edge leaving a and add (a, c), so it has to be shorter
+                if (dist(a, c, nodeOf, matrix) >= current) break;
+
+                int j = pos[c];
+                int lo = Math.min(i, j);
+                int hi = Math.max(i, j);
+                if (hi - lo < 2) continue;
+
+                double delta = dist(tour[lo], tour[hi], nodeOf, matrix)
+                        + dist(tour[lo + 1], tour[hi + 1], nodeOf, matrix)
+                        - dist(tour[lo], tour[lo + 1], nodeOf, matrix)
+                        - dist(tour[hi], tour[hi + 1], nodeOf, matrix);
+                if (directions != null) {
+                    delta += directions.reversal(lo + 1, hi);
+                }
+
+                if (delta < -EPSILON) {
+                    reverse(tour, pos, lo + 1, hi);
+                    if (directions != null) directions.update(tour, nodeOf, matrix);
+                    improved = true;
+                    break;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * One pass of Or-opt: moves a segment of up to {@link #MAX_SEGMENT} stops next to one of the
+     * neighbors of its first or last stop, possibly reversed.
+     * @param directions null when the matrix is symmetric
+     * @return true if at least one move was applied
+     */
+    private boolean orOpt(int[] tour, int[] pos, int[] nodeOf, int[][] neighbors,
+                          DistanceMatrix matrix, Directions directions, long deadline) {
+        int m = pos.length - 1;
+        boolean improved = false;
+
+        for (int i = 1; i <= m; i++) {
+            if (System.nanoTime() >= deadline) break;
+
+            for (int len = 1; len <= MAX_SEGMENT && i + len - 1 <= m; len++) {
+                int first = tour[i];
+                int last = tour[i + len - 1];
+                int prev = tour[i - 1];
+                int next = tour[i + len];
+
+                double removeGain = dist(prev, first, nodeOf, matrix)
+                        + dist(last, next, nodeOf, matrix)
+                        - dist(prev, next, nodeOf, matrix);
+                if (removeGain <= EPSILON) continue;
+
+                if (tryMoveSegment(tour, pos, nodeOf, neighbors, matrix, directions, i, len, removeGain)) {
+                    improved = true;
+                    break;
+                }
+            }
+        }
+        return improved;
+    }
+
+    private boolean tryMoveSegment(int[] tour, int[] pos, int[] nodeOf, int[][] neighbors, DistanceMatrix matrix,
+                                   Directions directions, int start, int len, double removeGain) {
+        int first = tour[start];
+        int last = tour[start + len - 1];
+        // the segment itself gets longer or shorter when it is run the other way
+        double reversal = directions != null ? directions.reversal(start, start + len - 1) : 0;
+
+        for (int end : new int[]{first, last}) {
+            for (int u : neighbors[end]) {
+                if (dist(u, end, nodeOf, matrix) >= removeGain) break;
+
+                int pu = pos[u];
+                // u is the stop before the segment or inside it, the edge after u is the one we remove
+                if (pu >= start - 1 && pu <= start + len - 1) continue;
+
+                int v = tour[pu + 1];
+                double base = dist(u, v, nodeOf, matrix);
+                double forward = dist(u, first, nodeOf, matrix) + dist(last, v, nodeOf, matrix) - base;
+                double reversed = dist(u, last, nodeOf, matrix) + dist(first, v, nodeOf, matrix) - base + reversal;
+
+                if (Math.min(forward, reversed) < removeGain - EPSILON) {
+                    moveSegment(tour, pos, start, len, pu, reversed < forward);
+                    if (directions != null) directions.update(tour, nodeOf, matrix);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void reverse(int[] tour, int[] pos, int from, int to) {
+        while (from < to) {
+            int tmp = tour[from];
+            tour[from] = tour[to];
+            tour[to] = tmp;
+            pos[tour[from]] = from;
+            pos[tour[to]] = to;
+            from++;
+            to--;
+        }
+    }
+
+    /**
+     * Moves tour[start..start + len - 1] right after the stop at position {@code after}.
+     */
+    private void moveSegment(int[] tour, int[] pos, int start, int len, int after, boolean reversed) {
+        int[] segment = Arrays.copyOfRange(tour, start, start + len);
+        if (reversed) {
+            for (int l = 0, r = len - 1; l < r; l++, r--) {
+                int tmp = segment[l];
+                segment[l] = segment[r];
+                segment[r] = tmp;
+            }
+        }
+
+        int[] rebuilt = new int[tour.length];
+        int k = 0;
+        for (int p = 0; p < tour.length; p++) {
+            if (p >= start && p < start + len) continue;
+            rebuilt[k++] = tour[p];
+            if (p == after) {
+                for (int s : segment) rebuilt[k++] = s;
+            }
+        }
+
+        System.arraycopy(rebuilt, 0, tour, 0, tour.length);
+        for (int p = 0; p < tour.length - 1; p++) {
+            pos[tour[p]] = p;
+        }
+    }
+
+    private double dist(int a, int b, int[] nodeOf, DistanceMatrix matrix) {
+        return matrix.get(nodeOf[a], nodeOf[b]);
+    }
+
+    /**
+     * Prefix sums of the legs along the tour, in its direction and against it.
+     */
+    private static class Directions {
+        final double[] forward;
+        final double[] backward;
+
+        Directions(int size) {
+            this.forward = new double[size];
+            this.backward = new double[size];
+        }
+
+        void update(int[] tour, int[] nodeOf, DistanceMatrix matrix) {
+            for (int p = 0; p + 1 < tour.length; p++) {
+                int a = nodeOf[tour[p]];
+                int b = nodeOf[tour[p + 1]];
+                forward[p + 1] = forward[p] + matrix.get(a, b);
+                backward[p + 1] = backward[p] + matrix.get(b, a);
+            }
+        }
+
+        /**
+         * @return how much longer tour[from..to] gets when it is run from to down to from
+         */
+        double reversal(int from, int to) {
+            return (backward[to] - backward[from]) - (forward[to] - forward[from]);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.kyojin.tawsila.optimizer.impl;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Vehicle;
+import com.kyojin.tawsila.entity.Warehouse;
+import com.kyojin.tawsila.optimizer.DistanceMatrix;
+import com.kyojin.tawsila.optimizer.OptimizerMetrics;
+import com.kyojin.tawsila.optimizer.RandomizedTourOptimizer;
+import com.kyojin.tawsila.optimizer.TourOptimizer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs a construction heuristic several times in parallel and keeps the best route.
+ * <p>
+ * Start 0 is the plain heuristic and runs on the calling thread, so the result is never worse
+ * than it. Starts 1 to K-1 are randomized with the seed of their position, which keeps the
+ * result reproducible as long as they all finish, and run on the pool meanwhile. When the
+ * deadline passes the starts still running give up and the best finished one wins; starts
+ * that had not begun are skipped. A route with more stops is better, then a shorter one
+ * (warehouse to warehouse).
+ * <p>
+ * Which starts finish depends on the load, so the result may vary from one run to the next.
+ */
+public class MultiStartOptimizer implements TourOptimizer {
+
+    private final ForkJoinPool pool;
+    private final RandomizedTourOptimizer construction;
+    private final int starts;
+    private final long deadlineNanos;
+    private final OptimizerMetrics metrics;
+
+    public MultiStartOptimizer(RandomizedTourOptimizer construction, int starts, Duration deadline) {
+        this(ForkJoinPool.commonPool(), construction, starts, deadline, new OptimizerMetrics());
+    }
+
+    public MultiStartOptimizer(ForkJoinPool pool, RandomizedTourOptimizer construction, int starts,
+                               Duration deadline, OptimizerMetrics metrics) {
+        this.pool = pool;
+        this.construction = construction;
+        this.starts = starts;
+        this.deadlineNanos = deadline.toNanos();
+        this.metrics = metrics;
+    }
+
+    @Override
+    public List<Delivery> calculateOptimalTour(Warehouse warehouse, List<Delivery> deliveries, Vehicle vehicle,
+                                               DistanceMatrix matrix) {
+        if (starts <= 1 || deliveries == null || deliveries.size() < 3) {
+            return construction.calculateOptimalTour(warehouse, deliveries, vehicle, matrix);
+        }
+        // routes are compared on the matrix, some constructions do without one
+        DistanceMatrix distances = matrix != null ? matrix : DistanceMatrix.of(warehouse, deliveries);
+        long deadline = System.nanoTime() + deadlineNanos;
+        // cancelling a task does not stop it once started, the constructions poll this instead
+        AtomicBoolean abandoned = new AtomicBoolean();
+        BooleanSupplier stop = () -> abandoned.get() || System.nanoTime() - deadline >= 0;
+
+        List<ForkJoinTask<List<Delivery>>> randomized = new ArrayList<>(starts - 1);
+        for (int seed = 1; seed < starts; seed++) {
+            Random random = new Random(seed);
+            randomized.add(pool.submit(() -> stop.getAsBoolean()
+                    ? null
+                    : construction.calculateRandomizedTour(warehouse, deliveries, vehicle, distances, random, stop)));
+        }
+
+        try {
+            return best(warehouse, deliveries, vehicle, distances, randomized, deadline);
+        } finally {
+            abandoned.set(true);
+        }
+    }
+
+    /**
+     * @return the best of the plain route and the randomized ones finished by the deadline
+     */
+    private List<Delivery> best(Warehouse warehouse, List<Delivery> deliveries, Vehicle vehicle,
+                                DistanceMatrix distances, List<ForkJoinTask<List<Delivery>>> randomized,
+                                long deadline) {
+        List<Delivery> best = construction.calculateOptimalTour(warehouse, deliveries, vehicle, distances);
+
+        Map<Delivery, Integer> indexes = new IdentityHashMap<>();
+        for (int i = 0; i < deliveries.size(); i++) {
+            indexes.put(deliveries.get(i), i);
+        }
+        double bestLength = length(best, indexes, distances);
+        boolean improved = false;
+        int completed = 1;
+
+        for (ForkJoinTask<List<Delivery>> task : randomized) {
+            List<Delivery> route = awaitUntil(task, deadline);
+            if (route == null) continue;
+            completed++;
+
+            double length = length(route, indexes, distances);
+            if (route.size() > best.size() || route.size() == best.size() && length < bestLength) {
+                best = route;
+                bestLength = length;
+                improved = true;
+            }
+        }
+
+        metrics.starts(completed, starts - completed, improved);
+        return best;
+    }
+
+    /**
+     * @return the route of the start, or null if it was skipped or did not finish in time
+     */
+    private static List<Delivery> awaitUntil(ForkJoinTask<List<Delivery>> task, long deadline) {
+        try {
+            return task.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            task.cancel(false);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.cancel(false);
+            return null;
+        } catch (ExecutionException e) {
+            // the randomized runs share the plain run's code, so this would have failed it too
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * @return the length from the warehouse through every stop and back
+     */
+    private static double length(List<Delivery> route, Map<Delivery, Integer> indexes, DistanceMatrix matrix) {
+        if (route.isEmpty()) return 0;
+        int prev = indexes.get(route.get(0));
+        double length = matrix.fromWarehouse(prev);
+        for (int k = 1; k < route.size(); k++) {
+            int cur = indexes.get(route.get(k));
+            length += matrix.between(prev, cur);
+            prev = cur;
+        }
+        return length + matrix.toWarehouse(prev);
+    }
+}
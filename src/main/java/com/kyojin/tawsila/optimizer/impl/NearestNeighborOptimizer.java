@@ -4,16 +4,19 @@ import com.kyojin.tawsila.entity.Delivery;
 import com.kyojin.tawsila.entity.Vehicle;
 import com.kyojin.tawsila.entity.Warehouse;
 import com.kyojin.tawsila.enums.VehicleType;
-import com.kyojin.tawsila.optimizer.TourOptimizer;
-import com.kyojin.tawsila.util.DistanceCalculator;
+import com.kyojin.tawsila.optimizer.DistanceMatrix;
+import com.kyojin.tawsila.optimizer.KdTree;
+import com.kyojin.tawsila.optimizer.RandomizedTourOptimizer;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.function.BooleanSupplier;
 
-public class NearestNeighborOptimizer implements TourOptimizer {
+public class NearestNeighborOptimizer implements RandomizedTourOptimizer {
 
     @Getter
     @Setter
@@ -34,25 +37,68 @@ public class NearestNeighborOptimizer implements TourOptimizer {
         }
     }
 
+    /**
+     * Nearest lookups go through a spatial index, so no distance matrix is built.
+     */
     @Override
     public List<Delivery> calculateOptimalTour(Warehouse warehouse, List<Delivery> deliveries, Vehicle vehicle) {
+        return calculateOptimalTour(warehouse, deliveries, vehicle, null);
+    }
+
+    /**
+     * Nearest lookups go through a {@link KdTree}, which ranks deliveries exactly like the
+     * Haversine distance, unless the matrix holds other distances (road distances for instance):
+     * the nearest delivery is then looked up in the matrix, in O(n) per stop.
+     */
+    @Override
+    public List<Delivery> calculateOptimalTour(Warehouse warehouse, List<Delivery> deliveries, Vehicle vehicle,
+                                               DistanceMatrix matrix) {
+        return buildTour(warehouse, deliveries, vehicle, matrix, null, () -> false);
+    }
+
+    /**
+     * Starts from a random delivery instead of the one nearest to the warehouse, then goes on
+     * from nearest to nearest.
+     */
+    @Override
+    public List<Delivery> calculateRandomizedTour(Warehouse warehouse, List<Delivery> deliveries, Vehicle vehicle,
+                                                  DistanceMatrix matrix, Random random, BooleanSupplier stop) {
+        return buildTour(warehouse, deliveries, vehicle, matrix, random, stop);
+    }
+
+    /**
+     * @param matrix used for nearest lookups when its distances are not great-circle, may be null
+     * @param random picks the first stop when not null
+     * @param stop checked before each stop, null is returned once it is true
+     */
+    private List<Delivery> buildTour(Warehouse warehouse, List<Delivery> deliveries, Vehicle vehicle,
+                                     DistanceMatrix matrix, Random random, BooleanSupplier stop) {
         if (deliveries == null || deliveries.isEmpty()) return new ArrayList<>();
 
         VehicleType vType = vehicle.getType();
 
-        List<Delivery> notVisited = new ArrayList<>();
+        // indexes of the deliveries that can be handled by the vehicle
+        List<Integer> eligible = new ArrayList<>();
 
-        // we fill notVisited with a list of deliveries that can be handled by the vehicle
+        // we fill eligible with the deliveries that can be handled by the vehicle
         // doing sanity checks
-        for (Delivery del : deliveries) {
-           if (vType.canHandle(del.getWeightKg(), del.getVolumeM3())) {
-            notVisited.add(del);
-           }
+        for (int i = 0; i < deliveries.size(); i++) {
+            Delivery del = deliveries.get(i);
+            if (vType.canHandle(del.getWeightKg(), del.getVolumeM3())) {
+                eligible.add(i);
+            }
         }
 
         // edge cases
-        if (notVisited.isEmpty()) return new ArrayList<>();
-        if (notVisited.size() == 1) return notVisited;
+        if (eligible.isEmpty()) return new ArrayList<>();
+        if (eligible.size() == 1) return new ArrayList<>(List.of(deliveries.get(eligible.get(0))));
+
+        // not visited deliveries, removed from the index (or marked visited) as we go
+        boolean byMatrix = matrix != null && !matrix.isGreatCircle();
+        KdTree notVisited = byMatrix ? null : new KdTree(deliveries, eligible);
+        boolean[] visited = new boolean[deliveries.size()];
+        int remaining = eligible.size();
+        int currentNode = 0; // the warehouse
 
         // the final optimized route
         List<Delivery> optimized = new ArrayList<>();
@@ -66,15 +112,41 @@ public class NearestNeighborOptimizer implements TourOptimizer {
                 0
         );
 
-        // we loop until we have visited all deliveries, or reach the vehicle's max deliveries
-        while (!notVisited.isEmpty() && state.getCurrentStops() < vehicle.getMaxDeliveries()) {
-            Delivery nearest = findNearestDelivery(notVisited, state, vehicle);
-
-            if (nearest == null) break; // no more deliveries that fit capacity
+        // every eligible delivery fits the vehicle on its own, so any of them can be the first stop
+        if (random != null && vehicle.getMaxDeliveries() > 0) {
+            int first = eligible.get(random.nextInt(eligible.size()));
+            Delivery del = deliveries.get(first);
+            optimized.add(del);
+            if (notVisited != null) notVisited.remove(first);
+            visited[first] = true;
+            remaining--;
+            currentNode = first + 1;
+            state.update(del);
+        }
 
-            optimized.add(nearest);
-            notVisited.remove(nearest);
-            state.update(nearest);
+        // we loop until we have visited all deliveries, or reach the vehicle's max deliveries
+        while (remaining > 0 && state.getCurrentStops() < vehicle.getMaxDeliveries()
+                && state.getCurrentStops() < vType.getMaxDeliveries()) {
+            if (stop.getAsBoolean()) return null;
+
+            // nearest delivery from the current position that still fits the vehicle
+            int nearest = byMatrix
+                    ? nearestInMatrix(matrix, currentNode, deliveries, eligible, visited, state, vType)
+                    : notVisited.nearest(
+                            state.getCurrentLat(), state.getCurrentLon(),
+                            state.getCurrentWeight(), vType.getMaxWeightKg(),
+                            state.getCurrentVolume(), vType.getMaxVolumeM3()
+                    );
+
+            if (nearest < 0) break; // no more deliveries that fit capacity
+
+            Delivery del = deliveries.get(nearest);
+            optimized.add(del);
+            if (notVisited != null) notVisited.remove(nearest);
+            visited[nearest] = true;
+            remaining--;
+            currentNode = nearest + 1;
+            state.update(del);
         }
 
         return optimized;
@@ -82,51 +154,24 @@ public class NearestNeighborOptimizer implements TourOptimizer {
     }
 
     /**
-     * Finds the nearest delivery from the current state that can fit in the vehicle.
-     * @param deliveries list of deliveries to consider
-     * @param state current state of the vehicle
-     * @param vehicle the vehicle being used
-     * @return the nearest delivery that fits, or null if none found
+     * @return the eligible delivery not visited yet that is nearest to the node and still fits, or -1
      */
-    private Delivery findNearestDelivery(List<Delivery> deliveries, State state, Vehicle vehicle) {
-        Delivery nearest = null;
-        double minDistance = Double.MAX_VALUE; // define a large number minimum distance
-
-        for (Delivery del : deliveries) {
-            if (!canFit(del, vehicle, state)) continue;
-
-            // calculate distance from current position to delivery
-            double dist = DistanceCalculator.calculateDistance(
-                    state.getCurrentLat(), state.getCurrentLon(),
-                    del.getLatitude(), del.getLongitude()
-            );
-
-            // we check if it is closer than the current minimum
-            // and update nearest if so
-            if (dist < minDistance) {
-                minDistance = dist;
-                nearest = del;
+    private static int nearestInMatrix(DistanceMatrix matrix, int fromNode, List<Delivery> deliveries,
+                                       List<Integer> eligible, boolean[] visited, State state, VehicleType vType) {
+        int nearest = -1;
+        double nearestDistance = Double.MAX_VALUE;
+        for (int i : eligible) {
+            if (visited[i]) continue;
+            Delivery del = deliveries.get(i);
+            if (state.getCurrentWeight() + del.getWeightKg() > vType.getMaxWeightKg()
+                    || state.getCurrentVolume() + del.getVolumeM3() > vType.getMaxVolumeM3()) continue;
+
+            double d = matrix.get(fromNode, i + 1);
+            if (d < nearestDistance) {
+                nearestDistance = d;
+                nearest = i;
             }
         }
-
         return nearest;
     }
-
-
-    /**
-     * Checks if a delivery can fit in the vehicle given the current state.
-     * @param delivery the delivery to check
-     * @param vehicle the vehicle being used
-     * @param state the current state of the vehicle
-     * @return true if the delivery can fit, false otherwise
-     */
-    private boolean canFit(Delivery delivery, Vehicle vehicle, State state) {
-        // calculate new state if we add this delivery
-        double newWeight = state.getCurrentWeight() + delivery.getWeightKg();
-        double newVolume = state.getCurrentVolume() + delivery.getVolumeM3();
-        int newStops = state.getCurrentStops() + 1;
-
-        // we call the vehicle type handle method to check if it fits
-        return vehicle.getType().canHandle(newWeight, newVolume, newStops);
-    }
 }
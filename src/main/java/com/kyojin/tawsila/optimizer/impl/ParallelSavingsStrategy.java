@@ -0,0 +1,233 @@
+package com.kyojin.tawsila.optimizer.impl;
+
+import com.kyojin.tawsila.optimizer.DistanceKernel;
+import com.kyojin.tawsila.optimizer.DistanceMatrix;
+import com.kyojin.tawsila.optimizer.SavingsList;
+import com.kyojin.tawsila.optimizer.SavingsStrategy;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Computes savings with fork-join over rows of the pair triangle and sorts them in parallel.
+ * <p>
+ * A first pass counts the savings kept per row so the second pass can write straight into
+ * exactly sized primitive arrays. With {@code topK > 0} a pair is only kept if it is among
+ * the K best savings of at least one of its two deliveries, which drops most pairs that
+ * Clarke-Wright would never get to merge.
+ * <p>
+ * The savings of a row are computed in one call to the {@link DistanceKernel}, which reads the
+ * row straight from the matrix array. With an asymmetric matrix the rows cover the whole square
+ * instead of the triangle, each pair has a saving in both directions.
+ */
+public class ParallelSavingsStrategy implements SavingsStrategy {
+
+    // below this many deliveries forking costs more than it saves
+    private static final int PARALLEL_THRESHOLD = 256;
+    private static final int ROWS_PER_TASK = 8;
+
+    private final ForkJoinPool pool;
+    private final int topK;
+    private final DistanceKernel kernel;
+
+    // savings of the row being processed, one buffer per worker thread
+    private final ThreadLocal<double[]> rowBuffers = ThreadLocal.withInitial(() -> new double[0]);
+
+    public ParallelSavingsStrategy(int topK) {
+        this(ForkJoinPool.commonPool(), topK, DistanceKernel.create());
+    }
+
+    public ParallelSavingsStrategy(int topK, DistanceKernel kernel) {
+        this(ForkJoinPool.commonPool(), topK, kernel);
+    }
+
+    public ParallelSavingsStrategy(ForkJoinPool pool, int topK) {
+        this(pool, topK, DistanceKernel.create());
+    }
+
+    public ParallelSavingsStrategy(ForkJoinPool pool, int topK, DistanceKernel kernel) {
+        this.pool = pool;
+        this.topK = topK;
+        this.kernel = kernel;
+    }
+
+    @Override
+    public SavingsList calculateSavings(List<Integer> eligible, DistanceMatrix matrix) {
+        int n = eligible.size();
+        int[] index = eligible.stream().mapToInt(Integer::intValue).toArray();
+        boolean directed = !matrix.isSymmetric();
+        double[] depot = new double[n];
+        double[] back = directed ? new double[n] : depot;
+        int[] columns = new int[n];
+        for (int a = 0; a < n; a++) {
+            depot[a] = matrix.fromWarehouse(index[a]);
+            back[a] = matrix.toWarehouse(index[a]);
+            columns[a] = index[a] + 1;
+        }
+        Rows rows = new Rows(index, columns, depot, back, matrix.values(), matrix.size() + 1, directed);
+
+        double[] threshold = topK > 0 && topK < n - 1 ? new double[n] : null;
+        if (threshold != null) {
+            forEachRow(n, a -> threshold[a] = kthBestSaving(a, rows));
+        }
+
+        // first pass: how many savings each row keeps
+        int[] counts = new int[n];
+        forEachRow(n, a -> {
+            int start = rows.firstColumn(a);
+            double[] row = rowSavings(a, start, rows);
+            int count = 0;
+            for (int b = start; b < n; b++) {
+                if (b != a && keep(a, b, row[b], threshold)) count++;
+            }
+            counts[a] = count;
+        });
+
+        int[] offsets = new int[n + 1];
+        long total = 0;
+        for (int a = 0; a < n; a++) {
+            total += counts[a];
+            if (total > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Too many savings for " + n + " deliveries, use a topK limit");
+            }
+            offsets[a + 1] = (int) total;
+        }
+
+        // second pass: every row writes its own slice of the arrays
+        int size = (int) total;
+        int[] from = new int[size];
+        int[] to = new int[size];
+        double[] amount = new double[size];
+        forEachRow(n, a -> {
+            int start = rows.firstColumn(a);
+            double[] row = rowSavings(a, start, rows);
+            int k = offsets[a];
+            for (int b = start; b < n; b++) {
+                double s = row[b];
+                if (b != a && keep(a, b, s, threshold)) {
+                    from[k] = index[a];
+                    to[k] = index[b];
+                    amount[k] = s;
+                    k++;
+                }
+            }
+        });
+
+        return new SavingsList(from, to, amount, size).sort(n < PARALLEL_THRESHOLD ? null : pool);
+    }
+
+    /**
+     * Savings of delivery a with the deliveries from {@code start} on, at their position in the
+     * returned buffer. The buffer is reused by the next row computed on the same thread.
+     */
+    private double[] rowSavings(int a, int start, Rows rows) {
+        int n = rows.index().length;
+        double[] buffer = rowBuffers.get();
+        if (buffer.length < n) {
+            buffer = new double[n];
+            rowBuffers.set(buffer);
+        }
+        // saving(i,j) = (dist(i, warehouse) + dist(warehouse, j)) - dist(i, j)
+        kernel.savings(rows.back()[a], rows.depot(), rows.values(), rows.columns()[a] * rows.nodes(), rows.columns(),
+                start, n, buffer);
+        return buffer;
+    }
+
+    private boolean keep(int a, int b, double saving, double[] threshold) {
+        if (saving <= 0) return false;
+        return threshold == null || saving >= threshold[a] || saving >= threshold[b];
+    }
+
+    /**
+     * The K-th highest positive saving of delivery a with any other delivery, 0 if it has K or fewer.
+     */
+    private double kthBestSaving(int a, Rows rows) {
+        int n = rows.index().length;
+        double[] row = rowSavings(a, 0, rows);
+        double[] values = new double[n - 1];
+        int count = 0;
+        for (int b = 0; b < n; b++) {
+            if (b == a) continue;
+            double s = row[b];
+            if (s > 0) values[count++] = s;
+        }
+        if (count <= topK) return 0;
+        return select(values, count, topK - 1);
+    }
+
+    /**
+     * Quickselect on values[0..count): the k-th highest value.
+     */
+    private double select(double[] values, int count, int k) {
+        int lo = 0;
+        int hi = count - 1;
+        while (lo < hi) {
+            double pivot = values[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (values[i] > pivot) i++;
+                while (values[j] < pivot) j--;
+                if (i <= j) {
+                    double tmp = values[i];
+                    values[i] = values[j];
+                    values[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) hi = j;
+            else if (k >= i) lo = i;
+            else break;
+        }
+        return values[k];
+    }
+
+    private void forEachRow(int n, IntConsumer row) {
+        if (n < PARALLEL_THRESHOLD) {
+            for (int a = 0; a < n; a++) row.accept(a);
+        } else {
+            pool.invoke(new RowTask(0, n, row));
+        }
+    }
+
+    /**
+     * What the rows are computed from: matrix indexes and columns of the eligible deliveries,
+     * their distance from and back to the warehouse (the same array when symmetric), and the
+     * flat matrix.
+     */
+    private record Rows(int[] index, int[] columns, double[] depot, double[] back, double[] values, int nodes,
+                        boolean directed) {
+
+        /**
+         * @return the first delivery paired with a: the one after it on the triangle, all of them when directed
+         */
+        int firstColumn(int a) {
+            return directed ? 0 : a + 1;
+        }
+    }
+
+    private static class RowTask extends RecursiveAction {
+        private final int lo;
+        private final int hi;
+        private final IntConsumer row;
+
+        RowTask(int lo, int hi, IntConsumer row) {
+            this.lo = lo;
+            this.hi = hi;
+            this.row = row;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= ROWS_PER_TASK) {
+                for (int a = lo; a < hi; a++) row.accept(a);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new RowTask(lo, mid, row), new RowTask(mid, hi, row));
+        }
+    }
+}
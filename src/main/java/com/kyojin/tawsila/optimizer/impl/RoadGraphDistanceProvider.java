@@ -0,0 +1,78 @@
+package com.kyojin.tawsila.optimizer.impl;
+
+import com.kyojin.tawsila.optimizer.DistanceProvider;
+import com.kyojin.tawsila.optimizer.RoadGraph;
+import com.kyojin.tawsila.util.DistanceCalculator;
+
+/**
+ * Driving distance on a {@link RoadGraph}.
+ * <p>
+ * Each point is snapped to its nearest node, and the straight line between the point and that
+ * node is added at both ends. Points with no node nearby, or pairs with no path between them
+ * (a one-way street leaving the extract), fall back to the Haversine distance so the optimizers
+ * always get a finite value. Matrices are computed with the graph's many-to-many query, one
+ * search per point.
+ */
+public class RoadGraphDistanceProvider implements DistanceProvider {
+
+    private final RoadGraph graph;
+
+    public RoadGraphDistanceProvider(RoadGraph graph) {
+        this.graph = graph;
+    }
+
+    @Override
+    public double distance(double lat1, double lon1, double lat2, double lon2) {
+        int from = graph.nearestNode(lat1, lon1);
+        int to = graph.nearestNode(lat2, lon2);
+        if (from < 0 || to < 0) {
+            return DistanceCalculator.calculateDistance(lat1, lon1, lat2, lon2);
+        }
+
+        double road = graph.distance(from, to);
+        if (Double.isInfinite(road)) {
+            return DistanceCalculator.calculateDistance(lat1, lon1, lat2, lon2);
+        }
+        return snap(lat1, lon1, from) + road + snap(lat2, lon2, to);
+    }
+
+    @Override
+    public double[] matrix(double[] lat, double[] lon) {
+        int n = lat.length;
+        int[] nodes = new int[n];
+        double[] snaps = new double[n];
+        for (int i = 0; i < n; i++) {
+            nodes[i] = graph.nearestNode(lat[i], lon[i]);
+            snaps[i] = nodes[i] < 0 ? 0 : snap(lat[i], lon[i], nodes[i]);
+        }
+
+        int[] query = snapped(nodes);
+        double[] road = graph.distances(query, query);
+        double[] distances = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i == j) continue;
+                double d = road[i * n + j];
+                distances[i * n + j] = nodes[i] < 0 || nodes[j] < 0 || Double.isInfinite(d)
+                        ? DistanceCalculator.calculateDistance(lat[i], lon[i], lat[j], lon[j])
+                        : snaps[i] + d + snaps[j];
+            }
+        }
+        return distances;
+    }
+
+    private double snap(double lat, double lon, int node) {
+        return DistanceCalculator.calculateDistance(lat, lon, graph.latitude(node), graph.longitude(node));
+    }
+
+    /**
+     * @return the nodes with the unsnapped points mapped to node 0, their distances are replaced anyway
+     */
+    private static int[] snapped(int[] nodes) {
+        int[] valid = nodes.clone();
+        for (int i = 0; i < valid.length; i++) {
+            if (valid[i] < 0) valid[i] = 0;
+        }
+        return valid;
+    }
+}
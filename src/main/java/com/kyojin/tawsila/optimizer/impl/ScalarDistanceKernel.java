@@ -0,0 +1,33 @@
+package com.kyojin.tawsila.optimizer.impl;
+
+import com.kyojin.tawsila.optimizer.DistanceKernel;
+import com.kyojin.tawsila.util.DistanceCalculator;
+
+/**
+ * Plain loops, used when the Vector API is not enabled. The JIT may still auto-vectorize the
+ * savings loop, not the arc sine of the distances.
+ */
+public class ScalarDistanceKernel implements DistanceKernel {
+
+    @Override
+    public void greatCircle(double[] x, double[] y, double[] z, int from, int start, int end, double[] out, int outOffset) {
+        double fx = x[from];
+        double fy = y[from];
+        double fz = z[from];
+        for (int k = start; k < end; k++) {
+            double dx = x[k] - fx;
+            double dy = y[k] - fy;
+            double dz = z[k] - fz;
+            double chord = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            out[outOffset + k - start] = 2 * DistanceCalculator.EARTH_RADIUS_KM * Math.asin(Math.min(1, chord / 2));
+        }
+    }
+
+    @Override
+    public void savings(double depotA, double[] depot, double[] distances, int rowOffset, int[] columns,
+                        int start, int end, double[] out) {
+        for (int b = start; b < end; b++) {
+            out[b] = depotA + depot[b] - distances[rowOffset + columns[b]];
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.kyojin.tawsila.optimizer.impl;
+
+import com.kyojin.tawsila.optimizer.DistanceMatrix;
+import com.kyojin.tawsila.optimizer.SavingsList;
+import com.kyojin.tawsila.optimizer.SavingsStrategy;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Computes and sorts every positive saving on the calling thread.
+ */
+public class SequentialSavingsStrategy implements SavingsStrategy {
+
+    @Override
+    public SavingsList calculateSavings(List<Integer> eligible, DistanceMatrix matrix) {
+        int n = eligible.size();
+        int capacity = Math.max(16, n);
+        int[] from = new int[capacity];
+        int[] to = new int[capacity];
+        double[] amount = new double[capacity];
+        int size = 0;
+        boolean directed = !matrix.isSymmetric();
+
+        for (int a = 0; a < n; a++) {
+            int i = eligible.get(a);
+            for (int b = directed ? 0 : a + 1; b < n; b++) {
+                if (b == a) continue;
+                int j = eligible.get(b);
+
+                // saving(i,j) = (dist(i, warehouse) + dist(warehouse, j)) - dist(i, j)
+                double savingAmount = matrix.toWarehouse(i) + matrix.fromWarehouse(j) - matrix.between(i, j);
+                if (savingAmount <= 0) continue;
+
+                if (size == from.length) {
+                    int grown = from.length + (from.length >> 1);
+                    from = Arrays.copyOf(from, grown);
+                    to = Arrays.copyOf(to, grown);
+                    amount = Arrays.copyOf(amount, grown);
+                }
+                from[size] = i;
+                to[size] = j;
+                amount[size] = savingAmount;
+                size++;
+            }
+        }
+
+        // sort from high to low
+        return new SavingsList(from, to, amount, size).sort(null);
+    }
+}
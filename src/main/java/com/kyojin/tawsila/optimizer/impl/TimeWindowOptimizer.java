@@ -0,0 +1,160 @@
+package com.kyojin.tawsila.optimizer.impl;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Vehicle;
+import com.kyojin.tawsila.entity.Warehouse;
+import com.kyojin.tawsila.optimizer.DistanceMatrix;
+import com.kyojin.tawsila.optimizer.TimeWindows;
+import com.kyojin.tawsila.optimizer.TourOptimizer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Insertion heuristic for a single vehicle with time windows (VRPTW).
+ * <p>
+ * Deliveries are taken from the tightest deadline to the loosest and each one is inserted where
+ * it adds the least distance among the positions that keep every stop on time. The route keeps,
+ * for every stop, the time service starts and the latest time it could start without making a
+ * later stop late (forward time slack), so checking a position is O(1) and an insertion O(n).
+ * <p>
+ * The vehicle leaves when the warehouse opens and must be back before it closes. Travel time
+ * comes from the distance at a fixed average speed, and every stop takes the same service time.
+ * Deliveries that cannot be served on time are still routed, at the end of the route, so they
+ * never delay the others.
+ */
+public class TimeWindowOptimizer implements TourOptimizer {
+
+    private final double minutesPerKm;
+    private final double serviceMinutes;
+
+    public TimeWindowOptimizer(double speedKmh, double serviceMinutes) {
+        this.minutesPerKm = 60.0 / speedKmh;
+        this.serviceMinutes = serviceMinutes;
+    }
+
+    @Override
+    public List<Delivery> calculateOptimalTour(Warehouse warehouse, List<Delivery> deliveries, Vehicle vehicle,
+                                               DistanceMatrix matrix) {
+        if (deliveries == null || deliveries.isEmpty()) return new ArrayList<>();
+
+        TimeWindows windows = TimeWindows.of(warehouse, deliveries);
+        Route route = new Route(deliveries.size(), windows, matrix);
+
+        // tightest deadline first, the loose ones fill the gaps afterwards
+        int[] candidates = IntStream.range(0, deliveries.size())
+                .boxed()
+                .sorted(Comparator.<Integer>comparingInt(windows::latest).thenComparingInt(windows::earliest))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        List<Integer> late = new ArrayList<>();
+        double weight = 0;
+        double volume = 0;
+        int stops = 0;
+        for (int i : candidates) {
+            Delivery d = deliveries.get(i);
+            if (stops == vehicle.getMaxDeliveries()) break;
+            if (weight + d.getWeightKg() > vehicle.getMaxWeightKg()
+                    || volume + d.getVolumeM3() > vehicle.getMaxVolumeM3()) {
+                continue;
+            }
+
+            int position = route.cheapestFeasiblePosition(i);
+            if (position >= 0) {
+                route.insert(position, i);
+            } else {
+                late.add(i);
+            }
+            weight += d.getWeightKg();
+            volume += d.getVolumeM3();
+            stops++;
+        }
+
+        List<Delivery> result = new ArrayList<>(stops);
+        for (int k = 0; k < route.size; k++) {
+            result.add(deliveries.get(route.stops[k]));
+        }
+        for (int i : late) {
+            result.add(deliveries.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Stops of the route with their service start and latest start times, in minutes.
+     * Position {@code size} of {@code latestStart} is the return to the warehouse.
+     */
+    private class Route {
+        final TimeWindows windows;
+        final DistanceMatrix matrix;
+        final int[] stops;
+        final double[] start;
+        final double[] latestStart;
+        int size;
+
+        Route(int capacity, TimeWindows windows, DistanceMatrix matrix) {
+            this.windows = windows;
+            this.matrix = matrix;
+            this.stops = new int[capacity];
+            this.start = new double[capacity];
+            this.latestStart = new double[capacity + 1];
+            this.latestStart[0] = windows.close();
+        }
+
+        /**
+         * @return the position where the delivery adds the least distance while every stop,
+         *         the delivery included, stays on time, or -1 if there is none
+         */
+        int cheapestFeasiblePosition(int delivery) {
+            int node = delivery + 1;
+            int best = -1;
+            double bestCost = Double.MAX_VALUE;
+
+            for (int p = 0; p <= size; p++) {
+                int prevNode = p == 0 ? 0 : stops[p - 1] + 1;
+                int nextNode = p == size ? 0 : stops[p] + 1;
+                double departure = p == 0 ? windows.open() : start[p - 1] + serviceMinutes;
+
+                double serviceStart = Math.max(departure + travel(prevNode, node), windows.earliest(delivery));
+                if (serviceStart > windows.latest(delivery)) continue;
+
+                double nextArrival = serviceStart + serviceMinutes + travel(node, nextNode);
+                double nextStart = p == size ? nextArrival : Math.max(nextArrival, windows.earliest(stops[p]));
+                if (nextStart > latestStart[p]) continue; // would push a later stop past its window
+
+                double cost = matrix.get(prevNode, node) + matrix.get(node, nextNode) - matrix.get(prevNode, nextNode);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    best = p;
+                }
+            }
+            return best;
+        }
+
+        void insert(int position, int delivery) {
+            System.arraycopy(stops, position, stops, position + 1, size - position);
+            stops[position] = delivery;
+            size++;
+
+            // start times move forward from the new stop, latest starts move backward to it
+            for (int k = position; k < size; k++) {
+                int prevNode = k == 0 ? 0 : stops[k - 1] + 1;
+                double departure = k == 0 ? windows.open() : start[k - 1] + serviceMinutes;
+                start[k] = Math.max(departure + travel(prevNode, stops[k] + 1), windows.earliest(stops[k]));
+            }
+            latestStart[size] = windows.close();
+            for (int k = size - 1; k >= 0; k--) {
+                int nextNode = k == size - 1 ? 0 : stops[k + 1] + 1;
+                latestStart[k] = Math.min(windows.latest(stops[k]),
+                        latestStart[k + 1] - serviceMinutes - travel(stops[k] + 1, nextNode));
+            }
+        }
+
+        private double travel(int fromNode, int toNode) {
+            return matrix.get(fromNode, toNode) * minutesPerKm;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.kyojin.tawsila.repository;
+
+import com.kyojin.tawsila.entity.Delivery;
+
+import java.util.List;
+
+public interface DeliveryBulkRepository {
+
+    /**
+     * Inserts new deliveries in one transaction, sent in JDBC batches.
+     * The deliveries are detached afterwards so a long import does not pile them up in memory.
+     */
+    void insertAll(List<Delivery> deliveries);
+}
@@ -0,0 +1,22 @@
+package com.kyojin.tawsila.repository;
+
+import com.kyojin.tawsila.entity.Delivery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+
+import java.util.List;
+
+public class DeliveryBulkRepositoryImpl implements DeliveryBulkRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public void insertAll(List<Delivery> deliveries) {
+        deliveries.forEach(entityManager::persist);
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
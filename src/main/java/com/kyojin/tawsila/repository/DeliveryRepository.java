@@ -1,13 +1,58 @@
 package com.kyojin.tawsila.repository;
 
+import com.kyojin.tawsila.dto.DeliveryRow;
 import com.kyojin.tawsila.entity.Delivery;
 import com.kyojin.tawsila.enums.DeliveryStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface DeliveryRepository extends JpaRepository<Delivery, Long> {
-    Optional<Delivery> findByStatus(DeliveryStatus status);
+public interface DeliveryRepository extends JpaRepository<Delivery, Long>, DeliveryBulkRepository {
     List<Delivery> findAllByStatus(DeliveryStatus status);
+
+    // keyset page of one status, served by the (status, id) index without a sort.
+    // status is constant so ordering by it changes nothing, but H2 only reads the index in order when it is listed
+    @EntityGraph(attributePaths = {"tour", "tour.vehicle"})
+    @Query("select d from Delivery d where d.status = :status and d.id > :afterId order by d.status, d.id")
+    List<Delivery> findPageByStatus(DeliveryStatus status, long afterId, Limit limit);
+
+    List<Delivery> findAllByStatusAndTourIsNull(DeliveryStatus status);
+
+    // the mapper embeds the tour and its vehicle, they are joined instead of loaded one by one
+    @EntityGraph(attributePaths = {"tour", "tour.vehicle"})
+    @Query("select d from Delivery d order by d.id")
+    List<Delivery> findAllWithTour();
+
+    @EntityGraph(attributePaths = {"tour", "tour.vehicle"})
+    Optional<Delivery> findWithTourById(Long id);
+
+    // keyset page: seeks past the last id instead of skipping rows with an offset
+    @EntityGraph(attributePaths = {"tour", "tour.vehicle"})
+    @Query("""
+            select d from Delivery d left join d.tour t
+            where d.id > :afterId
+              and (:status is null or d.status = :status)
+              and (:date is null or t.date = :date)
+            order by d.id""")
+    List<Delivery> findPage(long afterId, DeliveryStatus status, LocalDate date, Limit limit);
+
+    // must be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+            select new com.kyojin.tawsila.dto.DeliveryRow(d.id, d.latitude, d.longitude, d.weightKg, d.volumeM3,
+                   d.timeSlot, d.status, t.id, t.date, v.id)
+            from Delivery d left join d.tour t left join t.vehicle v
+            where (:status is null or d.status = :status)
+              and (:date is null or t.date = :date)
+            order by d.id""")
+    Stream<DeliveryRow> streamRows(DeliveryStatus status, LocalDate date);
 }
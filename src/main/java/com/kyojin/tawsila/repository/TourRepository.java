@@ -1,7 +1,81 @@
 package com.kyojin.tawsila.repository;
 
+import com.kyojin.tawsila.dto.TourRow;
 import com.kyojin.tawsila.entity.Tour;
+import jakarta.persistence.QueryHint;
+import jakarta.transaction.Transactional;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface TourRepository extends JpaRepository<Tour, Long> {
+    @EntityGraph(attributePaths = "vehicle")
+    List<Tour> findAllByDate(LocalDate date);
+
+    // loads the deliveries with the tour so they can be used once the transaction is over
+    @EntityGraph(attributePaths = {"vehicle", "deliveries"})
+    Optional<Tour> findWithDeliveriesById(Long id);
+
+    // every tour with its vehicle and deliveries in a single statement
+    @EntityGraph(attributePaths = {"vehicle", "deliveries"})
+    @Query("select t from Tour t order by t.id")
+    List<Tour> findAllWithDeliveries();
+
+    // keyset page of ids, the tours are loaded by findAllWithDeliveriesByIdIn
+    // since a limit cannot be applied in SQL to a query fetching a collection
+    @Query("""
+            select t.id from Tour t
+            where t.id > :afterId
+              and (:date is null or t.date = :date)
+            order by t.id""")
+    List<Long> findPageIds(long afterId, LocalDate date, Limit limit);
+
+    @EntityGraph(attributePaths = {"vehicle", "deliveries"})
+    @Query("select t from Tour t where t.id in :ids order by t.id")
+    List<Tour> findAllWithDeliveriesByIdIn(Collection<Long> ids);
+
+    // one row per delivery, grouped by tour and in delivery order; must be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+            select new com.kyojin.tawsila.dto.TourRow(t.id, t.date, v.id, v.type, v.maxWeightKg, v.maxVolumeM3,
+                   v.maxDeliveries, d.id, d.latitude, d.longitude, d.weightKg, d.volumeM3, d.timeSlot, d.status)
+            from Tour t join t.vehicle v left join t.deliveries d
+            where (:date is null or t.date = :date)
+            order by t.id, index(d)""")
+    Stream<TourRow> streamRows(LocalDate date);
+
+    // empty when the tour does not exist or its distance has to be computed again
+    @Query("select t.totalDistanceKm from Tour t where t.id = :id")
+    Optional<Double> findTotalDistanceKmById(Long id);
+
+    // a delivery of the tour changed, the distance is computed again on the next read;
+    // the version is incremented so an order computed from the old delivery is not saved
+    @Transactional
+    @Modifying
+    @Query("update versioned Tour t set t.totalDistanceKm = null where t.id = :id")
+    void clearTotalDistance(Long id);
+
+    // a distance computed on read: the version is left as it is, so a job holding the tour is not
+    // rejected, and nothing is stored if the tour was written since it was read
+    @Transactional
+    @Modifying
+    @Query("update Tour t set t.totalDistanceKm = :totalDistanceKm where t.id = :id and t.version = :version")
+    int storeTotalDistance(Long id, Long version, double totalDistanceKm);
+
+    @EntityGraph(attributePaths = {"vehicle", "deliveries"})
+    @Query("select t from Tour t where t.totalDistanceKm is null and (:date is null or t.date = :date)")
+    List<Tour> findAllWithoutTotalDistance(LocalDate date);
+
+    @Query("select coalesce(sum(t.totalDistanceKm), 0) from Tour t where (:date is null or t.date = :date)")
+    double sumTotalDistanceKm(LocalDate date);
 }
@@ -1,7 +1,17 @@
 package com.kyojin.tawsila.repository;
 
 import com.kyojin.tawsila.entity.Vehicle;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
 
 public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
+
+    // the whole fleet is read on every planning, the result is cached until a vehicle is written
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Vehicle> findAll();
 }
@@ -1,9 +1,14 @@
 package com.kyojin.tawsila.service;
 
+import com.kyojin.tawsila.dto.BulkResultDTO;
 import com.kyojin.tawsila.dto.DeliveryDTO;
+import com.kyojin.tawsila.dto.PageDTO;
 
+import java.time.LocalDate;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Service interface for Delivery operations.
@@ -19,6 +24,15 @@ public interface DeliveryService {
      */
     DeliveryDTO createDelivery(DeliveryDTO dto);
 
+    /**
+     * Create many deliveries at once, reading and validating them one at a time.
+     * Invalid rows are reported and skipped, the valid ones are inserted in JDBC batches.
+     *
+     * @param rows the deliveries to create, read lazily
+     * @return the number of rows read and created, and the error of every rejected row
+     */
+    BulkResultDTO createDeliveries(Iterator<DeliveryDTO> rows);
+
     /**
      * Get a delivery by its ID.
      *
@@ -34,6 +48,26 @@ public interface DeliveryService {
      */
     List<DeliveryDTO> getAllDeliveries();
 
+    /**
+     * Get a page of deliveries ordered by ID, using the last ID of the previous page as cursor.
+     *
+     * @param afterId the ID of the last delivery of the previous page, null for the first page
+     * @param size    the maximum number of deliveries in the page
+     * @param status  only deliveries with this status, null for all
+     * @param date    only deliveries of a tour on this date, null for all
+     * @return the page and the cursor of the next one
+     */
+    PageDTO<DeliveryDTO> getDeliveriesPage(Long afterId, int size, String status, LocalDate date);
+
+    /**
+     * Read every matching delivery ordered by ID, one at a time, without holding them all in memory.
+     *
+     * @param status   only deliveries with this status, null for all
+     * @param date     only deliveries of a tour on this date, null for all
+     * @param consumer receives each delivery as soon as it is read
+     */
+    void exportDeliveries(String status, LocalDate date, Consumer<DeliveryDTO> consumer);
+
     /**
      * Update an existing delivery.
      *
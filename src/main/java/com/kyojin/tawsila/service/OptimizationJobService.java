@@ -0,0 +1,23 @@
+package com.kyojin.tawsila.service;
+
+import com.kyojin.tawsila.dto.OptimizationJobDTO;
+
+import java.util.Optional;
+
+public interface OptimizationJobService {
+
+    /**
+     * Queue the optimization of a tour, the computation runs in the background
+     * @param tourId ID of the tour
+     * @param algorithm Algorithm to use for optimization (e.g., "NEAREST_NEIGHBOR")
+     * @return The queued job, poll it with {@link #getJob(String)}
+     */
+    OptimizationJobDTO submit(Long tourId, String algorithm);
+
+    /**
+     * Retrieve a job by its ID
+     * @param jobId ID of the job
+     * @return Optional containing the job with its status, and its result once done
+     */
+    Optional<OptimizationJobDTO> getJob(String jobId);
+}
@@ -1,11 +1,15 @@
 package com.kyojin.tawsila.service;
 
 import com.kyojin.tawsila.dto.DeliveryDTO;
+import com.kyojin.tawsila.dto.OptimizedOrderDTO;
+import com.kyojin.tawsila.dto.PageDTO;
 import com.kyojin.tawsila.dto.TourDTO;
 import com.kyojin.tawsila.dto.TourDistanceDTO;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface TourService {
 
@@ -30,7 +34,25 @@ public interface TourService {
     List<TourDTO> getAllTours();
 
     /**
-     * Update an existing tour
+     * Retrieve a page of tours ordered by ID, using the last ID of the previous page as cursor
+     * @param afterId ID of the last tour of the previous page, null for the first page
+     * @param size Maximum number of tours in the page
+     * @param date Only tours on this date, null for all
+     * @return The page and the cursor of the next one
+     */
+    PageDTO<TourDTO> getToursPage(Long afterId, int size, LocalDate date);
+
+    /**
+     * Read every matching tour ordered by ID, page by page, without holding them all in memory
+     * @param date Only tours on this date, null for all
+     * @param consumer Receives each tour as soon as it is read
+     */
+    void exportTours(LocalDate date, Consumer<TourDTO> consumer);
+
+    /**
+     * Update an existing tour.
+     * When deliveries are given, the current visiting order is kept: removed deliveries are spliced out
+     * and new ones inserted where they add the least distance, the tour is not optimized again.
      * @param id ID of the tour to update
      * @param dto Data transfer object containing updated tour details
      * @return Updated tour DTO
@@ -44,7 +66,8 @@ public interface TourService {
     void deleteTour(Long id);
 
     /**
-     * Get optimized tour using specified algorithm
+     * Get optimized tour using specified algorithm.
+     * Deliveries the optimizer could not route stay in the tour, after the routed ones, and are listed with the reason.
      * @param tourId ID of the tour
      * @param algorithm Algorithm to use for optimization (e.g., "NEAREST_NEIGHBOR")
      * @return TourDTO with optimized route
@@ -52,9 +75,40 @@ public interface TourService {
     TourDTO getOptimizedTour(Long tourId, String algorithm);
 
     /**
-     * Calculate total distance of the tour
+     * Compute the optimized order of a tour without keeping a transaction open during the computation
+     * @param tourId ID of the tour
+     * @param algorithm Algorithm to use for optimization (e.g., "NEAREST_NEIGHBOR")
+     * @return IDs of the routed deliveries in the optimized order, and the deliveries left out
+     */
+    OptimizedOrderDTO computeOptimizedOrder(Long tourId, String algorithm);
+
+    /**
+     * Save a delivery order computed by {@link #computeOptimizedOrder(Long, String)}
+     * @param tourId ID of the tour
+     * @param order Routed deliveries in their new order, the unassigned ones go after them
+     * @return TourDTO with the new order
+     */
+    TourDTO applyOptimizedOrder(Long tourId, OptimizedOrderDTO order);
+
+    /**
+     * Total distance of the tour, stored whenever the tour is written
      * @param tourId ID of the tour
      * @return Total distance of the tour in kilometers
      */
     TourDistanceDTO getTotalDistance(Long tourId);
+
+    /**
+     * Sum of the distances of every tour
+     * @param date Only tours on this date, null for all
+     * @return Total distance of the tours in kilometers
+     */
+    TourDistanceDTO getFleetDistance(LocalDate date);
+
+    /**
+     * Plan tours for the whole fleet in one pass.
+     * Every pending delivery without a tour is distributed across the vehicles that have no tour on that date.
+     * @param date Date of the planned tours
+     * @return One created tour DTO per vehicle that received deliveries
+     */
+    List<TourDTO> planTours(LocalDate date);
 }
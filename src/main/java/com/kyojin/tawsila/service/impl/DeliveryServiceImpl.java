@@ -1,6 +1,11 @@
 package com.kyojin.tawsila.service.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.kyojin.tawsila.cache.TourResultCache;
+import com.kyojin.tawsila.dto.BulkResultDTO;
 import com.kyojin.tawsila.dto.DeliveryDTO;
+import com.kyojin.tawsila.dto.PageDTO;
+import com.kyojin.tawsila.entity.Delivery;
 import com.kyojin.tawsila.entity.Tour;
 import com.kyojin.tawsila.enums.DeliveryStatus;
 import com.kyojin.tawsila.exception.BadRequestException;
@@ -9,22 +14,43 @@ import com.kyojin.tawsila.mapper.DeliveryMapper;
 import com.kyojin.tawsila.repository.DeliveryRepository;
 import com.kyojin.tawsila.repository.TourRepository;
 import com.kyojin.tawsila.service.DeliveryService;
+import com.kyojin.tawsila.util.PageUtil;
+import com.kyojin.tawsila.util.ParseUtil;
 
+import jakarta.transaction.Transactional;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.core.NestedExceptionUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public class DeliveryServiceImpl implements DeliveryService {
 
     private final DeliveryRepository deliveryRepository;
     private final DeliveryMapper deliveryMapper;
     private final TourRepository tourRepository;
+    private final TourResultCache tourResultCache;
+    private final Validator validator;
+    private final int batchSize;
 
     public DeliveryServiceImpl(DeliveryRepository deliveryRepository,
                                DeliveryMapper deliveryMapper,
-                               TourRepository tourRepository) {
+                               TourRepository tourRepository,
+                               TourResultCache tourResultCache,
+                               Validator validator,
+                               int batchSize) {
         this.deliveryRepository = deliveryRepository;
         this.deliveryMapper = deliveryMapper;
         this.tourRepository = tourRepository;
+        this.tourResultCache = tourResultCache;
+        this.validator = validator;
+        this.batchSize = Math.max(1, batchSize);
     }
 
     @Override
@@ -40,27 +66,104 @@ public class DeliveryServiceImpl implements DeliveryService {
         }
 
         var savedEntity = deliveryRepository.save(deliveryEntity);
+        invalidateTour(savedEntity.getTour());
         return deliveryMapper.toDTO(savedEntity);
     }
 
+    @Override
+    public BulkResultDTO createDeliveries(Iterator<DeliveryDTO> rows) {
+        BulkResultDTO result = new BulkResultDTO();
+        List<Delivery> chunk = new ArrayList<>(batchSize);
+        List<Integer> chunkRows = new ArrayList<>(batchSize);
+
+        int row = 0;
+        while (true) {
+            DeliveryDTO dto;
+            try {
+                if (!rows.hasNext()) break;
+            } catch (RuntimeException e) {
+                // the input cannot be read any further
+                result.getErrors().add(new BulkResultDTO.RowError(row + 1, errorMessage(e)));
+                break;
+            }
+            row++;
+            try {
+                dto = rows.next();
+            } catch (RuntimeException e) {
+                result.getErrors().add(new BulkResultDTO.RowError(row, errorMessage(e)));
+                continue;
+            }
+
+            String error = validateRow(dto);
+            if (error == null) {
+                try {
+                    Delivery delivery = deliveryMapper.toEntity(dto);
+                    delivery.setId(null); // ids always come from the sequence
+                    chunk.add(delivery);
+                    chunkRows.add(row);
+                } catch (IllegalArgumentException e) {
+                    error = "Invalid status value: " + dto.getStatus();
+                }
+            }
+            if (error != null) {
+                result.getErrors().add(new BulkResultDTO.RowError(row, error));
+            }
+
+            if (chunk.size() == batchSize) {
+                insertChunk(chunk, chunkRows, result);
+            }
+        }
+        insertChunk(chunk, chunkRows, result);
+
+        result.setReceived(row);
+        result.getErrors().sort((a, b) -> Integer.compare(a.getRow(), b.getRow()));
+        return result;
+    }
+
     @Override
     public Optional<DeliveryDTO> getDeliveryById(Long id) {
-        return deliveryRepository.findById(id)
+        return deliveryRepository.findWithTourById(id)
                 .map(deliveryMapper::toDTO);
     }
 
     @Override
     public List<DeliveryDTO> getAllDeliveries() {
-        return deliveryRepository.findAll().stream()
+        return deliveryRepository.findAllWithTour().stream()
                 .map(deliveryMapper::toDTO)
                 .toList();
     }
 
+    @Override
+    public PageDTO<DeliveryDTO> getDeliveriesPage(Long afterId, int size, String status, LocalDate date) {
+        DeliveryStatus deliveryStatus = parseStatus(status);
+        // the generic query has optional filters the planner cannot use an index for
+        var page = deliveryStatus != null && date == null
+                ? deliveryRepository.findPageByStatus(deliveryStatus, PageUtil.cursor(afterId), PageUtil.limit(size))
+                : deliveryRepository.findPage(PageUtil.cursor(afterId), deliveryStatus, date, PageUtil.limit(size));
+        var deliveries = page.stream()
+                .map(deliveryMapper::toDTO)
+                .toList();
+        return PageUtil.page(deliveries, size, DeliveryDTO::getId);
+    }
+
+    @Override
+    @Transactional
+    public void exportDeliveries(String status, LocalDate date, Consumer<DeliveryDTO> consumer) {
+        // rows are projections, nothing piles up in the persistence context
+        try (var rows = deliveryRepository.streamRows(parseStatus(status), date)) {
+            rows.map(deliveryMapper::rowToDTO).forEach(consumer);
+        }
+    }
+
     @Override
     public DeliveryDTO updateDelivery(Long deliveryId, DeliveryDTO deliveryDetails) {
         var deliveryEntity = deliveryRepository.findById(deliveryId)
                 .orElseThrow(() -> new NotFoundException("Delivery not found with id: " + deliveryId));
 
+        Tour previousTour = deliveryEntity.getTour();
+        Double previousLatitude = deliveryEntity.getLatitude();
+        Double previousLongitude = deliveryEntity.getLongitude();
+
         deliveryMapper.updateEntityFromDTO(deliveryDetails, deliveryEntity);
 
         // we update the tour if provided
@@ -71,15 +174,27 @@ public class DeliveryServiceImpl implements DeliveryService {
         }
 
         var updatedEntity = deliveryRepository.save(deliveryEntity);
+
+        // only the route depends on the delivery: its position and the tour it is part of
+        Long previousTourId = previousTour != null ? previousTour.getId() : null;
+        Long tourId = updatedEntity.getTour() != null ? updatedEntity.getTour().getId() : null;
+        if (!Objects.equals(previousTourId, tourId)) {
+            invalidateTour(previousTour);
+            invalidateTour(updatedEntity.getTour());
+        } else if (!Objects.equals(previousLatitude, updatedEntity.getLatitude())
+                || !Objects.equals(previousLongitude, updatedEntity.getLongitude())) {
+            invalidateTour(updatedEntity.getTour());
+        }
         return deliveryMapper.toDTO(updatedEntity);
     }
 
     @Override
     public void deleteDelivery(Long id) {
-        deliveryRepository.findById(id)
+        var deliveryEntity = deliveryRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Delivery not found with id: " + id));
 
         deliveryRepository.deleteById(id);
+        invalidateTour(deliveryEntity.getTour());
     }
 
     @Override
@@ -93,7 +208,66 @@ public class DeliveryServiceImpl implements DeliveryService {
             throw new BadRequestException("Invalid status value: " + status);
         }
 
+        // the status is not part of the route, the stored distance and optimized orders still hold
         var updatedEntity = deliveryRepository.save(deliveryEntity);
         return deliveryMapper.toDTO(updatedEntity);
     }
+
+    private String validateRow(DeliveryDTO dto) {
+        if (dto == null) {
+            return "Delivery is required";
+        }
+        if (dto.getTour() != null) {
+            return "Bulk deliveries cannot be assigned to a tour, update them once created";
+        }
+        var violations = validator.validate(dto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .reduce((a, b) -> a + ", " + b)
+                .orElse(null);
+    }
+
+    private void insertChunk(List<Delivery> chunk, List<Integer> chunkRows, BulkResultDTO result) {
+        if (chunk.isEmpty()) return;
+        try {
+            deliveryRepository.insertAll(chunk);
+            result.setCreated(result.getCreated() + chunk.size());
+        } catch (RuntimeException e) {
+            // the whole batch was rolled back, insert its rows one by one to find the failing ones
+            for (int k = 0; k < chunk.size(); k++) {
+                Delivery delivery = chunk.get(k);
+                delivery.setId(null);
+                try {
+                    deliveryRepository.insertAll(List.of(delivery));
+                    result.setCreated(result.getCreated() + 1);
+                } catch (RuntimeException rowError) {
+                    result.getErrors().add(new BulkResultDTO.RowError(chunkRows.get(k), errorMessage(rowError)));
+                }
+            }
+        }
+        chunk.clear();
+        chunkRows.clear();
+    }
+
+    private String errorMessage(RuntimeException e) {
+        if (e.getCause() instanceof JsonProcessingException jsonError) {
+            return jsonError.getOriginalMessage();
+        }
+        return NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+    }
+
+    private void invalidateTour(Tour tour) {
+        if (tour != null) {
+            tourResultCache.invalidateTour(tour.getId());
+            tourRepository.clearTotalDistance(tour.getId());
+        }
+    }
+
+    private DeliveryStatus parseStatus(String status) {
+        return status != null ? ParseUtil.parseType(status, DeliveryStatus.class) : null;
+    }
 }
@@ -0,0 +1,120 @@
+package com.kyojin.tawsila.service.impl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.kyojin.tawsila.dto.OptimizationJobDTO;
+import com.kyojin.tawsila.dto.TourDTO;
+import com.kyojin.tawsila.enums.AlgorithmType;
+import com.kyojin.tawsila.enums.JobStatus;
+import com.kyojin.tawsila.exception.NotFoundException;
+import com.kyojin.tawsila.exception.ServiceUnavailableException;
+import com.kyojin.tawsila.repository.TourRepository;
+import com.kyojin.tawsila.service.OptimizationJobService;
+import com.kyojin.tawsila.service.TourService;
+import com.kyojin.tawsila.util.ParseUtil;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs tour optimizations on a bounded executor instead of the request thread.
+ * <p>
+ * A job reads the tour, computes the new order without holding a transaction or a connection,
+ * then saves the order in a short transaction of its own. Jobs are kept in memory, finished
+ * ones are dropped once they are older than the retention.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class OptimizationJobServiceImpl implements OptimizationJobService {
+
+    private final TourService tourService;
+    private final TourRepository tourRepository;
+    private final Executor optimizationExecutor;
+    private final Duration retention;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    @Override
+    public OptimizationJobDTO submit(Long tourId, String algorithm) {
+        // fail fast on what the caller can fix
+        AlgorithmType type = ParseUtil.parseType(algorithm, AlgorithmType.class);
+        if (!tourRepository.existsById(tourId)) {
+            throw new NotFoundException("Tour not found with id: " + tourId);
+        }
+
+        evictFinishedJobs();
+
+        Job job = new Job(UUID.randomUUID().toString(), tourId, type, Instant.now());
+        jobs.put(job.id, job);
+
+        try {
+            optimizationExecutor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new ServiceUnavailableException("Too many optimization jobs in progress, try again later");
+        }
+
+        return job.toDTO();
+    }
+
+    @Override
+    public Optional<OptimizationJobDTO> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId))
+                .map(Job::toDTO);
+    }
+
+    private void run(Job job) {
+        job.status = JobStatus.RUNNING;
+        try {
+            var order = tourService.computeOptimizedOrder(job.tourId, job.algorithm.name());
+            job.result = tourService.applyOptimizedOrder(job.tourId, order);
+            job.finish(JobStatus.DONE);
+        } catch (RuntimeException e) {
+            log.warn("Optimization job {} for tour {} failed: {}", job.id, job.tourId, e.getMessage());
+            job.error = e.getMessage();
+            job.finish(JobStatus.FAILED);
+        }
+    }
+
+    private void evictFinishedJobs() {
+        Instant limit = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(limit));
+    }
+
+    private static class Job {
+        final String id;
+        final Long tourId;
+        final AlgorithmType algorithm;
+        final Instant submittedAt;
+
+        // written by the worker thread, read by the polling requests
+        volatile JobStatus status = JobStatus.QUEUED;
+        volatile Instant finishedAt;
+        volatile String error;
+        volatile TourDTO result;
+
+        Job(String id, Long tourId, AlgorithmType algorithm, Instant submittedAt) {
+            this.id = id;
+            this.tourId = tourId;
+            this.algorithm = algorithm;
+            this.submittedAt = submittedAt;
+        }
+
+        void finish(JobStatus finalStatus) {
+            finishedAt = Instant.now();
+            status = finalStatus;
+        }
+
+        OptimizationJobDTO toDTO() {
+            return new OptimizationJobDTO(id, tourId, algorithm.name(), status.name(),
+                    submittedAt, finishedAt, error, result);
+        }
+    }
+}
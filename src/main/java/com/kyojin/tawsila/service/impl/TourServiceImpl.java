@@ -1,28 +1,49 @@
 package com.kyojin.tawsila.service.impl;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import com.kyojin.tawsila.cache.TourResultCache;
 import com.kyojin.tawsila.dto.DeliveryDTO;
+import com.kyojin.tawsila.dto.OptimizedOrderDTO;
+import com.kyojin.tawsila.dto.PageDTO;
 import com.kyojin.tawsila.dto.TourDTO;
 import com.kyojin.tawsila.dto.TourDistanceDTO;
+import com.kyojin.tawsila.dto.TourRow;
+import com.kyojin.tawsila.dto.VehicleDTO;
 import com.kyojin.tawsila.entity.Delivery;
 import com.kyojin.tawsila.entity.Tour;
 import com.kyojin.tawsila.entity.Warehouse;
+import com.kyojin.tawsila.entity.Vehicle;
 import com.kyojin.tawsila.enums.AlgorithmType;
+import com.kyojin.tawsila.enums.DeliveryStatus;
 import com.kyojin.tawsila.exception.BadRequestException;
+import com.kyojin.tawsila.exception.ConflictException;
 import com.kyojin.tawsila.exception.NotFoundException;
 import com.kyojin.tawsila.mapper.TourMapper;
+import com.kyojin.tawsila.optimizer.DistanceMatrix;
+import com.kyojin.tawsila.optimizer.DistanceProvider;
+import com.kyojin.tawsila.optimizer.FleetOptimizer;
+import com.kyojin.tawsila.optimizer.OptimizationResult;
+import com.kyojin.tawsila.optimizer.OptimizerMetrics;
+import com.kyojin.tawsila.optimizer.RouteEditor;
 import com.kyojin.tawsila.optimizer.TourOptimizer;
 import com.kyojin.tawsila.repository.DeliveryRepository;
 import com.kyojin.tawsila.repository.TourRepository;
 import com.kyojin.tawsila.repository.VehicleRepository;
 import com.kyojin.tawsila.service.TourService;
-import com.kyojin.tawsila.util.DistanceCalculator;
+import com.kyojin.tawsila.util.PageUtil;
 import com.kyojin.tawsila.util.ParseUtil;
+import com.kyojin.tawsila.util.TourFingerprint;
 import com.kyojin.tawsila.util.TourValidator;
 
 import jakarta.transaction.Transactional;
@@ -38,6 +59,14 @@ public class TourServiceImpl implements TourService {
     private final Warehouse warehouse;
     private final TourOptimizer nearestNeighborOptimizer;
     private final TourOptimizer clarkeWrightOptimizer;
+    private final TourOptimizer nearestNeighbor2OptOptimizer;
+    private final TourOptimizer clarkeWright2OptOptimizer;
+    private final TourOptimizer timeWindowOptimizer;
+    private final FleetOptimizer fleetOptimizer;
+    private final TourResultCache tourResultCache;
+    private final OptimizerMetrics optimizerMetrics;
+    private final RouteEditor routeEditor;
+    private final DistanceProvider distanceProvider;
 
     @Override
     @Transactional
@@ -56,6 +85,7 @@ public class TourServiceImpl implements TourService {
         }
 
         TourValidator.validateCapactity(tour);
+        storeDistances(tour);
 
         var savedTour = tourRepository.save(tour);
 
@@ -64,17 +94,51 @@ public class TourServiceImpl implements TourService {
 
     @Override
     public Optional<TourDTO> getTourById(Long id) {
-        return tourRepository.findById(id)
+        return tourRepository.findWithDeliveriesById(id)
                 .map(tourMapper::toDTO);
     }
 
     @Override
     public List<TourDTO> getAllTours() {
-        return tourRepository.findAll().stream()
+        return tourRepository.findAllWithDeliveries().stream()
                 .map(tourMapper::toDTO)
                 .toList();
     }
 
+    @Override
+    public PageDTO<TourDTO> getToursPage(Long afterId, int size, LocalDate date) {
+        var ids = tourRepository.findPageIds(PageUtil.cursor(afterId), date, PageUtil.limit(size));
+        if (ids.isEmpty()) {
+            return new PageDTO<>(List.of(), null);
+        }
+
+        var tours = tourRepository.findAllWithDeliveriesByIdIn(ids).stream()
+                .map(tourMapper::toDTO)
+                .toList();
+        // the cursor comes from the ids, a tour deleted in between does not end the listing
+        return new PageDTO<>(tours, PageUtil.page(ids, size, id -> id).getNextCursor());
+    }
+
+    @Override
+    @Transactional
+    public void exportTours(LocalDate date, Consumer<TourDTO> consumer) {
+        // rows are projections, only the tour being assembled is held in memory
+        try (var rows = tourRepository.streamRows(date)) {
+            TourDTO current = null;
+            for (var it = rows.iterator(); it.hasNext(); ) {
+                TourRow row = it.next();
+                if (current == null || !current.getId().equals(row.getTourId())) {
+                    if (current != null) consumer.accept(current);
+                    current = rowToTourDTO(row);
+                }
+                if (row.getDeliveryId() != null) {
+                    current.getDeliveries().add(rowToDeliveryDTO(row));
+                }
+            }
+            if (current != null) consumer.accept(current);
+        }
+    }
+
     @Override
     @Transactional
     public TourDTO updateTour(Long id, TourDTO dto) {
@@ -92,17 +156,26 @@ public class TourServiceImpl implements TourService {
         }
 
         if (dto.getDeliveries() != null) {
-            if (tour.getDeliveries() != null) {
-                tour.getDeliveries().forEach(d -> d.setTour(null));
-            }
+            List<Delivery> current = tour.getDeliveries() != null ? tour.getDeliveries() : new ArrayList<>();
+            current.forEach(d -> {
+                d.setTour(null);
+                d.setLegDistanceKm(null);
+            });
 
             var updatedDeliveries = findAndLinkDeliveries(dto.getDeliveries(), tour);
-            tour.setDeliveries(updatedDeliveries);
+            var route = editRoute(current, updatedDeliveries);
+
+            // the managed collection is edited in place, Hibernate tracks it
+            current.clear();
+            current.addAll(route);
+            tour.setDeliveries(current);
         }
 
         TourValidator.validateCapactity(tour);
+        storeDistances(tour);
 
         var updatedTour = tourRepository.save(tour);
+        tourResultCache.invalidateTour(id);
         return tourMapper.toDTO(updatedTour);
     }
 
@@ -114,6 +187,7 @@ public class TourServiceImpl implements TourService {
                 .orElseThrow(() -> new NotFoundException("Tour not found with id: " + id));
 
         tourRepository.deleteById(id);
+        tourResultCache.invalidateTour(id);
     }
 
     @Override
@@ -131,69 +205,335 @@ public class TourServiceImpl implements TourService {
             return tourMapper.toDTO(tour);
         }
 
-        TourOptimizer optimizer = switch (type) {
-            case NEAREST_NEIGHBOR -> nearestNeighborOptimizer;
-            case CLARKE_WRIGHT -> clarkeWrightOptimizer;
-        };
+        var optimizedOrder = optimizedOrder(tourId, type, deliveries, vehicle);
+
+        // a tour already in that order, optimized by a concurrent request for instance, is not written again
+        if (applyOrder(deliveries, optimizedOrder) || tour.getTotalDistanceKm() == null) {
+            storeDistances(tour, optimizedOrder.getLegDistancesKm());
+            tour = tourRepository.save(tour);
+        }
+
+        return withUnassigned(tourMapper.toDTO(tour), optimizedOrder);
+    }
+
+
+    @Override
+    public OptimizedOrderDTO computeOptimizedOrder(Long tourId, String algorithm) {
+        AlgorithmType type = ParseUtil.parseType(algorithm, AlgorithmType.class);
+
+        // the repository call is its own short read, the computation below holds no connection
+        var tour = tourRepository.findWithDeliveriesById(tourId)
+                .orElseThrow(() -> new NotFoundException("Tour not found with id: " + tourId));
+
+        var deliveries = tour.getDeliveries();
+        if (deliveries == null || deliveries.isEmpty()) {
+            return new OptimizedOrderDTO(List.of(), List.of(), tour.getVersion(), null);
+        }
+
+        // the cached order is shared, the version is the one of this read
+        var order = optimizedOrder(tourId, type, deliveries, tour.getVehicle());
+        return new OptimizedOrderDTO(order.getDeliveryIds(), order.getUnassigned(), tour.getVersion(),
+                order.getLegDistancesKm());
+    }
+
+
+    @Override
+    @Transactional
+    public TourDTO applyOptimizedOrder(Long tourId, OptimizedOrderDTO order) {
+        var tour = tourRepository.findById(tourId)
+                .orElseThrow(() -> new NotFoundException("Tour not found with id: " + tourId));
 
-        var optimizedDeliveries = optimizer.calculateOptimalTour(warehouse, deliveries, vehicle);
+        var deliveries = tour.getDeliveries();
+        if (deliveries == null || deliveries.isEmpty()) {
+            return tourMapper.toDTO(tour);
+        }
 
-//        tour.getDeliveries().clear();
-//        tour.getDeliveries().addAll(optimizedDeliveries);
+        // the tour may have been written while the order was computed
+        if (order.getTourVersion() != null && !order.getTourVersion().equals(tour.getVersion())) {
+            throw new ConflictException("Tour " + tourId + " was modified while it was being optimized");
+        }
 
-        tour.getDeliveries().sort(Comparator.comparingInt(optimizedDeliveries::indexOf));
+        // the deliveries may have changed while the order was computed
+        Set<Long> currentIds = deliveries.stream()
+                .map(Delivery::getId)
+                .collect(Collectors.toSet());
+        List<Long> orderIds = new ArrayList<>(order.getDeliveryIds());
+        order.getUnassigned().forEach(u -> orderIds.add(u.getDeliveryId()));
+        if (deliveries.size() != orderIds.size() || !currentIds.containsAll(orderIds)) {
+            throw new ConflictException("Tour " + tourId + " was modified while it was being optimized");
+        }
 
-        var optimizedTour = tourRepository.save(tour);
+        if (applyOrder(deliveries, order) || tour.getTotalDistanceKm() == null) {
+            storeDistances(tour, order.getLegDistancesKm());
+            tour = tourRepository.save(tour);
+        }
 
-        return tourMapper.toDTO(optimizedTour);
+        return withUnassigned(tourMapper.toDTO(tour), order);
     }
 
 
     @Override
     @Transactional
     public TourDistanceDTO getTotalDistance(Long tourId) {
+        // stored whenever the tour is written, a single column read
+        var stored = tourRepository.findTotalDistanceKmById(tourId);
+        if (stored.isPresent()) {
+            return tourMapper.toDistanceDTO(stored.get());
+        }
+
         var tour = tourRepository.findById(tourId)
                 .orElseThrow(() -> new NotFoundException("Tour not found with id: " + tourId));
 
+        // a delivery changed since the distance was stored, or the tour predates it
+        return tourMapper.toDistanceDTO(refreshDistances(tour));
+    }
+
+
+    @Override
+    @Transactional
+    public TourDistanceDTO getFleetDistance(LocalDate date) {
+        // only the tours changed through their deliveries are loaded, the rest is summed by the database
+        tourRepository.findAllWithoutTotalDistance(date).forEach(this::refreshDistances);
+        return tourMapper.toDistanceDTO(tourRepository.sumTotalDistanceKm(date));
+    }
+
+
+    @Override
+    @Transactional
+    public List<TourDTO> planTours(LocalDate date) {
+        // pending deliveries that are not already part of a tour
+        List<Delivery> pending = deliveryRepository.findAllByStatusAndTourIsNull(DeliveryStatus.PENDING);
+
+        // vehicles that are not already used on that date
+        Set<Long> busyVehicleIds = tourRepository.findAllByDate(date).stream()
+                .map(t -> t.getVehicle().getId())
+                .collect(Collectors.toSet());
+        List<Vehicle> vehicles = vehicleRepository.findAll().stream()
+                .filter(v -> !busyVehicleIds.contains(v.getId()))
+                .toList();
+
+        if (pending.isEmpty() || vehicles.isEmpty()) {
+            return List.of();
+        }
+
+        // the fleet optimizer builds its own matrices, large batches are split before
+        List<List<Delivery>> routes = optimizerMetrics.time("FLEET", "ALL",
+                () -> fleetOptimizer.planFleet(warehouse, pending, vehicles, distanceProvider));
+        optimizerMetrics.deliveries("FLEET", pending.size(), routes.stream().mapToInt(List::size).sum());
+
+        List<Tour> tours = new ArrayList<>();
+        for (int v = 0; v < vehicles.size(); v++) {
+            List<Delivery> route = routes.get(v);
+            if (route.isEmpty()) continue;
+
+            Tour tour = new Tour();
+            tour.setDate(date);
+            tour.setVehicle(vehicles.get(v));
+            tour.setDeliveries(new ArrayList<>(route));
+            route.forEach(d -> d.setTour(tour));
+
+            TourValidator.validateCapactity(tour);
+            storeDistances(tour);
+            tours.add(tour);
+        }
+
+        return tourRepository.saveAll(tours).stream()
+                .map(tourMapper::toDTO)
+                .toList();
+    }
+
+
+    private TourDTO rowToTourDTO(TourRow row) {
+        var vehicle = new VehicleDTO(row.getVehicleId(), row.getVehicleType().name(),
+                row.getMaxWeightKg(), row.getMaxVolumeM3(), row.getMaxDeliveries());
+        return new TourDTO(row.getTourId(), row.getDate(), vehicle, new ArrayList<>(), null);
+    }
+
+
+    private DeliveryDTO rowToDeliveryDTO(TourRow row) {
+        var tour = new DeliveryDTO.TourEmbeddedDTO(row.getTourId(), row.getDate(), row.getVehicleId());
+        return new DeliveryDTO(row.getDeliveryId(), row.getLatitude(), row.getLongitude(), row.getWeightKg(),
+                row.getVolumeM3(), row.getTimeSlot(), row.getStatus() != null ? row.getStatus().name() : null, tour);
+    }
+
+
+    /**
+     * Keeps the current visiting order: deliveries that are gone are spliced out and new ones
+     * are inserted where they cost the least, instead of optimizing the whole tour again.
+     */
+    private List<Delivery> editRoute(List<Delivery> current, List<Delivery> updated) {
+        Set<Long> updatedIds = updated.stream()
+                .map(Delivery::getId)
+                .collect(Collectors.toSet());
+        Set<Long> currentIds = current.stream()
+                .map(Delivery::getId)
+                .collect(Collectors.toSet());
+
+        List<Long> removedIds = currentIds.stream()
+                .filter(id -> !updatedIds.contains(id))
+                .toList();
+        List<Delivery> added = updated.stream()
+                .filter(d -> !currentIds.contains(d.getId()))
+                .toList();
+
+        var route = routeEditor.remove(current, removedIds);
+        return routeEditor.insert(warehouse, route, added);
+    }
+
+
+    /**
+     * Puts the deliveries in the optimized order in one pass, the unassigned ones last.
+     * The managed collection is edited in place, Hibernate tracks it.
+     * @return false when the deliveries were already in that order and were left untouched
+     */
+    private boolean applyOrder(List<Delivery> deliveries, OptimizedOrderDTO order) {
+        Map<Long, Delivery> byId = new HashMap<>();
+        deliveries.forEach(d -> byId.put(d.getId(), d));
+
+        List<Delivery> route = new ArrayList<>(deliveries.size());
+        order.getDeliveryIds().forEach(id -> route.add(byId.get(id)));
+        order.getUnassigned().forEach(u -> route.add(byId.get(u.getDeliveryId())));
+
+        if (route.equals(deliveries)) return false;
+        deliveries.clear();
+        deliveries.addAll(route);
+        return true;
+    }
+
+
+    private TourDTO withUnassigned(TourDTO dto, OptimizedOrderDTO order) {
+        dto.setUnassigned(order.getUnassigned());
+        return dto;
+    }
+
+
+    /**
+     * Stores the distance of every leg on its delivery and the route total on the tour, so reading
+     * them does not load the deliveries.
+     */
+    private void storeDistances(Tour tour) {
+        storeDistances(tour, null);
+    }
+
+
+    /**
+     * @param routedLegs legs of the optimized order the tour was just put in, they are not computed again
+     */
+    private void storeDistances(Tour tour, double[] routedLegs) {
         var deliveries = tour.getDeliveries();
+        double[] legs = legDistances(deliveries, routedLegs);
+        for (int i = 0; i < legs.length - 1; i++) {
+            deliveries.get(i).setLegDistanceKm(legs[i]);
+        }
+        tour.setTotalDistanceKm(Arrays.stream(legs).sum());
+    }
 
-        if (deliveries == null || deliveries.isEmpty()) {
-            return tourMapper.toDistanceDTO(0.0);
+
+    /**
+     * Computes the distances of a tour being read. The tour is left untouched, a write would
+     * increment its version, the total is stored by a separate update that does not.
+     * @return the route total
+     */
+    private double refreshDistances(Tour tour) {
+        var deliveries = tour.getDeliveries();
+        double[] legs = legDistances(deliveries, null);
+        double totalDistance = Arrays.stream(legs).sum();
+
+        // the tour was not written since it was read, its row stays locked until the commit
+        if (tourRepository.storeTotalDistance(tour.getId(), tour.getVersion(), totalDistance) > 0) {
+            for (int i = 0; i < legs.length - 1; i++) {
+                deliveries.get(i).setLegDistanceKm(legs[i]);
+            }
         }
+        return totalDistance;
+    }
 
 
-        // sum of the distances
-        double totalDistance = 0.0;
+    /**
+     * @param known legs of the first deliveries, as in {@link OptimizedOrderDTO#getLegDistancesKm()}, may be null
+     * @return the distance to each delivery from the previous stop, then from the last one back
+     * to the warehouse; empty without deliveries
+     */
+    private double[] legDistances(List<Delivery> deliveries, double[] known) {
+        if (deliveries == null || deliveries.isEmpty()) {
+            return new double[0];
+        }
+
+        double[] legs = new double[deliveries.size() + 1];
+        // the routed deliveries come first, the unassigned ones after them and before the way back
+        int from = 0;
+        if (known != null && known.length == legs.length) {
+            return known.clone();
+        } else if (known != null && known.length > 1) {
+            from = known.length - 1;
+            System.arraycopy(known, 0, legs, 0, from);
+        }
 
-        // storing the previous distances
-        double prevLat = warehouse.getLatitude();
-        double prevLon = warehouse.getLongitude();
+        optimizerMetrics.distanceCalculations(legs.length - from);
+        // the total is reported, an approximation used to rank candidates is not enough here
+        DistanceProvider exact = distanceProvider.exact();
 
+        double prevLat = from == 0 ? warehouse.getLatitude() : deliveries.get(from - 1).getLatitude();
+        double prevLon = from == 0 ? warehouse.getLongitude() : deliveries.get(from - 1).getLongitude();
 
-        // calculate distance from warehouse to first delivery
-        for (var delivery : deliveries) {
-            totalDistance += DistanceCalculator.calculateDistance(
-                    prevLat,
-                    prevLon.getLongitude(),
-                    delivery.getLatitude(),
-                    delivery.getLongitude()
-            );
+        for (int i = from; i < deliveries.size(); i++) {
+            var delivery = deliveries.get(i);
+            legs[i] = exact.distance(prevLat, prevLon, delivery.getLatitude(), delivery.getLongitude());
 
-            // update previous location to current delivery
             prevLat = delivery.getLatitude();
             prevLon = delivery.getLongitude();
         }
 
+        // back to the warehouse
+        legs[deliveries.size()] = exact.distance(prevLat, prevLon, warehouse.getLatitude(), warehouse.getLongitude());
+        return legs;
+    }
+
+
+    private OptimizedOrderDTO optimizedOrder(Long tourId, AlgorithmType type, List<Delivery> deliveries, Vehicle vehicle) {
+        // the same deliveries, vehicle and algorithm give the same order, except with multi-start
+        // where the starts finished by the deadline depend on the load: the first result is kept
+        String fingerprint = TourFingerprint.forOptimization(type, vehicle, deliveries);
+        return tourResultCache.get(tourId, fingerprint, () -> {
+            // like the fingerprint, the optimizer does not see the current order
+            List<Delivery> byId = deliveries.stream()
+                    .sorted(Comparator.comparing(Delivery::getId))
+                    .toList();
+            return toOrder(byId, optimize(type, byId, vehicle));
+        });
+    }
+
+
+    private OptimizedOrderDTO toOrder(List<Delivery> deliveries, OptimizationResult result) {
+        List<Long> ids = Arrays.stream(result.order())
+                .mapToObj(i -> deliveries.get(i).getId())
+                .toList();
+        List<TourDTO.UnassignedDeliveryDTO> unassigned = result.unassigned().stream()
+                .map(u -> new TourDTO.UnassignedDeliveryDTO(deliveries.get(u.delivery()).getId(), u.reason().name()))
+                .toList();
+        return new OptimizedOrderDTO(ids, unassigned, null, result.legs());
+    }
+
+
+    private OptimizationResult optimize(AlgorithmType type, List<Delivery> deliveries, Vehicle vehicle) {
+        TourOptimizer optimizer = switch (type) {
+            case NEAREST_NEIGHBOR -> nearestNeighborOptimizer;
+            case CLARKE_WRIGHT -> clarkeWrightOptimizer;
+            case NEAREST_NEIGHBOR_2OPT -> nearestNeighbor2OptOptimizer;
+            case CLARKE_WRIGHT_2OPT -> clarkeWright2OptOptimizer;
+            case TIME_WINDOWS -> timeWindowOptimizer;
+        };
 
-        // marking the final distance to the warehouse
-        totalDistance += DistanceCalculator.calculateDistance(
-                prevLat,
-                prevLon,
-                warehouse.getLatitude(),
-                warehouse.getLongitude()
-        );
+        String vehicleType = vehicle != null && vehicle.getType() != null ? vehicle.getType().name() : "NONE";
+        OptimizationResult result = optimizerMetrics.time(type.name(), vehicleType, () -> {
+            // distances are computed once here and shared by the optimizer
+            var matrix = DistanceMatrix.of(warehouse, deliveries, distanceProvider);
+            optimizerMetrics.distanceMatrix(matrix);
+            return optimizer.optimize(warehouse, deliveries, vehicle, matrix);
+        });
 
-        return tourMapper.toDistanceDTO(totalDistance);
+        optimizerMetrics.deliveries(type.name(), deliveries.size(), result.order().length);
+        return result;
     }
 
 
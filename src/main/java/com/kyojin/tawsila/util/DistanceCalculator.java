@@ -2,7 +2,7 @@ package com.kyojin.tawsila.util;
 
 public class DistanceCalculator {
 
-    private static final double EARTH_RADIUS_KM = 6371.0;
+    public static final double EARTH_RADIUS_KM = 6371.0;
 
     private DistanceCalculator() {
     }
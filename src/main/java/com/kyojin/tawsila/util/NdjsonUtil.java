@@ -0,0 +1,35 @@
+package com.kyojin.tawsila.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+public class NdjsonUtil {
+
+    private NdjsonUtil() {
+    }
+
+    /**
+     * Streams the exported items as newline-delimited JSON, each one is written as soon as it is produced.
+     *
+     * @param export receives the consumer that writes one item to the response
+     */
+    public static <T> ResponseEntity<StreamingResponseBody> stream(ObjectMapper objectMapper, Consumer<Consumer<T>> export) {
+        StreamingResponseBody body = out -> export.accept(item -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(item));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
@@ -0,0 +1,38 @@
+package com.kyojin.tawsila.util;
+
+import com.kyojin.tawsila.dto.PageDTO;
+import com.kyojin.tawsila.exception.BadRequestException;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.function.Function;
+
+public class PageUtil {
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private PageUtil() {
+    }
+
+    public static Limit limit(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE + ", got " + size);
+        }
+        return Limit.of(size);
+    }
+
+    /**
+     * The first id is 1, so 0 seeks from the beginning.
+     */
+    public static long cursor(Long afterId) {
+        return afterId != null ? afterId : 0L;
+    }
+
+    /**
+     * Builds the page, a full page may be followed by another one so it gets a cursor.
+     */
+    public static <T> PageDTO<T> page(List<T> items, int size, Function<T, Long> id) {
+        Long nextCursor = items.size() == size ? id.apply(items.get(items.size() - 1)) : null;
+        return new PageDTO<>(items, nextCursor);
+    }
+}
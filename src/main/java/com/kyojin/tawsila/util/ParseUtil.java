@@ -3,6 +3,8 @@ package com.kyojin.tawsila.util;
 import com.kyojin.tawsila.enums.VehicleType;
 import com.kyojin.tawsila.exception.BadRequestException;
 
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
 import java.util.Arrays;
 import java.util.stream.Collectors;
 
@@ -35,4 +37,25 @@ public class ParseUtil {
                                         .toList())
                 ));
     }
+
+    /**
+     * Parses a time slot such as "09:00-12:00" into minutes since midnight.
+     *
+     * @return {start, end}, or null when there is no slot
+     */
+    public static int[] parseTimeSlot(String slot) {
+        if (slot == null || slot.isBlank()) return null;
+
+        int dash = slot.indexOf('-');
+        try {
+            if (dash > 0) {
+                int start = LocalTime.parse(slot.substring(0, dash).trim()).toSecondOfDay() / 60;
+                int end = LocalTime.parse(slot.substring(dash + 1).trim()).toSecondOfDay() / 60;
+                if (start <= end) return new int[]{start, end};
+            }
+        } catch (DateTimeParseException e) {
+            // reported below
+        }
+        throw new BadRequestException("Invalid time slot: " + slot + ". Expected HH:mm-HH:mm");
+    }
 }
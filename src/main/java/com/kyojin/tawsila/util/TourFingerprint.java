@@ -0,0 +1,78 @@
+package com.kyojin.tawsila.util;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Vehicle;
+import com.kyojin.tawsila.enums.AlgorithmType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Fingerprints of the tour content a computed result depends on.
+ * Two tours with the same fingerprint give the same result, whatever happened to them in between.
+ */
+public class TourFingerprint {
+
+    private TourFingerprint() {
+    }
+
+    /**
+     * The optimized order depends on the set of deliveries, not on their current order.
+     */
+    public static String forOptimization(AlgorithmType algorithm, Vehicle vehicle, List<Delivery> deliveries) {
+        Digest digest = new Digest("optimize:" + algorithm.name());
+        digest.putString(vehicle.getType() != null ? vehicle.getType().name() : "");
+        digest.putLong(vehicle.getMaxDeliveries());
+
+        deliveries.stream()
+                .sorted(Comparator.comparing(Delivery::getId))
+                .forEach(digest::putDelivery);
+        return digest.hex();
+    }
+
+    private static class Digest {
+        private final MessageDigest sha;
+        private final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+
+        Digest(String kind) {
+            try {
+                this.sha = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e); // every JVM ships SHA-256
+            }
+            putString(kind);
+        }
+
+        void putDelivery(Delivery d) {
+            putLong(d.getId());
+            putDouble(d.getLatitude());
+            putDouble(d.getLongitude());
+            putDouble(d.getWeightKg());
+            putDouble(d.getVolumeM3());
+            putString(d.getTimeSlot() != null ? d.getTimeSlot() : "");
+        }
+
+        void putString(String value) {
+            sha.update(value.getBytes(StandardCharsets.UTF_8));
+            sha.update((byte) 0);
+        }
+
+        void putLong(long value) {
+            buffer.clear();
+            sha.update(buffer.putLong(value).array());
+        }
+
+        void putDouble(double value) {
+            putLong(Double.doubleToLongBits(value));
+        }
+
+        String hex() {
+            return HexFormat.of().formatHex(sha.digest());
+        }
+    }
+}
@@ -26,39 +26,22 @@ public class TourValidator {
 
         int totalDeliveries = deliveries.size();
 
-//        if (totalWeight > vehicle.getMaxWeightKg()) {
-//            throw new CapacityExceededException("Total weight of deliveries " + totalWeight +
-//                    " kg exceeds vehicle's maximum weight capacity " + vehicle.getMaxWeightKg() + " kg.");
-//        }
-//
-//        if (totalVolume > vehicle.getMaxVolumeM3()) {
-//            throw new CapacityExceededException("Total volume of deliveries " + totalVolume +
-//                    " m3 exceeds vehicle's maximum volume capacity " + vehicle.getMaxVolumeM3() + " m3.");
-//        }
-//
-//        if (totalDeliveries > vehicle.getMaxDeliveries()) {
-//            throw new MaxDeliveriesExceededException("Total number of deliveries " + totalDeliveries +
-//                    " exceeds vehicle's maximum delivery count " + vehicle.getMaxDeliveries() + ".");
-//        }
-
-
+        // the vehicle carries its own limits (initialized from its type), we check against those
         VehicleType type = vehicle.getType();
 
-        if (!type.canHandle(totalWeight, totalVolume, totalDeliveries)) {
-            if (totalWeight > type.getMaxWeightKg()) {
-                throw new CapacityExceededException("Total weight " + totalWeight +
-                        " kg exceeds " + type + " max of " + type.getMaxWeightKg() + " kg.");
-            }
+        if (totalWeight > vehicle.getMaxWeightKg()) {
+            throw new CapacityExceededException("Total weight " + totalWeight +
+                    " kg exceeds " + type + " max of " + vehicle.getMaxWeightKg() + " kg.");
+        }
 
-            if (totalVolume > type.getMaxVolumeM3()) {
-                throw new CapacityExceededException("Total volume " + totalVolume +
-                        " m3 exceeds " + type + " max of " + type.getMaxVolumeM3() + " m3.");
-            }
+        if (totalVolume > vehicle.getMaxVolumeM3()) {
+            throw new CapacityExceededException("Total volume " + totalVolume +
+                    " m3 exceeds " + type + " max of " + vehicle.getMaxVolumeM3() + " m3.");
+        }
 
-            if (totalDeliveries > type.getMaxDeliveries()) {
-                throw new MaxDeliveriesExceededException("Total deliveries " + totalDeliveries +
-                        " exceeds " + type + " max of " + type.getMaxDeliveries() + ".");
-            }
+        if (totalDeliveries > vehicle.getMaxDeliveries()) {
+            throw new MaxDeliveriesExceededException("Total deliveries " + totalDeliveries +
+                    " exceeds " + type + " max of " + vehicle.getMaxDeliveries() + ".");
         }
     }
 }
@@ -0,0 +1,89 @@
+package com.kyojin.tawsila.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TourResultCacheTest {
+
+    @Test
+    void testComputesOncePerFingerprint() {
+        TourResultCache cache = new TourResultCache(100, Duration.ofMinutes(10));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        AtomicInteger computations = new AtomicInteger();
+
+        assertEquals(12.5, cache.get(1L, "a", () -> compute(computations, 12.5)));
+        assertEquals(12.5, cache.get(1L, "a", () -> compute(computations, 99.0)));
+        assertEquals(7.0, cache.get(1L, "b", () -> compute(computations, 7.0)));
+        assertEquals(2, computations.get());
+
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "tourResults").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(2.0, registry.get("cache.gets").tag("cache", "tourResults").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    void testInvalidateTourOnlyDropsThatTour() {
+        TourResultCache cache = new TourResultCache(100, Duration.ofMinutes(10));
+        AtomicInteger computations = new AtomicInteger();
+        cache.get(1L, "a", () -> compute(computations, 1.0));
+        cache.get(2L, "a", () -> compute(computations, 2.0));
+
+        cache.invalidateTour(1L);
+
+        assertEquals(3.0, cache.get(1L, "a", () -> compute(computations, 3.0)));
+        assertEquals(2.0, cache.get(2L, "a", () -> compute(computations, 4.0)));
+        assertEquals(3, computations.get());
+    }
+
+    @Test
+    void testConcurrentMissesShareOneComputation() throws Exception {
+        TourResultCache cache = new TourResultCache(100, Duration.ofMinutes(10));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Double> first = CompletableFuture.supplyAsync(() -> cache.get(1L, "a", () -> {
+            started.countDown();
+            await(release);
+            return compute(computations, 5.0);
+        }));
+        started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<Double> second = CompletableFuture.supplyAsync(
+                () -> cache.get(1L, "a", () -> compute(computations, 6.0)));
+
+        // the second caller is waiting on the first computation
+        while (registry.get("cache.shared").tag("cache", "tourResults").functionCounter().count() < 1) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        assertEquals(5.0, first.get(5, TimeUnit.SECONDS));
+        assertEquals(5.0, second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, computations.get());
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private double compute(AtomicInteger computations, double value) {
+        computations.incrementAndGet();
+        return value;
+    }
+}
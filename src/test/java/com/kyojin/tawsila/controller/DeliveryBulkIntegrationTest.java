@@ -0,0 +1,70 @@
+package com.kyojin.tawsila.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kyojin.tawsila.dto.BulkResultDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class DeliveryBulkIntegrationTest {
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+
+    public DeliveryBulkIntegrationTest() {
+        MockServletContext servletContext = new MockServletContext();
+        GenericWebApplicationContext webContext = new GenericWebApplicationContext(servletContext);
+        new XmlBeanDefinitionReader(webContext).loadBeanDefinitions(new ClassPathResource("applicationContext-test.xml"));
+        webContext.refresh();
+
+        this.mockMvc = MockMvcBuilders.webAppContextSetup(webContext).build();
+        this.objectMapper = webContext.getBean(ObjectMapper.class);
+    }
+
+    @Test
+    void testBulkFromJsonArray() throws Exception {
+        String body = """
+                [
+                  {"latitude": 33.58, "longitude": -7.60, "weightKg": 5, "volumeM3": 0.2},
+                  {"latitude": 33.59, "longitude": -7.61, "volumeM3": 0.2},
+                  {"latitude": 33.60, "longitude": -7.62, "weightKg": 5, "volumeM3": 0.2, "status": "DELIVERED"}
+                ]
+                """;
+
+        BulkResultDTO result = bulk(body, "application/json");
+
+        assertThat(result.getReceived()).isEqualTo(3);
+        assertThat(result.getCreated()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting(BulkResultDTO.RowError::getRow).containsExactly(2);
+    }
+
+    @Test
+    void testBulkFromNdjsonKeepsGoingAfterABadRow() throws Exception {
+        String body = """
+                {"latitude": 33.58, "longitude": -7.60, "weightKg": 5, "volumeM3": 0.2}
+                {"latitude": "north", "longitude": -7.61, "weightKg": 5, "volumeM3": 0.2}
+                {"latitude": 33.60, "longitude": -7.62, "weightKg": 5, "volumeM3": 0.2}
+                """;
+
+        BulkResultDTO result = bulk(body, "application/x-ndjson");
+
+        assertThat(result.getReceived()).isEqualTo(3);
+        assertThat(result.getCreated()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting(BulkResultDTO.RowError::getRow).containsExactly(2);
+    }
+
+    private BulkResultDTO bulk(String body, String contentType) throws Exception {
+        String response = mockMvc.perform(post("/deliveries/bulk").contentType(contentType).content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, BulkResultDTO.class);
+    }
+}
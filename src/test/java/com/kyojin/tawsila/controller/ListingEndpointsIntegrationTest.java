@@ -0,0 +1,178 @@
+package com.kyojin.tawsila.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.kyojin.tawsila.dto.DeliveryDTO;
+import com.kyojin.tawsila.dto.PageDTO;
+import com.kyojin.tawsila.dto.TourDTO;
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Tour;
+import com.kyojin.tawsila.entity.Vehicle;
+import com.kyojin.tawsila.enums.DeliveryStatus;
+import com.kyojin.tawsila.enums.VehicleType;
+import com.kyojin.tawsila.repository.TourRepository;
+import com.kyojin.tawsila.repository.VehicleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ListingEndpointsIntegrationTest {
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+    private final TourRepository tourRepository;
+    private final VehicleRepository vehicleRepository;
+
+    // a date no other test uses, the database is shared between test classes
+    private LocalDate date;
+
+    public ListingEndpointsIntegrationTest() {
+        MockServletContext servletContext = new MockServletContext();
+        GenericWebApplicationContext webContext = new GenericWebApplicationContext(servletContext);
+        new XmlBeanDefinitionReader(webContext).loadBeanDefinitions(new ClassPathResource("applicationContext-test.xml"));
+        webContext.refresh();
+
+        this.mockMvc = MockMvcBuilders.webAppContextSetup(webContext).build();
+        this.objectMapper = webContext.getBean(ObjectMapper.class);
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.tourRepository = webContext.getBean(TourRepository.class);
+        this.vehicleRepository = webContext.getBean(VehicleRepository.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        date = LocalDate.of(2030, 1, 1).plusDays(tourRepository.count());
+        // 5 tours of 3 deliveries, the second delivery of every tour is delivered
+        for (int t = 0; t < 5; t++) {
+            createTour(t);
+        }
+    }
+
+    @Test
+    void testToursPagesFollowTheCursor() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        Long cursor = null;
+        int pages = 0;
+        do {
+            var request = get("/tours/page").param("size", "2").param("date", date.toString());
+            if (cursor != null) request.param("afterId", cursor.toString());
+            MvcResult result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+
+            PageDTO<TourDTO> page = objectMapper.readValue(result.getResponse().getContentAsString(),
+                    new TypeReference<>() {});
+            page.getItems().forEach(tour -> {
+                assertThat(tour.getDate()).isEqualTo(date);
+                assertThat(tour.getDeliveries()).hasSize(3);
+                ids.add(tour.getId());
+            });
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(ids).hasSize(5).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void testDeliveriesPageFiltersByStatusAndDate() throws Exception {
+        MvcResult result = mockMvc.perform(get("/deliveries/page")
+                        .param("status", "delivered")
+                        .param("date", date.toString()))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        PageDTO<DeliveryDTO> page = objectMapper.readValue(result.getResponse().getContentAsString(),
+                new TypeReference<>() {});
+        assertThat(page.getItems()).hasSize(5)
+                .allMatch(d -> d.getStatus().equals("DELIVERED") && d.getTour().getDate().equals(date));
+        assertThat(page.getNextCursor()).isNull();
+
+        mockMvc.perform(get("/deliveries/page").param("size", "0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/deliveries/page").param("status", "LOST")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testDeliveriesPagesOfOneStatusFollowTheCursor() throws Exception {
+        List<DeliveryDTO> deliveries = new ArrayList<>();
+        Long cursor = null;
+        do {
+            var request = get("/deliveries/page").param("status", "delivered").param("size", "2");
+            if (cursor != null) request.param("afterId", cursor.toString());
+            MvcResult result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+            PageDTO<DeliveryDTO> page = objectMapper.readValue(result.getResponse().getContentAsString(),
+                    new TypeReference<>() {});
+            deliveries.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        // at least the ones created for this test, the database is shared
+        assertThat(deliveries).hasSizeGreaterThanOrEqualTo(5)
+                .allMatch(d -> d.getStatus().equals("DELIVERED"));
+        assertThat(deliveries.stream().map(DeliveryDTO::getId).toList()).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void testExportsStreamOneJsonPerLine() throws Exception {
+        List<String> deliveries = export("/deliveries/export?status=PENDING&date=" + date);
+        assertThat(deliveries).hasSize(10);
+        for (String line : deliveries) {
+            DeliveryDTO delivery = objectMapper.readValue(line, DeliveryDTO.class);
+            assertThat(delivery.getStatus()).isEqualTo("PENDING");
+        }
+
+        List<String> tours = export("/tours/export?date=" + date);
+        assertThat(tours).hasSize(5);
+        for (String line : tours) {
+            TourDTO tour = objectMapper.readValue(line, TourDTO.class);
+            // deliveries keep their order in the tour
+            assertThat(tour.getDeliveries()).extracting(DeliveryDTO::getLatitude).containsExactly(33.5, 33.6, 33.7);
+        }
+    }
+
+    private List<String> export(String url) throws Exception {
+        MvcResult started = mockMvc.perform(get(url))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertThat(result.getResponse().getContentType()).startsWith("application/x-ndjson");
+        return result.getResponse().getContentAsString().lines().toList();
+    }
+
+    private void createTour(int t) {
+        Tour tour = new Tour();
+        tour.setDate(date);
+        tour.setVehicle(vehicleRepository.save(new Vehicle(VehicleType.VAN)));
+        List<Delivery> deliveries = new ArrayList<>();
+        for (int d = 0; d < 3; d++) {
+            deliveries.add(Delivery.builder()
+                    .latitude(33.5 + d * 0.1)
+                    .longitude(-7.5 - t * 0.1)
+                    .weightKg(1.0)
+                    .volumeM3(0.1)
+                    .status(d == 1 ? DeliveryStatus.DELIVERED : DeliveryStatus.PENDING)
+                    .tour(tour)
+                    .build());
+        }
+        tour.setDeliveries(deliveries);
+        tourRepository.save(tour);
+    }
+}
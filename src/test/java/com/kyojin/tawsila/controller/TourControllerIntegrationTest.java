@@ -3,27 +3,43 @@ package com.kyojin.tawsila.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.kyojin.tawsila.dto.DeliveryDTO;
+import com.kyojin.tawsila.dto.OptimizationJobDTO;
+import com.kyojin.tawsila.dto.OptimizedOrderDTO;
 import com.kyojin.tawsila.dto.TourDTO;
 import com.kyojin.tawsila.dto.VehicleDTO;
 import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Tour;
+import com.kyojin.tawsila.entity.Warehouse;
+import com.kyojin.tawsila.exception.ConflictException;
 import com.kyojin.tawsila.repository.DeliveryRepository;
+import com.kyojin.tawsila.repository.TourRepository;
+import com.kyojin.tawsila.service.TourService;
+import com.kyojin.tawsila.util.DistanceCalculator;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockServletContext;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import jakarta.transaction.Transactional;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.context.support.GenericWebApplicationContext;
 
 import java.time.LocalDate;
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.hamcrest.Matchers.closeTo;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -38,6 +54,14 @@ public class TourControllerIntegrationTest {
 
     private DeliveryRepository deliveryRepository;
 
+    private Warehouse warehouse;
+
+    private TourService tourService;
+
+    private TourRepository tourRepository;
+
+    private PlatformTransactionManager transactionManager;
+
     public TourControllerIntegrationTest() {
         MockServletContext servletContext = new MockServletContext();
         GenericWebApplicationContext webContext = new GenericWebApplicationContext(servletContext);
@@ -48,6 +72,10 @@ public class TourControllerIntegrationTest {
         this.objectMapper = webContext.getBean(ObjectMapper.class);
         this.objectMapper.registerModule(new JavaTimeModule());
         this.deliveryRepository = webContext.getBean(DeliveryRepository.class);
+        this.warehouse = webContext.getBean(Warehouse.class);
+        this.tourService = webContext.getBean(TourService.class);
+        this.tourRepository = webContext.getBean(TourRepository.class);
+        this.transactionManager = webContext.getBean(PlatformTransactionManager.class);
     }
 
 
@@ -100,11 +128,243 @@ public class TourControllerIntegrationTest {
 
         assertThat(optimizedTour.getId()).isEqualTo(tourId);
         assertThat(optimizedTour.getDeliveries()).hasSize(3);
+        assertThat(optimizedTour.getUnassigned()).isEmpty();
 
         List<Double> originalLatitudes = createdTour.getDeliveries().stream().map(DeliveryDTO::getLatitude).toList();
         List<Double> optimizedLatitudes = optimizedTour.getDeliveries().stream().map(DeliveryDTO::getLatitude).toList();
 
         assertThat(optimizedLatitudes).isNotEqualTo(originalLatitudes);
+
+        // the legs of the optimized order are stored as they are
+        assertThat(tourRepository.findTotalDistanceKmById(tourId).orElseThrow())
+                .isCloseTo(routeDistance(optimizedTour.getDeliveries()), within(1e-9));
+    }
+
+    @Test
+    void testOptimizeTourJobEndpoints() throws Exception {
+        TourDTO createdTour = createTour();
+
+        MvcResult submitResult = mockMvc.perform(post("/tours/{id}/optimize/jobs", createdTour.getId())
+                        .param("algorithm", "CLARKE_WRIGHT"))
+                .andExpect(status().isAccepted())
+                .andReturn();
+
+        OptimizationJobDTO job = objectMapper.readValue(submitResult.getResponse().getContentAsString(), OptimizationJobDTO.class);
+        assertThat(job.getJobId()).isNotNull();
+        assertThat(job.getTourId()).isEqualTo(createdTour.getId());
+
+        // poll until the job is over
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!job.getStatus().equals("DONE") && !job.getStatus().equals("FAILED")
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            MvcResult pollResult = mockMvc.perform(get("/optimize/jobs/{jobId}", job.getJobId()))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            job = objectMapper.readValue(pollResult.getResponse().getContentAsString(), OptimizationJobDTO.class);
+        }
+
+        assertThat(job.getStatus()).isEqualTo("DONE");
+        assertThat(job.getFinishedAt()).isNotNull();
+        assertThat(job.getResult().getDeliveries()).hasSize(3);
+
+        // the new order was saved
+        MvcResult tourResult = mockMvc.perform(get("/tours/{id}", createdTour.getId()))
+                .andExpect(status().isOk())
+                .andReturn();
+        TourDTO savedTour = objectMapper.readValue(tourResult.getResponse().getContentAsString(), TourDTO.class);
+        assertThat(savedTour.getDeliveries().stream().map(DeliveryDTO::getId).toList())
+                .isEqualTo(job.getResult().getDeliveries().stream().map(DeliveryDTO::getId).toList());
+
+        mockMvc.perform(get("/optimize/jobs/{jobId}", "unknown"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/tours/{id}/optimize/jobs", createdTour.getId())
+                        .param("algorithm", "UNKNOWN"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testUpdateTourKeepsOrderAndInsertsNewDeliveries() throws Exception {
+        TourDTO createdTour = createTour();
+        List<DeliveryDTO> current = createdTour.getDeliveries();
+
+        // the last stop is replaced by one right next to the first
+        DeliveryDTO added = delivery(1.1, 1.1, 5.0, 2.0);
+        createdTour.setDeliveries(List.of(current.get(0), current.get(1), added));
+
+        MvcResult result = mockMvc.perform(put("/tours/{id}", createdTour.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createdTour)))
+                .andExpect(status().isOk())
+                .andReturn();
+        TourDTO updatedTour = objectMapper.readValue(result.getResponse().getContentAsString(), TourDTO.class);
+
+        assertThat(updatedTour.getDeliveries().stream().map(DeliveryDTO::getId).toList())
+                .containsExactly(current.get(0).getId(), added.getId(), current.get(1).getId());
+
+        // the delivery taken out of the tour still exists, unassigned
+        mockMvc.perform(get("/deliveries/{id}", current.get(2).getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tour").isEmpty());
+    }
+
+    @Test
+    void testDistancesAreStoredAndComputedAgainAfterADeliveryChange() throws Exception {
+        TourDTO createdTour = createTour();
+        List<DeliveryDTO> route = createdTour.getDeliveries();
+
+        mockMvc.perform(get("/tours/{id}/distance", createdTour.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.distance", closeTo(routeDistance(route), 1e-6)));
+        Delivery first = deliveryRepository.findById(route.get(0).getId()).orElseThrow();
+        assertThat(first.getLegDistanceKm()).isCloseTo(DistanceCalculator.calculateDistance(
+                warehouse.getLatitude(), warehouse.getLongitude(), first.getLatitude(), first.getLongitude()), within(1e-9));
+
+        // a status change leaves the route, and so the stored distance, as it is
+        mockMvc.perform(patch("/deliveries/{id}/status", route.get(0).getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"IN_TRANSIT\"}"))
+                .andExpect(status().isOk());
+        assertThat(tourRepository.findTotalDistanceKmById(createdTour.getId())).isPresent();
+
+        // moving a delivery of the tour makes the stored distance stale
+        DeliveryDTO moved = route.get(1);
+        moved.setLatitude(4.0);
+        moved.setTour(new DeliveryDTO.TourEmbeddedDTO(createdTour.getId(), createdTour.getDate(),
+                createdTour.getVehicle().getId()));
+        mockMvc.perform(put("/deliveries/{id}", moved.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(moved)))
+                .andExpect(status().isOk());
+
+        MvcResult result = mockMvc.perform(get("/tours/{id}/distance", createdTour.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.distance", closeTo(routeDistance(route), 1e-6)))
+                .andReturn();
+        double tourDistance = objectMapper.readTree(result.getResponse().getContentAsString()).get("distance").asDouble();
+
+        // other tests plan tours on the same date
+        result = mockMvc.perform(get("/tours/distance").param("date", createdTour.getDate().toString()))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertThat(objectMapper.readTree(result.getResponse().getContentAsString()).get("distance").asDouble())
+                .isGreaterThanOrEqualTo(tourDistance);
+    }
+
+    @Test
+    void testDistanceReadsDoNotConflictWithJobs() throws Exception {
+        TourDTO createdTour = createTour();
+        Long tourId = createdTour.getId();
+
+        // the stored distance is stale, the next read computes it
+        DeliveryDTO moved = createdTour.getDeliveries().get(0);
+        moved.setLatitude(4.0);
+        moved.setTour(new DeliveryDTO.TourEmbeddedDTO(tourId, createdTour.getDate(), createdTour.getVehicle().getId()));
+        mockMvc.perform(put("/deliveries/{id}", moved.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(moved)))
+                .andExpect(status().isOk());
+        Long version = tourRepository.findById(tourId).orElseThrow().getVersion();
+
+        // a job computes an order, the distances are read meanwhile
+        OptimizedOrderDTO order = tourService.computeOptimizedOrder(tourId, "CLARKE_WRIGHT");
+        mockMvc.perform(get("/tours/{id}/distance", tourId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.distance", closeTo(routeDistance(createdTour.getDeliveries()), 1e-6)));
+        mockMvc.perform(get("/tours/distance").param("date", createdTour.getDate().toString()))
+                .andExpect(status().isOk());
+
+        assertThat(tourRepository.findTotalDistanceKmById(tourId)).isPresent();
+        assertThat(tourRepository.findById(tourId).orElseThrow().getVersion()).isEqualTo(version);
+        Delivery first = deliveryRepository.findById(moved.getId()).orElseThrow();
+        assertThat(first.getLegDistanceKm()).isCloseTo(DistanceCalculator.calculateDistance(
+                warehouse.getLatitude(), warehouse.getLongitude(), 4.0, first.getLongitude()), within(1e-9));
+
+        assertThatCode(() -> tourService.applyOptimizedOrder(tourId, order)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void testStaleWritesAreRejected() throws Exception {
+        TourDTO createdTour = createTour();
+        Long tourId = createdTour.getId();
+        Long createdVersion = tourRepository.findById(tourId).orElseThrow().getVersion();
+
+        // a job computes an order from the tour as created, a dispatcher optimizes it meanwhile
+        OptimizedOrderDTO order = tourService.computeOptimizedOrder(tourId, "NEAREST_NEIGHBOR");
+        assertThat(order.getTourVersion()).isEqualTo(createdVersion);
+        mockMvc.perform(get("/tours/{id}/optimize", tourId).param("algorithm", "NEAREST_NEIGHBOR"))
+                .andExpect(status().isOk());
+        Long optimizedVersion = tourRepository.findById(tourId).orElseThrow().getVersion();
+        assertThat(optimizedVersion).isGreaterThan(createdVersion);
+
+        assertThatThrownBy(() -> tourService.applyOptimizedOrder(tourId, order))
+                .isInstanceOf(ConflictException.class);
+
+        // the tour is already in that order, optimizing it again does not write it
+        mockMvc.perform(get("/tours/{id}/optimize", tourId).param("algorithm", "NEAREST_NEIGHBOR"))
+                .andExpect(status().isOk());
+        assertThat(tourRepository.findById(tourId).orElseThrow().getVersion()).isEqualTo(optimizedVersion);
+
+        // a delivery of the tour moves while a job computes its order
+        OptimizedOrderDTO beforeMove = tourService.computeOptimizedOrder(tourId, "NEAREST_NEIGHBOR");
+        DeliveryDTO moved = createdTour.getDeliveries().get(0);
+        moved.setLatitude(5.0);
+        moved.setTour(new DeliveryDTO.TourEmbeddedDTO(tourId, createdTour.getDate(), createdTour.getVehicle().getId()));
+        mockMvc.perform(put("/deliveries/{id}", moved.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(moved)))
+                .andExpect(status().isOk());
+        assertThatThrownBy(() -> tourService.applyOptimizedOrder(tourId, beforeMove))
+                .isInstanceOf(ConflictException.class);
+
+        // two transactions read the same version, the second one to write is rejected
+        TransactionTemplate outer = new TransactionTemplate(transactionManager);
+        TransactionTemplate inner = new TransactionTemplate(transactionManager);
+        inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        assertThatThrownBy(() -> outer.executeWithoutResult(status -> {
+            Tour stale = tourRepository.findById(tourId).orElseThrow();
+            inner.executeWithoutResult(s -> tourRepository.findById(tourId).orElseThrow()
+                    .setDate(createdTour.getDate().plusDays(1)));
+            stale.setDate(createdTour.getDate().plusDays(2));
+        })).isInstanceOf(OptimisticLockingFailureException.class);
+    }
+
+    private double routeDistance(List<DeliveryDTO> route) {
+        double total = 0;
+        double lat = warehouse.getLatitude();
+        double lon = warehouse.getLongitude();
+        for (DeliveryDTO d : route) {
+            total += DistanceCalculator.calculateDistance(lat, lon, d.getLatitude(), d.getLongitude());
+            lat = d.getLatitude();
+            lon = d.getLongitude();
+        }
+        return total + DistanceCalculator.calculateDistance(lat, lon, warehouse.getLatitude(), warehouse.getLongitude());
+    }
+
+    private TourDTO createTour() throws Exception {
+        VehicleDTO vehicleDTO = new VehicleDTO();
+        vehicleDTO.setType("TRUCK");
+        vehicleDTO.setMaxDeliveries(10);
+
+        MvcResult result = mockMvc.perform(post("/vehicles")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(vehicleDTO)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        TourDTO tourDTO = new TourDTO();
+        tourDTO.setVehicle(objectMapper.readValue(result.getResponse().getContentAsString(), VehicleDTO.class));
+        tourDTO.setDate(LocalDate.now());
+        tourDTO.setDeliveries(List.of(delivery(1.0, 1.0, 5.0, 2.0),
+                delivery(3.0, 3.0, 5.0, 2.0), delivery(2.0, 2.0, 5.0, 2.0)));
+
+        MvcResult createTourResult = mockMvc.perform(post("/tours")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(tourDTO)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        return objectMapper.readValue(createTourResult.getResponse().getContentAsString(), TourDTO.class);
     }
 
     private DeliveryDTO delivery(double latitude, double longitude, double weightKg, double volumeM3) {
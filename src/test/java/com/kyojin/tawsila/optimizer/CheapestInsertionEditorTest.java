@@ -0,0 +1,103 @@
+package com.kyojin.tawsila.optimizer;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Warehouse;
+import com.kyojin.tawsila.optimizer.impl.CheapestInsertionEditor;
+import com.kyojin.tawsila.optimizer.impl.HaversineDistanceProvider;
+import com.kyojin.tawsila.util.DistanceCalculator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CheapestInsertionEditorTest {
+
+    private Warehouse warehouse;
+    private RouteEditor editor;
+
+    @BeforeEach
+    void setUp() {
+        warehouse = new Warehouse();
+        warehouse.setLatitude(33.5731);
+        warehouse.setLongitude(-7.5898);
+        editor = new CheapestInsertionEditor(new OptimizerMetrics(), new HaversineDistanceProvider());
+    }
+
+    @Test
+    void testInsertsAtTheCheapestPosition() {
+        Random random = new Random(5);
+        List<Delivery> route = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            route.add(delivery(i, random));
+        }
+
+        for (int k = 0; k < 20; k++) {
+            Delivery added = delivery(100 + k, random);
+
+            // brute force: the shortest route among every possible position
+            double best = Double.MAX_VALUE;
+            for (int p = 0; p <= route.size(); p++) {
+                List<Delivery> candidate = new ArrayList<>(route);
+                candidate.add(p, added);
+                best = Math.min(best, length(candidate));
+            }
+
+            List<Delivery> inserted = editor.insert(warehouse, route, List.of(added));
+            assertEquals(best, length(inserted), 1e-9);
+
+            // the other stops keep their order
+            assertEquals(route, inserted.stream().filter(d -> d != added).toList());
+            route = inserted;
+        }
+    }
+
+    @Test
+    void testInsertIntoEmptyRoute() {
+        Random random = new Random(7);
+        List<Delivery> added = List.of(delivery(1, random), delivery(2, random), delivery(3, random));
+
+        List<Delivery> route = editor.insert(warehouse, List.of(), added);
+
+        assertEquals(3, route.size());
+        assertTrue(route.containsAll(added));
+    }
+
+    @Test
+    void testRemoveSplicesOutAndKeepsOrder() {
+        Random random = new Random(9);
+        List<Delivery> route = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            route.add(delivery(i, random));
+        }
+
+        List<Delivery> remaining = editor.remove(route, List.of(1L, 4L, 42L));
+
+        assertEquals(List.of(0L, 2L, 3L, 5L), remaining.stream().map(Delivery::getId).toList());
+        assertEquals(6, route.size()); // the input is left as is
+    }
+
+    private double length(List<Delivery> route) {
+        double total = 0;
+        double lat = warehouse.getLatitude();
+        double lon = warehouse.getLongitude();
+        for (Delivery d : route) {
+            total += DistanceCalculator.calculateDistance(lat, lon, d.getLatitude(), d.getLongitude());
+            lat = d.getLatitude();
+            lon = d.getLongitude();
+        }
+        return total + DistanceCalculator.calculateDistance(lat, lon, warehouse.getLatitude(), warehouse.getLongitude());
+    }
+
+    private Delivery delivery(long id, Random random) {
+        Delivery d = new Delivery();
+        d.setId(id);
+        d.setLatitude(33.5731 + random.nextDouble() * 0.2 - 0.1);
+        d.setLongitude(-7.5898 + random.nextDouble() * 0.2 - 0.1);
+        return d;
+    }
+}
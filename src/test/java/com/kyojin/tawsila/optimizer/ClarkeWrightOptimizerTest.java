@@ -5,14 +5,19 @@ import com.kyojin.tawsila.entity.Vehicle;
 import com.kyojin.tawsila.entity.Warehouse;
 import com.kyojin.tawsila.enums.VehicleType;
 import com.kyojin.tawsila.optimizer.impl.ClarkeWrightOptimizer;
+import com.kyojin.tawsila.optimizer.impl.SequentialSavingsStrategy;
 import com.kyojin.tawsila.util.DistanceCalculator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockedStatic;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mockStatic;
 
 public class ClarkeWrightOptimizerTest {
@@ -82,4 +87,82 @@ public class ClarkeWrightOptimizerTest {
         }
     }
 
+
+    @Test
+    void testPlanFleetAssignsEveryDeliveryOnce() {
+        Vehicle bike = new Vehicle(VehicleType.BIKE);
+        Vehicle van = new Vehicle(VehicleType.VAN);
+
+        List<Delivery> deliveries = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            deliveries.add(delivery((long) i, 33.5 + i * 0.001, -7.5 - (i % 5) * 0.002, 1, 0.01));
+        }
+        // too heavy for the bike
+        Delivery heavy = delivery(100L, 33.52, -7.51, 200, 1);
+        deliveries.add(heavy);
+
+        List<List<Delivery>> routes = optimizer.planFleet(warehouse, deliveries, List.of(bike, van),
+                DistanceMatrix.of(warehouse, deliveries));
+
+        assertEquals(2, routes.size());
+        assertEquals(deliveries.size(), routes.get(0).size() + routes.get(1).size());
+        assertTrue(routes.get(0).size() <= VehicleType.BIKE.getMaxDeliveries());
+        assertTrue(routes.get(1).contains(heavy));
+        assertTrue(routes.get(0).stream().noneMatch(routes.get(1)::contains));
+    }
+
+    @Test
+    void testPlanFleetLeavesOutDeliveriesThatFitNoVehicle() {
+        Vehicle bike = new Vehicle(VehicleType.BIKE);
+        Delivery light = delivery(99L, 1, 1, 1, 0.01);
+        Delivery heavy = delivery(100L, 2, 2, 200, 1);
+
+        List<List<Delivery>> routes = optimizer.planFleet(warehouse, List.of(light, heavy), List.of(bike),
+                DistanceMatrix.of(warehouse, List.of(light, heavy)));
+
+        assertEquals(List.of(light), routes.get(0));
+    }
+
+    @Test
+    void testPlanFleetRoutesStayWithinLimits() {
+        Vehicle bike = new Vehicle(VehicleType.BIKE);
+        Vehicle van = new Vehicle(VehicleType.VAN);
+
+        // more than a van can take, half of them too heavy for the bike
+        List<Delivery> deliveries = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            double weight = i % 2 == 0 ? 2 : 60;
+            deliveries.add(delivery((long) i, 33.5 + (i % 9) * 0.003, -7.5 - (i / 9) * 0.003, weight, 0.01));
+        }
+
+        List<List<Delivery>> routes = optimizer.planFleet(warehouse, deliveries, List.of(van, bike),
+                DistanceMatrix.of(warehouse, deliveries));
+
+        List<Delivery> vanRoute = routes.get(0);
+        List<Delivery> bikeRoute = routes.get(1);
+        assertTrue(vanRoute.size() <= VehicleType.VAN.getMaxDeliveries());
+        assertTrue(bikeRoute.size() <= VehicleType.BIKE.getMaxDeliveries());
+        assertTrue(vanRoute.stream().mapToDouble(Delivery::getWeightKg).sum() <= VehicleType.VAN.getMaxWeightKg());
+        assertTrue(bikeRoute.stream().mapToDouble(Delivery::getWeightKg).sum() <= VehicleType.BIKE.getMaxWeightKg());
+        assertEquals(vanRoute.size(), vanRoute.stream().distinct().count());
+        assertEquals(bikeRoute.size(), bikeRoute.stream().distinct().count());
+        assertTrue(vanRoute.stream().noneMatch(bikeRoute::contains));
+        assertFalse(bikeRoute.isEmpty());
+    }
+
+    @Test
+    void testMetricsCountSavingsAndMerges() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        OptimizerMetrics metrics = new OptimizerMetrics();
+        metrics.bindTo(registry);
+        ClarkeWrightOptimizer metered = new ClarkeWrightOptimizer(new SequentialSavingsStrategy(), metrics);
+
+        List<Delivery> deliveries = List.of(A, B, C, D);
+        List<Delivery> tour = metered.calculateOptimalTour(warehouse, deliveries, vehicle);
+
+        assertEquals(4, tour.size());
+        assertTrue(registry.get("tawsila.optimizer.savings").counter().count() > 0);
+        // 4 stops in one subtour take exactly 3 merges
+        assertEquals(3.0, registry.get("tawsila.optimizer.merges").tag("result", "accepted").counter().count());
+    }
 }
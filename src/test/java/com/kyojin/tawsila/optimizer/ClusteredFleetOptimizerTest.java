@@ -0,0 +1,117 @@
+package com.kyojin.tawsila.optimizer;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Vehicle;
+import com.kyojin.tawsila.entity.Warehouse;
+import com.kyojin.tawsila.enums.VehicleType;
+import com.kyojin.tawsila.optimizer.impl.ClarkeWrightOptimizer;
+import com.kyojin.tawsila.optimizer.impl.ClusteredFleetOptimizer;
+import com.kyojin.tawsila.optimizer.impl.HaversineDistanceProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ClusteredFleetOptimizerTest {
+
+    private Warehouse warehouse;
+    private DistanceProvider distances;
+
+    @BeforeEach
+    void setUp() {
+        warehouse = new Warehouse();
+        warehouse.setLatitude(33.57);
+        warehouse.setLongitude(-7.59);
+        distances = new HaversineDistanceProvider();
+    }
+
+    @Test
+    void testClustersRespectTheCapacity() {
+        List<Delivery> deliveries = deliveries(5_000, 1);
+        double[] lat = deliveries.stream().mapToDouble(Delivery::getLatitude).toArray();
+        double[] lon = deliveries.stream().mapToDouble(Delivery::getLongitude).toArray();
+        CapacitatedKMeans kMeans = new CapacitatedKMeans(lat, lon);
+
+        int[] assignment = kMeans.cluster(6, 900, 10);
+
+        int[] sizes = new int[6];
+        Arrays.stream(assignment).forEach(c -> sizes[c]++);
+        assertThat(Arrays.stream(sizes).min().getAsInt()).isPositive();
+        assertThat(Arrays.stream(sizes).max().getAsInt()).isLessThanOrEqualTo(900);
+        assertThat(kMeans.cluster(6, 900, 10)).isEqualTo(assignment);
+        assertThatThrownBy(() -> kMeans.cluster(5, 900, 10)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testLargeBatchIsPlannedInClusters() {
+        List<Delivery> deliveries = deliveries(20_000, 2);
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            vehicles.add(vehicle(VehicleType.TRUCK));
+        }
+        for (int i = 0; i < 100; i++) {
+            vehicles.add(vehicle(VehicleType.VAN));
+        }
+        FleetOptimizer optimizer = new ClusteredFleetOptimizer(new ClarkeWrightOptimizer(), 2_000, 1_000);
+
+        long start = System.nanoTime();
+        List<List<Delivery>> routes = optimizer.planFleet(warehouse, deliveries, vehicles, distances);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(routes).hasSize(vehicles.size());
+        List<Delivery> planned = routes.stream().flatMap(List::stream).toList();
+        assertThat(planned).doesNotHaveDuplicates();
+        // 150 trucks and 100 vans carry 20,000 stops, clustering loses a little of that
+        assertThat(planned.size()).isGreaterThan(18_000);
+        for (int v = 0; v < vehicles.size(); v++) {
+            VehicleType type = vehicles.get(v).getType();
+            List<Delivery> route = routes.get(v);
+            assertThat(type.canHandle(
+                    route.stream().mapToDouble(Delivery::getWeightKg).sum(),
+                    route.stream().mapToDouble(Delivery::getVolumeM3).sum(),
+                    route.size())).isTrue();
+        }
+        assertThat(elapsedMs).isLessThan(30_000);
+    }
+
+    @Test
+    void testSmallBatchIsPlannedInOnePiece() {
+        List<Delivery> deliveries = deliveries(300, 3);
+        List<Vehicle> vehicles = List.of(vehicle(VehicleType.VAN), vehicle(VehicleType.VAN), vehicle(VehicleType.BIKE));
+        ClarkeWrightOptimizer clarkeWright = new ClarkeWrightOptimizer();
+        FleetOptimizer optimizer = new ClusteredFleetOptimizer(clarkeWright, 2_000, 1_000);
+
+        List<List<Delivery>> routes = optimizer.planFleet(warehouse, deliveries, vehicles, distances);
+
+        DistanceMatrix matrix = DistanceMatrix.of(warehouse, deliveries, distances);
+        assertThat(routes).isEqualTo(clarkeWright.planFleet(warehouse, deliveries, vehicles, matrix));
+    }
+
+    private List<Delivery> deliveries(int count, long seed) {
+        Random random = new Random(seed);
+        List<Delivery> deliveries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Delivery d = new Delivery();
+            d.setId((long) i + 1);
+            d.setLatitude(33.57 + random.nextGaussian() * 0.1);
+            d.setLongitude(-7.59 + random.nextGaussian() * 0.1);
+            d.setWeightKg(1 + random.nextDouble() * 9);
+            d.setVolumeM3(0.01);
+            deliveries.add(d);
+        }
+        return deliveries;
+    }
+
+    private Vehicle vehicle(VehicleType type) {
+        Vehicle vehicle = new Vehicle();
+        vehicle.setType(type);
+        vehicle.setMaxDeliveries(type.getMaxDeliveries());
+        return vehicle;
+    }
+}
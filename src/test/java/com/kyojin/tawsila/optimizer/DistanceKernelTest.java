@@ -0,0 +1,74 @@
+package com.kyojin.tawsila.optimizer;
+
+import com.kyojin.tawsila.optimizer.impl.ScalarDistanceKernel;
+import com.kyojin.tawsila.util.DistanceCalculator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DistanceKernelTest {
+
+    // the SIMD kernel with the vector profile, which adds the incubator module to the tests
+    private final DistanceKernel vector = DistanceKernel.create();
+    private final DistanceKernel scalar = new ScalarDistanceKernel();
+
+    @Test
+    void testVectorKernelWhenTheModuleIsThere() {
+        boolean module = ModuleLayer.boot().findModule(DistanceKernel.VECTOR_MODULE).isPresent()
+                && getClass().getClassLoader().getResource(DistanceKernel.VECTOR_KERNEL.replace('.', '/') + ".class") != null;
+        assertEquals(module ? "VectorDistanceKernel" : "ScalarDistanceKernel", vector.getClass().getSimpleName());
+    }
+
+    @Test
+    void testMatricesMatchHaversine() {
+        Random random = new Random(7);
+        int n = 301; // not a multiple of any vector length, the tails are covered
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = 33.5731 + random.nextDouble() * 0.4 - 0.2;
+            lon[i] = -7.5898 + random.nextDouble() * 0.4 - 0.2;
+        }
+        // far away points go through the exact arc sine
+        lat[5] = 35.6764;
+        lon[5] = 139.6500;
+        lat[6] = 52.3676;
+        lon[6] = 4.9041;
+
+        for (DistanceKernel kernel : new DistanceKernel[]{vector, scalar}) {
+            double[] matrix = kernel.matrix(lat, lon);
+            for (int i = 0; i < n; i++) {
+                assertEquals(0.0, matrix[i * n + i]);
+                for (int j = 0; j < n; j++) {
+                    double expected = DistanceCalculator.calculateDistance(lat[i], lon[i], lat[j], lon[j]);
+                    assertEquals(expected, matrix[i * n + j], 1e-9 * Math.max(1, expected),
+                            kernel.getClass().getSimpleName() + " " + i + " -> " + j);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testSavingsAreTheSameWithBothKernels() {
+        Random random = new Random(3);
+        int nodes = 50;
+        double[] distances = new double[nodes * nodes];
+        for (int k = 0; k < distances.length; k++) distances[k] = random.nextDouble() * 20;
+        double[] depot = new double[37];
+        int[] columns = new int[37];
+        for (int b = 0; b < depot.length; b++) {
+            depot[b] = random.nextDouble() * 20;
+            columns[b] = 1 + random.nextInt(nodes - 1);
+        }
+
+        double[] expected = new double[depot.length];
+        double[] actual = new double[depot.length];
+        scalar.savings(depot[4], depot, distances, columns[4] * nodes, columns, 5, depot.length, expected);
+        vector.savings(depot[4], depot, distances, columns[4] * nodes, columns, 5, depot.length, actual);
+
+        assertArrayEquals(expected, actual);
+    }
+}
@@ -0,0 +1,73 @@
+package com.kyojin.tawsila.optimizer;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Warehouse;
+import com.kyojin.tawsila.util.DistanceCalculator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.*;
+
+public class DistanceMatrixTest {
+
+    private Warehouse warehouse;
+
+    @BeforeEach
+    void setUp() {
+        warehouse = new Warehouse();
+        warehouse.setLatitude(0.0);
+        warehouse.setLongitude(0.0);
+    }
+
+    @Test
+    void testDistancesAreIndexedByPosition() {
+        Delivery d1 = delivery(1, 1);
+        Delivery d2 = delivery(2, 2);
+
+        try (MockedStatic<DistanceCalculator> mock = mockStatic(DistanceCalculator.class)) {
+            mock.when(() -> DistanceCalculator.calculateDistance(0, 0, 1, 1)).thenReturn(5.0);
+            mock.when(() -> DistanceCalculator.calculateDistance(0, 0, 2, 2)).thenReturn(10.0);
+            mock.when(() -> DistanceCalculator.calculateDistance(1, 1, 2, 2)).thenReturn(3.0);
+
+            DistanceMatrix matrix = DistanceMatrix.of(warehouse, List.of(d1, d2));
+
+            assertEquals(2, matrix.size());
+            assertEquals(5.0, matrix.fromWarehouse(0));
+            assertEquals(10.0, matrix.fromWarehouse(1));
+            assertEquals(3.0, matrix.between(0, 1));
+            assertEquals(3.0, matrix.between(1, 0));
+            assertEquals(10.0, matrix.get(2, 0));
+            assertEquals(0.0, matrix.between(1, 1));
+        }
+    }
+
+    @Test
+    void testEachPairComputedOnce() {
+        List<Delivery> deliveries = List.of(delivery(1, 1), delivery(2, 2), delivery(3, 3), delivery(4, 4));
+
+        try (MockedStatic<DistanceCalculator> mock = mockStatic(DistanceCalculator.class)) {
+            mock.when(() -> DistanceCalculator.calculateDistance(anyDouble(), anyDouble(), anyDouble(), anyDouble()))
+                    .thenReturn(1.0);
+
+            DistanceMatrix.of(warehouse, deliveries);
+
+            // 5 nodes (warehouse + 4 deliveries) -> 5 * 4 / 2 pairs
+            mock.verify(() -> DistanceCalculator.calculateDistance(anyDouble(), anyDouble(), anyDouble(), anyDouble()),
+                    times(10));
+        }
+    }
+
+    private Delivery delivery(double lat, double lon) {
+        Delivery d = new Delivery();
+        d.setLatitude(lat);
+        d.setLongitude(lon);
+        d.setWeightKg(1.0);
+        d.setVolumeM3(1.0);
+        return d;
+    }
+}
@@ -0,0 +1,67 @@
+package com.kyojin.tawsila.optimizer;
+
+import com.kyojin.tawsila.optimizer.impl.EquirectangularDistanceProvider;
+import com.kyojin.tawsila.util.DistanceCalculator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EquirectangularDistanceProviderTest {
+
+    private final DistanceProvider provider = new EquirectangularDistanceProvider();
+
+    @Test
+    void testMaximumErrorOverTheCity() {
+        // 1000 points in a 0.4 degree box around the warehouse, about 44 km across
+        Random random = new Random(21);
+        int n = 1000;
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = 33.5731 + random.nextDouble() * 0.4 - 0.2;
+            lon[i] = -7.5898 + random.nextDouble() * 0.4 - 0.2;
+        }
+
+        double[] matrix = provider.matrix(lat, lon);
+
+        double maxRelativeError = 0;
+        double maxError = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double exact = DistanceCalculator.calculateDistance(lat[i], lon[i], lat[j], lon[j]);
+                for (double approximate : new double[]{matrix[i * n + j], provider.distance(lat[i], lon[i], lat[j], lon[j])}) {
+                    maxError = Math.max(maxError, Math.abs(approximate - exact));
+                    maxRelativeError = Math.max(maxRelativeError, Math.abs(approximate - exact) / exact);
+                }
+            }
+        }
+
+        // measured: 0.11 m at most, 2 mm per km
+        assertTrue(maxError < 0.001, "error " + maxError + " km");
+        assertTrue(maxRelativeError < 1e-5, "relative error " + maxRelativeError);
+    }
+
+    @Test
+    void testMatrixIsSymmetricWithAZeroDiagonal() {
+        double[] lat = {33.57, 33.60, 33.52};
+        double[] lon = {-7.59, -7.62, -7.55};
+
+        double[] matrix = provider.matrix(lat, lon);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0.0, matrix[i * 3 + i]);
+            for (int j = 0; j < 3; j++) {
+                assertEquals(matrix[i * 3 + j], matrix[j * 3 + i]);
+            }
+        }
+    }
+
+    @Test
+    void testReportedDistancesAreExact() {
+        assertEquals(DistanceCalculator.calculateDistance(33.57, -7.59, 33.60, -7.62),
+                provider.exact().distance(33.57, -7.59, 33.60, -7.62));
+    }
+}
@@ -0,0 +1,80 @@
+package com.kyojin.tawsila.optimizer;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.util.DistanceCalculator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KdTreeTest {
+
+    @Test
+    void testNearestMatchesLinearScan() {
+        Random random = new Random(3);
+        List<Delivery> deliveries = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            deliveries.add(delivery(33.5 + random.nextDouble() * 0.2, -7.7 + random.nextDouble() * 0.2,
+                    random.nextDouble() * 10, random.nextDouble()));
+        }
+        List<Integer> indexes = IntStream.range(0, deliveries.size()).boxed().toList();
+        KdTree tree = new KdTree(deliveries, indexes);
+        boolean[] removed = new boolean[deliveries.size()];
+
+        for (int step = 0; step < 400; step++) {
+            double lat = 33.5 + random.nextDouble() * 0.2;
+            double lon = -7.7 + random.nextDouble() * 0.2;
+            double usedWeight = random.nextDouble() * 10;
+            double usedVolume = random.nextDouble();
+
+            int expected = -1;
+            double best = Double.MAX_VALUE;
+            for (int i = 0; i < deliveries.size(); i++) {
+                Delivery d = deliveries.get(i);
+                if (removed[i] || usedWeight + d.getWeightKg() > 15 || usedVolume + d.getVolumeM3() > 1.5) continue;
+                double dist = DistanceCalculator.calculateDistance(lat, lon, d.getLatitude(), d.getLongitude());
+                if (dist < best) {
+                    best = dist;
+                    expected = i;
+                }
+            }
+
+            int actual = tree.nearest(lat, lon, usedWeight, 15, usedVolume, 1.5);
+            assertEquals(expected, actual);
+
+            if (actual >= 0) {
+                tree.remove(actual);
+                removed[actual] = true;
+            }
+        }
+    }
+
+    @Test
+    void testRemoveEverything() {
+        List<Delivery> deliveries = List.of(delivery(1, 1, 1, 1), delivery(2, 2, 1, 1), delivery(3, 3, 1, 1));
+        KdTree tree = new KdTree(deliveries, List.of(0, 2));
+
+        assertEquals(2, tree.size());
+        assertEquals(0, tree.nearest(0, 0, 0, 10, 0, 10));
+        tree.remove(0);
+        assertEquals(2, tree.nearest(0, 0, 0, 10, 0, 10));
+        tree.remove(2);
+
+        assertTrue(tree.isEmpty());
+        assertEquals(-1, tree.nearest(0, 0, 0, 10, 0, 10));
+    }
+
+    private Delivery delivery(double lat, double lon, double weight, double volume) {
+        Delivery d = new Delivery();
+        d.setLatitude(lat);
+        d.setLongitude(lon);
+        d.setWeightKg(weight);
+        d.setVolumeM3(volume);
+        return d;
+    }
+}
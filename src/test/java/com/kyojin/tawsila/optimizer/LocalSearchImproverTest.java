@@ -0,0 +1,103 @@
+package com.kyojin.tawsila.optimizer;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Warehouse;
+import com.kyojin.tawsila.optimizer.impl.LocalSearchImprover;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class LocalSearchImproverTest {
+
+    private RouteImprover improver;
+    private Warehouse warehouse;
+
+    @BeforeEach
+    void setUp() {
+        improver = new LocalSearchImprover(1000, 10);
+
+        warehouse = new Warehouse();
+        warehouse.setLatitude(0.0);
+        warehouse.setLongitude(0.0);
+    }
+
+    @Test
+    void testRemovesCrossingEdges() {
+        // square around the warehouse, visited in a crossing order
+        List<Delivery> deliveries = List.of(
+                delivery(0.0, 0.1),
+                delivery(0.1, 0.1),
+                delivery(0.1, 0.0)
+        );
+        DistanceMatrix matrix = DistanceMatrix.of(warehouse, deliveries);
+
+        int[] crossing = {0, 2, 1};
+        int[] improved = improver.improve(crossing, matrix);
+
+        assertThat(length(improved, matrix)).isLessThan(length(crossing, matrix));
+        assertThat(improved).containsExactlyInAnyOrder(0, 1, 2);
+    }
+
+    @Test
+    void testNeverWorseAndKeepsEveryStop() {
+        Random random = new Random(7);
+        List<Delivery> deliveries = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            deliveries.add(delivery(random.nextDouble() * 0.2 - 0.1, random.nextDouble() * 0.2 - 0.1));
+        }
+        DistanceMatrix matrix = DistanceMatrix.of(warehouse, deliveries);
+
+        int[] route = IntStream.range(0, deliveries.size()).toArray();
+        int[] improved = improver.improve(route, matrix);
+
+        assertThat(length(improved, matrix)).isLessThan(length(route, matrix));
+        int[] sorted = improved.clone();
+        Arrays.sort(sorted);
+        assertArrayEquals(route, sorted);
+    }
+
+    @Test
+    void testNeighborListsCountAgainstTheBudget() {
+        Random random = new Random(11);
+        List<Delivery> deliveries = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            deliveries.add(delivery(random.nextDouble() * 0.2 - 0.1, random.nextDouble() * 0.2 - 0.1));
+        }
+        DistanceMatrix matrix = DistanceMatrix.of(warehouse, deliveries);
+        int[] route = IntStream.range(0, deliveries.size()).toArray();
+
+        // no budget at all, the route comes back as it was
+        assertArrayEquals(route, new LocalSearchImprover(0, 10).improve(route, matrix));
+
+        long start = System.nanoTime();
+        new LocalSearchImprover(20, 10).improve(route, matrix);
+        assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(500);
+    }
+
+    private double length(int[] route, DistanceMatrix matrix) {
+        double total = 0;
+        int prev = 0;
+        for (int i : route) {
+            total += matrix.get(prev, i + 1);
+            prev = i + 1;
+        }
+        return total + matrix.get(prev, 0);
+    }
+
+    private Delivery delivery(double lat, double lon) {
+        Delivery d = new Delivery();
+        d.setLatitude(lat);
+        d.setLongitude(lon);
+        d.setWeightKg(1.0);
+        d.setVolumeM3(0.1);
+        return d;
+    }
+}
@@ -0,0 +1,149 @@
+package com.kyojin.tawsila.optimizer;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Vehicle;
+import com.kyojin.tawsila.entity.Warehouse;
+import com.kyojin.tawsila.enums.VehicleType;
+import com.kyojin.tawsila.optimizer.impl.ClarkeWrightOptimizer;
+import com.kyojin.tawsila.optimizer.impl.MultiStartOptimizer;
+import com.kyojin.tawsila.optimizer.impl.NearestNeighborOptimizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MultiStartOptimizerTest {
+
+    private Warehouse warehouse;
+    private Vehicle vehicle;
+    private List<Delivery> deliveries;
+    private DistanceMatrix matrix;
+
+    @BeforeEach
+    void setUp() {
+        warehouse = new Warehouse();
+        warehouse.setLatitude(33.57);
+        warehouse.setLongitude(-7.59);
+
+        vehicle = new Vehicle();
+        vehicle.setType(VehicleType.VAN);
+        vehicle.setMaxDeliveries(VehicleType.VAN.getMaxDeliveries());
+
+        Random random = new Random(3);
+        deliveries = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            deliveries.add(delivery(33.57 + random.nextGaussian() * 0.05, -7.59 + random.nextGaussian() * 0.05));
+        }
+        matrix = DistanceMatrix.of(warehouse, deliveries);
+    }
+
+    @Test
+    void testRandomizedStartsShortenNearestNeighbor() {
+        NearestNeighborOptimizer construction = new NearestNeighborOptimizer();
+        TourOptimizer multiStart = new MultiStartOptimizer(construction, 16, Duration.ofSeconds(30));
+
+        List<Delivery> plain = construction.calculateOptimalTour(warehouse, deliveries, vehicle, matrix);
+        List<Delivery> best = multiStart.calculateOptimalTour(warehouse, deliveries, vehicle, matrix);
+
+        assertThat(best).containsExactlyInAnyOrderElementsOf(plain);
+        assertThat(length(best)).isLessThan(length(plain));
+        // the seeds are fixed, so the same starts win every time
+        assertThat(multiStart.calculateOptimalTour(warehouse, deliveries, vehicle, matrix)).isEqualTo(best);
+    }
+
+    @Test
+    void testClarkeWrightNeverWorseAndWithinCapacity() {
+        ClarkeWrightOptimizer construction = new ClarkeWrightOptimizer();
+        vehicle.setType(VehicleType.BIKE);
+        vehicle.setMaxDeliveries(VehicleType.BIKE.getMaxDeliveries());
+        TourOptimizer multiStart = new MultiStartOptimizer(construction, 8, Duration.ofSeconds(30));
+
+        List<Delivery> plain = construction.calculateOptimalTour(warehouse, deliveries, vehicle, matrix);
+        List<Delivery> best = multiStart.calculateOptimalTour(warehouse, deliveries, vehicle, matrix);
+
+        assertThat(best).doesNotHaveDuplicates().hasSizeGreaterThanOrEqualTo(plain.size());
+        assertThat(best.size()).isLessThanOrEqualTo(VehicleType.BIKE.getMaxDeliveries());
+        assertThat(best.stream().mapToDouble(Delivery::getWeightKg).sum()).isLessThanOrEqualTo(VehicleType.BIKE.getMaxWeightKg());
+        if (best.size() == plain.size()) {
+            assertThat(length(best)).isLessThanOrEqualTo(length(plain));
+        }
+
+        // randomized runs explore other routes
+        List<List<Delivery>> randomized = new ArrayList<>();
+        for (int seed = 1; seed < 8; seed++) {
+            randomized.add(construction.calculateRandomizedTour(warehouse, deliveries, vehicle, matrix, new Random(seed),
+                    () -> false));
+        }
+        assertThat(randomized).allSatisfy(route -> assertThat(route).doesNotHaveDuplicates())
+                .anySatisfy(route -> assertThat(route).isNotEqualTo(plain));
+    }
+
+    @Test
+    void testDeadlineStopsSlowStarts() throws InterruptedException {
+        NearestNeighborOptimizer nearestNeighbor = new NearestNeighborOptimizer();
+        AtomicInteger running = new AtomicInteger();
+        RandomizedTourOptimizer slow = new RandomizedTourOptimizer() {
+            @Override
+            public List<Delivery> calculateOptimalTour(Warehouse w, List<Delivery> d, Vehicle v, DistanceMatrix m) {
+                return nearestNeighbor.calculateOptimalTour(w, d, v, m);
+            }
+
+            @Override
+            public List<Delivery> calculateRandomizedTour(Warehouse w, List<Delivery> d, Vehicle v, DistanceMatrix m,
+                                                          Random random, BooleanSupplier stop) {
+                running.incrementAndGet();
+                try {
+                    while (!stop.getAsBoolean()) {
+                        Thread.onSpinWait();
+                    }
+                    return null;
+                } finally {
+                    running.decrementAndGet();
+                }
+            }
+        };
+        ForkJoinPool pool = new ForkJoinPool(2);
+        TourOptimizer multiStart = new MultiStartOptimizer(pool, slow, 4, Duration.ofMillis(50), new OptimizerMetrics());
+
+        long start = System.nanoTime();
+        List<Delivery> route = multiStart.calculateOptimalTour(warehouse, deliveries, vehicle, matrix);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(route).isEqualTo(nearestNeighbor.calculateOptimalTour(warehouse, deliveries, vehicle, matrix));
+        assertThat(elapsedMs).isLessThan(1000);
+
+        // the starts left running do not outlive the call
+        pool.shutdown();
+        assertThat(pool.awaitTermination(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(running).hasValue(0);
+    }
+
+    private double length(List<Delivery> route) {
+        double total = 0;
+        int prev = 0;
+        for (Delivery d : route) {
+            int node = deliveries.indexOf(d) + 1;
+            total += matrix.get(prev, node);
+            prev = node;
+        }
+        return total + matrix.get(prev, 0);
+    }
+
+    private Delivery delivery(double lat, double lon) {
+        Delivery d = new Delivery();
+        d.setLatitude(lat);
+        d.setLongitude(lon);
+        d.setWeightKg(5.0);
+        d.setVolumeM3(0.01);
+        return d;
+    }
+}
@@ -87,6 +87,24 @@ public class NearestNeighborOptimizerTest {
         }
     }
 
+    @Test
+    void testRoadDistancesAreReadFromTheMatrix() {
+        Delivery d1 = delivery(1L, 0, 0.01, 1, 0.1);
+        Delivery d2 = delivery(2L, 0, 0.02, 1, 0.1);
+        List<Delivery> deliveries = List.of(d1, d2);
+
+        // no road from the warehouse to d1, it has to be reached through d2
+        DistanceProvider road = (lat1, lon1, lat2, lon2) ->
+                lon1 + lon2 == 0.01 ? 50.0 : DistanceCalculator.calculateDistance(lat1, lon1, lat2, lon2);
+
+        List<Delivery> byRoad = optimizer.calculateOptimalTour(
+                warehouse, deliveries, vehicle, DistanceMatrix.of(warehouse, deliveries, road));
+        assertEquals(List.of(d2, d1), byRoad);
+
+        List<Delivery> greatCircle = optimizer.calculateOptimalTour(
+                warehouse, deliveries, vehicle, DistanceMatrix.of(warehouse, deliveries));
+        assertEquals(List.of(d1, d2), greatCircle);
+    }
 
     private Delivery delivery(Long id, double lat, double lon, double weight, double volume) {
         Delivery d = new Delivery();
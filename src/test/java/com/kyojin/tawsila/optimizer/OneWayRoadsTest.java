@@ -0,0 +1,171 @@
+package com.kyojin.tawsila.optimizer;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Vehicle;
+import com.kyojin.tawsila.entity.Warehouse;
+import com.kyojin.tawsila.enums.VehicleType;
+import com.kyojin.tawsila.optimizer.impl.ClarkeWrightOptimizer;
+import com.kyojin.tawsila.optimizer.impl.LocalSearchImprover;
+import com.kyojin.tawsila.optimizer.impl.ParallelSavingsStrategy;
+import com.kyojin.tawsila.optimizer.impl.RoadGraphDistanceProvider;
+import com.kyojin.tawsila.optimizer.impl.SequentialSavingsStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Road distances on a grid of one-way streets, where going from a to b and from b to a
+ * take different routes.
+ */
+public class OneWayRoadsTest {
+
+    private static final int SIDE = 20;
+    private static final double STEP = 0.002; // about 200 m between crossings
+
+    private Warehouse warehouse;
+    private List<Delivery> deliveries;
+    private DistanceProvider roads;
+    private DistanceMatrix matrix;
+
+    /**
+     * Streets alternate directions like in a grid city: even rows go east and odd ones west,
+     * even columns go north and odd ones south.
+     */
+    @BeforeEach
+    void setUp() {
+        double[] lat = new double[SIDE * SIDE];
+        double[] lon = new double[SIDE * SIDE];
+        for (int y = 0; y < SIDE; y++) {
+            for (int x = 0; x < SIDE; x++) {
+                lat[y * SIDE + x] = 33.55 + y * STEP;
+                lon[y * SIDE + x] = -7.62 + x * STEP;
+            }
+        }
+        RoadGraphBuilder builder = new RoadGraphBuilder(lat, lon);
+        for (int y = 0; y < SIDE; y++) {
+            for (int x = 0; x < SIDE; x++) {
+                int v = y * SIDE + x;
+                if (x + 1 < SIDE) {
+                    if (y % 2 == 0) builder.addRoad(v, v + 1, true);
+                    else builder.addRoad(v + 1, v, true);
+                }
+                if (y + 1 < SIDE) {
+                    if (x % 2 == 0) builder.addRoad(v, v + SIDE, true);
+                    else builder.addRoad(v + SIDE, v, true);
+                }
+            }
+        }
+        RoadGraph graph = builder.build();
+
+        warehouse = new Warehouse();
+        warehouse.setLatitude(lat[SIDE * SIDE / 2 + SIDE / 2]);
+        warehouse.setLongitude(lon[SIDE * SIDE / 2 + SIDE / 2]);
+
+        Random random = new Random(23);
+        deliveries = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            int node = random.nextInt(SIDE * SIDE);
+            Delivery d = new Delivery();
+            d.setLatitude(lat[node]);
+            d.setLongitude(lon[node]);
+            d.setWeightKg(1.0);
+            d.setVolumeM3(0.01);
+            deliveries.add(d);
+        }
+        roads = new RoadGraphDistanceProvider(graph);
+        matrix = DistanceMatrix.of(warehouse, deliveries, roads);
+    }
+
+    @Test
+    void testOneWayStreetsGiveAnAsymmetricMatrix() {
+        assertThat(matrix.isSymmetric()).isFalse();
+        assertThat(IntStream.range(0, deliveries.size()).filter(i -> matrix.toWarehouse(i) != matrix.fromWarehouse(i)))
+                .isNotEmpty();
+        assertThat(DistanceMatrix.of(warehouse, deliveries).isSymmetric()).isTrue();
+    }
+
+    @Test
+    void testLocalSearchNeverLengthensARoute() {
+        RouteImprover improver = new LocalSearchImprover(1000, 10);
+        Random random = new Random(5);
+        for (int run = 0; run < 10; run++) {
+            int[] route = shuffled(IntStream.range(0, 40).map(i -> random.nextInt(deliveries.size())).distinct().toArray(),
+                    random);
+            int[] improved = improver.improve(route, matrix);
+
+            assertThat(length(improved)).isLessThanOrEqualTo(length(route) + 1e-9);
+            int[] sorted = improved.clone();
+            Arrays.sort(sorted);
+            int[] expected = route.clone();
+            Arrays.sort(expected);
+            assertThat(sorted).containsExactly(expected);
+        }
+    }
+
+    @Test
+    void testDirectedSavings() {
+        List<Integer> eligible = IntStream.range(0, deliveries.size()).boxed().toList();
+        SavingsList sequential = new SequentialSavingsStrategy().calculateSavings(eligible, matrix);
+        SavingsList parallel = new ParallelSavingsStrategy(0).calculateSavings(eligible, matrix);
+
+        assertEquals(sequential.size(), parallel.size());
+        for (int k = 0; k < sequential.size(); k++) {
+            int i = sequential.from(k);
+            int j = sequential.to(k);
+            assertEquals(matrix.toWarehouse(i) + matrix.fromWarehouse(j) - matrix.between(i, j),
+                    sequential.amount(k), 1e-9);
+            assertEquals(sequential.amount(k), parallel.amount(k), 1e-9);
+        }
+        // pairs are saved in both directions
+        assertThat(IntStream.range(0, sequential.size()).filter(k -> sequential.from(k) > sequential.to(k)).count())
+                .isPositive();
+    }
+
+    @Test
+    void testClarkeWrightRoutesFollowTheStreets() {
+        Vehicle vehicle = new Vehicle();
+        vehicle.setType(VehicleType.TRUCK);
+        List<Delivery> some = deliveries.subList(0, 60);
+        DistanceMatrix sub = DistanceMatrix.of(warehouse, some, roads);
+
+        List<Delivery> route = new ClarkeWrightOptimizer().calculateOptimalTour(warehouse, some, vehicle, sub);
+        int[] order = route.stream().mapToInt(some::indexOf).toArray();
+        int[] reversed = IntStream.range(0, order.length).map(k -> order[order.length - 1 - k]).toArray();
+
+        assertThat(order).hasSize(60);
+        // the savings were those of the direction the route is driven in
+        assertThat(length(order, sub)).isLessThan(length(reversed, sub));
+    }
+
+    private double length(int[] route) {
+        return length(route, matrix);
+    }
+
+    private double length(int[] route, DistanceMatrix matrix) {
+        double total = 0;
+        int prev = 0;
+        for (int i : route) {
+            total += matrix.get(prev, i + 1);
+            prev = i + 1;
+        }
+        return total + matrix.get(prev, 0);
+    }
+
+    private int[] shuffled(int[] values, Random random) {
+        for (int k = values.length - 1; k > 0; k--) {
+            int r = random.nextInt(k + 1);
+            int tmp = values[k];
+            values[k] = values[r];
+            values[r] = tmp;
+        }
+        return values;
+    }
+}
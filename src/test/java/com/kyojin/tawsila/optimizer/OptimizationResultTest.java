@@ -0,0 +1,106 @@
+package com.kyojin.tawsila.optimizer;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Vehicle;
+import com.kyojin.tawsila.entity.Warehouse;
+import com.kyojin.tawsila.enums.UnassignedReason;
+import com.kyojin.tawsila.enums.VehicleType;
+import com.kyojin.tawsila.optimizer.impl.EquirectangularDistanceProvider;
+import com.kyojin.tawsila.optimizer.impl.NearestNeighborOptimizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class OptimizationResultTest {
+
+    private Warehouse warehouse;
+    private Vehicle vehicle;
+
+    @BeforeEach
+    void setUp() {
+        warehouse = new Warehouse();
+        warehouse.setLatitude(33.57);
+        warehouse.setLongitude(-7.59);
+
+        vehicle = new Vehicle();
+        vehicle.setType(VehicleType.BIKE);
+        vehicle.setMaxDeliveries(3);
+    }
+
+    @Test
+    void testOrderAndLegsFollowTheRoute() {
+        List<Delivery> deliveries = List.of(
+                delivery(33.60, -7.59, 1),
+                delivery(33.58, -7.59, 1),
+                delivery(33.59, -7.59, 1)
+        );
+        DistanceMatrix matrix = DistanceMatrix.of(warehouse, deliveries);
+
+        OptimizationResult result = new NearestNeighborOptimizer().optimize(warehouse, deliveries, vehicle, matrix);
+
+        assertThat(result.order()).containsExactly(1, 2, 0);
+        assertThat(result.unassigned()).isEmpty();
+        assertThat(result.legs()).hasSize(4);
+        assertThat(result.legs()[0]).isEqualTo(matrix.fromWarehouse(1));
+        assertThat(result.legs()[1]).isEqualTo(matrix.between(1, 2));
+        assertThat(result.legs()[3]).isEqualTo(matrix.fromWarehouse(0));
+        assertThat(result.totalDistance()).isCloseTo(Arrays.stream(result.legs()).sum(), within(1e-12));
+    }
+
+    @Test
+    void testLegsAreExactWhenTheMatrixIsApproximate() {
+        List<Delivery> deliveries = List.of(
+                delivery(33.60, -7.50, 1),
+                delivery(33.70, -7.70, 1)
+        );
+        DistanceMatrix approximate = DistanceMatrix.of(warehouse, deliveries, new EquirectangularDistanceProvider());
+        DistanceMatrix exact = DistanceMatrix.of(warehouse, deliveries);
+
+        OptimizationResult result = OptimizationResult.of(deliveries, deliveries, vehicle, approximate);
+
+        assertThat(approximate.get(0, 1)).isNotEqualTo(exact.get(0, 1));
+        assertThat(result.legs()).containsExactly(exact.get(0, 1), exact.get(1, 2), exact.get(2, 0));
+    }
+
+    @Test
+    void testUnassignedDeliveriesGetTheirReason() {
+        List<Delivery> deliveries = new ArrayList<>();
+        deliveries.add(delivery(33.58, -7.59, 60)); // heavier than a bike can carry
+        for (int i = 0; i < 4; i++) {
+            deliveries.add(delivery(33.58 + i * 0.01, -7.58, 10));
+        }
+        DistanceMatrix matrix = DistanceMatrix.of(warehouse, deliveries);
+
+        // three stops at most
+        OptimizationResult full = new NearestNeighborOptimizer().optimize(warehouse, deliveries, vehicle, matrix);
+        assertThat(full.order()).hasSize(3);
+        assertThat(full.unassigned()).containsExactly(
+                new OptimizationResult.Unassigned(0, UnassignedReason.CAPACITY),
+                new OptimizationResult.Unassigned(4, UnassignedReason.STOP_LIMIT));
+
+        // a route left short on purpose
+        OptimizationResult partial = OptimizationResult.of(deliveries, List.of(deliveries.get(1)), vehicle, matrix);
+        assertThat(partial.unassigned()).extracting(OptimizationResult.Unassigned::reason)
+                .containsExactly(UnassignedReason.CAPACITY, UnassignedReason.NOT_ROUTED,
+                        UnassignedReason.NOT_ROUTED, UnassignedReason.NOT_ROUTED);
+
+        OptimizationResult empty = OptimizationResult.of(deliveries, List.of(), vehicle, matrix);
+        assertThat(empty.legs()).isEmpty();
+        assertThat(empty.totalDistance()).isZero();
+    }
+
+    private Delivery delivery(double lat, double lon, double weightKg) {
+        Delivery d = new Delivery();
+        d.setLatitude(lat);
+        d.setLongitude(lon);
+        d.setWeightKg(weightKg);
+        d.setVolumeM3(0.01);
+        return d;
+    }
+}
@@ -0,0 +1,193 @@
+package com.kyojin.tawsila.optimizer;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Warehouse;
+import com.kyojin.tawsila.optimizer.impl.RoadGraphDistanceProvider;
+import com.kyojin.tawsila.util.DistanceCalculator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RoadGraphTest {
+
+    private static final int SIDE = 25;
+    private static final double STEP = 0.002; // about 200 m between crossings
+
+    private double[] lat;
+    private double[] lon;
+    private final List<int[]> edges = new ArrayList<>(); // {from, to, meters}
+    private RoadGraph graph;
+
+    /**
+     * A grid of streets with some of them one-way and some missing, plus two nodes far away
+     * that are only connected to each other.
+     */
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(17);
+        int n = SIDE * SIDE + 2;
+        lat = new double[n];
+        lon = new double[n];
+        for (int y = 0; y < SIDE; y++) {
+            for (int x = 0; x < SIDE; x++) {
+                lat[y * SIDE + x] = 33.55 + y * STEP + random.nextDouble() * STEP / 4;
+                lon[y * SIDE + x] = -7.62 + x * STEP + random.nextDouble() * STEP / 4;
+            }
+        }
+        lat[n - 2] = 33.70;
+        lon[n - 2] = -7.40;
+        lat[n - 1] = 33.701;
+        lon[n - 1] = -7.401;
+
+        RoadGraphBuilder builder = new RoadGraphBuilder(lat, lon);
+        for (int y = 0; y < SIDE; y++) {
+            for (int x = 0; x < SIDE; x++) {
+                int v = y * SIDE + x;
+                if (x + 1 < SIDE) road(builder, random, v, v + 1);
+                if (y + 1 < SIDE) road(builder, random, v, v + SIDE);
+            }
+        }
+        road(builder, new Random(0), n - 2, n - 1);
+        graph = builder.build();
+    }
+
+    @Test
+    void testQueriesMatchDijkstra() {
+        Random random = new Random(5);
+        for (int k = 0; k < 200; k++) {
+            int from = random.nextInt(SIDE * SIDE);
+            int to = random.nextInt(SIDE * SIDE);
+            long expected = dijkstra(from)[to];
+            assertEquals(expected == Long.MAX_VALUE ? Double.POSITIVE_INFINITY : expected / 1000.0,
+                    graph.distance(from, to), 1e-9);
+        }
+        assertEquals(Double.POSITIVE_INFINITY, graph.distance(0, lat.length - 1));
+    }
+
+    @Test
+    void testManyToManyMatchesSingleQueries() {
+        int[] sources = {0, 12, 300, 624, lat.length - 2};
+        int[] targets = {5, 300, 450, lat.length - 1};
+
+        double[] distances = graph.distances(sources, targets);
+
+        for (int i = 0; i < sources.length; i++) {
+            for (int j = 0; j < targets.length; j++) {
+                assertEquals(graph.distance(sources[i], targets[j]), distances[i * targets.length + j], 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void testFileRoundTrip(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("road-graph.bin");
+        graph.write(file);
+        RoadGraph loaded = RoadGraph.read(file);
+
+        assertEquals(graph.size(), loaded.size());
+        assertEquals(graph.distance(3, 600), loaded.distance(3, 600));
+        assertEquals(graph.distance(600, 3), loaded.distance(600, 3));
+
+        Random random = new Random(9);
+        for (int k = 0; k < 100; k++) {
+            double qLat = 33.55 + random.nextDouble() * SIDE * STEP;
+            double qLon = -7.62 + random.nextDouble() * SIDE * STEP;
+            assertEquals(nearestByScan(qLat, qLon), loaded.nearestNode(qLat, qLon));
+        }
+    }
+
+    @Test
+    void testProviderFollowsTheRoadsAndFallsBack() {
+        DistanceProvider provider = new RoadGraphDistanceProvider(graph);
+        Warehouse warehouse = new Warehouse();
+        warehouse.setLatitude(lat[0]);
+        warehouse.setLongitude(lon[0]);
+        List<Delivery> deliveries = List.of(delivery(lat[624], lon[624]), delivery(lat[312], lon[312]),
+                delivery(lat[lat.length - 1], lon[lat.length - 1]));
+
+        DistanceMatrix matrix = DistanceMatrix.of(warehouse, deliveries, provider);
+
+        // on the nodes themselves it is the road distance, up to the float rounding of the stored
+        // coordinates, and longer than the straight line
+        assertEquals(graph.distance(0, 624), matrix.fromWarehouse(0), 1e-3);
+        assertTrue(matrix.fromWarehouse(0) > DistanceCalculator.calculateDistance(lat[0], lon[0], lat[624], lon[624]));
+        assertEquals(provider.distance(lat[624], lon[624], lat[312], lon[312]), matrix.between(0, 1), 1e-6);
+
+        // no road to the isolated nodes
+        assertEquals(DistanceCalculator.calculateDistance(lat[0], lon[0], lat[lat.length - 1], lon[lat.length - 1]),
+                matrix.fromWarehouse(2), 1e-9);
+    }
+
+    private void road(RoadGraphBuilder builder, Random random, int a, int b) {
+        double kind = random.nextDouble();
+        if (kind < 0.1) return; // no street
+        int meters = (int) Math.round(1000 * DistanceCalculator.calculateDistance(lat[a], lon[a], lat[b], lon[b]));
+        boolean oneWay = kind < 0.3;
+        boolean reversed = random.nextBoolean();
+        int from = oneWay && reversed ? b : a;
+        int to = oneWay && reversed ? a : b;
+        builder.addRoad(from, to, oneWay);
+        edges.add(new int[]{from, to, meters});
+        if (!oneWay) edges.add(new int[]{to, from, meters});
+    }
+
+    /**
+     * Plain Dijkstra on the original edges.
+     */
+    private long[] dijkstra(int source) {
+        long[] dist = new long[lat.length];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        dist[source] = 0;
+        PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        queue.add(new long[]{0, source});
+        while (!queue.isEmpty()) {
+            long[] top = queue.poll();
+            int node = (int) top[1];
+            if (top[0] > dist[node]) continue;
+            for (int[] edge : edges) {
+                if (edge[0] != node) continue;
+                long nd = top[0] + edge[2];
+                if (nd < dist[edge[1]]) {
+                    dist[edge[1]] = nd;
+                    queue.add(new long[]{nd, edge[1]});
+                }
+            }
+        }
+        return dist;
+    }
+
+    private int nearestByScan(double qLat, double qLon) {
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        double cos = Math.cos(Math.toRadians(qLat));
+        for (int v = 0; v < lat.length; v++) {
+            // same float coordinates as the graph
+            double dy = (float) lat[v] - qLat;
+            double dx = ((float) lon[v] - qLon) * cos;
+            if (dx * dx + dy * dy < bestDistance) {
+                bestDistance = dx * dx + dy * dy;
+                best = v;
+            }
+        }
+        return best;
+    }
+
+    private Delivery delivery(double lat, double lon) {
+        Delivery d = new Delivery();
+        d.setLatitude(lat);
+        d.setLongitude(lon);
+        d.setWeightKg(1.0);
+        d.setVolumeM3(1.0);
+        return d;
+    }
+}
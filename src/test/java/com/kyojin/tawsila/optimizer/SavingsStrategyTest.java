@@ -0,0 +1,96 @@
+package com.kyojin.tawsila.optimizer;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Warehouse;
+import com.kyojin.tawsila.optimizer.impl.ParallelSavingsStrategy;
+import com.kyojin.tawsila.optimizer.impl.SequentialSavingsStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SavingsStrategyTest {
+
+    private List<Integer> eligible;
+    private DistanceMatrix matrix;
+
+    @BeforeEach
+    void setUp() {
+        Warehouse warehouse = new Warehouse();
+        warehouse.setLatitude(33.5731);
+        warehouse.setLongitude(-7.5898);
+
+        Random random = new Random(11);
+        List<Delivery> deliveries = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            Delivery d = new Delivery();
+            d.setLatitude(33.5731 + random.nextDouble() * 0.2 - 0.1);
+            d.setLongitude(-7.5898 + random.nextDouble() * 0.2 - 0.1);
+            deliveries.add(d);
+        }
+
+        // skip a few positions so indexes and positions in the eligible list differ
+        eligible = IntStream.range(0, deliveries.size()).filter(i -> i % 7 != 0).boxed().toList();
+        matrix = DistanceMatrix.of(warehouse, deliveries);
+    }
+
+    @Test
+    void testParallelMatchesSequential() {
+        SavingsList sequential = new SequentialSavingsStrategy().calculateSavings(eligible, matrix);
+        SavingsList parallel = new ParallelSavingsStrategy(0).calculateSavings(eligible, matrix);
+
+        assertEquals(sequential.size(), parallel.size());
+        for (int k = 0; k < sequential.size(); k++) {
+            assertEquals(sequential.from(k), parallel.from(k));
+            assertEquals(sequential.to(k), parallel.to(k));
+            assertEquals(sequential.amount(k), parallel.amount(k));
+        }
+    }
+
+    @Test
+    void testSortedDescendingAndPositive() {
+        SavingsList savings = new ParallelSavingsStrategy(0).calculateSavings(eligible, matrix);
+
+        for (int k = 0; k < savings.size(); k++) {
+            assertTrue(savings.amount(k) > 0);
+            assertTrue(savings.from(k) < savings.to(k));
+            if (k > 0) assertTrue(savings.amount(k - 1) >= savings.amount(k));
+        }
+    }
+
+    @Test
+    void testTopKKeepsBestSavingOfEveryDelivery() {
+        SavingsList all = new SequentialSavingsStrategy().calculateSavings(eligible, matrix);
+        SavingsList pruned = new ParallelSavingsStrategy(5).calculateSavings(eligible, matrix);
+
+        assertThat(pruned.size()).isLessThan(all.size());
+
+        // the first pair seen for a delivery in the full list is its best saving
+        Set<Integer> seen = new HashSet<>();
+        Set<Long> bestPairs = new HashSet<>();
+        for (int k = 0; k < all.size(); k++) {
+            if (seen.add(all.from(k)) | seen.add(all.to(k))) {
+                bestPairs.add(pair(all.from(k), all.to(k)));
+            }
+        }
+
+        Set<Long> prunedPairs = new HashSet<>();
+        for (int k = 0; k < pruned.size(); k++) {
+            prunedPairs.add(pair(pruned.from(k), pruned.to(k)));
+        }
+        assertThat(prunedPairs).containsAll(bestPairs);
+    }
+
+    private long pair(int from, int to) {
+        return ((long) from << 32) | to;
+    }
+}
@@ -0,0 +1,137 @@
+package com.kyojin.tawsila.optimizer;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Vehicle;
+import com.kyojin.tawsila.entity.Warehouse;
+import com.kyojin.tawsila.enums.VehicleType;
+import com.kyojin.tawsila.exception.BadRequestException;
+import com.kyojin.tawsila.optimizer.impl.TimeWindowOptimizer;
+import com.kyojin.tawsila.util.DistanceCalculator;
+import com.kyojin.tawsila.util.ParseUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimeWindowOptimizerTest {
+
+    private static final double SPEED_KMH = 30;
+    private static final double SERVICE_MINUTES = 10;
+
+    private Warehouse warehouse;
+    private TourOptimizer optimizer;
+
+    @BeforeEach
+    void setUp() {
+        warehouse = new Warehouse();
+        warehouse.setLatitude(33.5731);
+        warehouse.setLongitude(-7.5898);
+        warehouse.setOpenTime(LocalTime.of(6, 0));
+        warehouse.setCloseTime(LocalTime.of(22, 0));
+        optimizer = new TimeWindowOptimizer(SPEED_KMH, SERVICE_MINUTES);
+    }
+
+    @Test
+    void testWindowsDecideTheOrder() {
+        // the closest delivery can only be served in the evening
+        Delivery near = delivery(1, 33.58, -7.59, "18:00-20:00");
+        Delivery middle = delivery(2, 33.60, -7.60, "10:00-12:00");
+        Delivery far = delivery(3, 33.65, -7.62, "06:00-09:00");
+
+        List<Delivery> route = optimizer.calculateOptimalTour(warehouse, List.of(near, middle, far), new Vehicle(VehicleType.TRUCK));
+
+        assertEquals(List.of(far, middle, near), route);
+        assertEquals(3, onTimeStops(route));
+    }
+
+    @Test
+    void testEveryFeasibleStopIsOnTime() {
+        Random random = new Random(13);
+        List<Delivery> deliveries = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            int start = 7 + random.nextInt(10);
+            deliveries.add(delivery(i, 33.5731 + random.nextDouble() * 0.2 - 0.1, -7.5898 + random.nextDouble() * 0.2 - 0.1,
+                    String.format("%02d:00-%02d:00", start, start + 3)));
+        }
+
+        List<Delivery> route = optimizer.calculateOptimalTour(warehouse, deliveries, new Vehicle(VehicleType.TRUCK));
+
+        assertEquals(40, route.size());
+        assertTrue(route.containsAll(deliveries));
+        // the stops that could be placed on time come first, the late ones after them
+        int onTime = onTimeStops(route);
+        assertTrue(onTime >= 30);
+        assertEquals(onTime, firstLateStop(route));
+    }
+
+    @Test
+    void testImpossibleSlotGoesLast() {
+        Delivery early = delivery(1, 33.58, -7.59, "04:00-05:00"); // before the warehouse opens
+        Delivery a = delivery(2, 33.60, -7.60, null);
+        Delivery b = delivery(3, 33.61, -7.61, "08:00-10:00");
+
+        List<Delivery> route = optimizer.calculateOptimalTour(warehouse, List.of(early, a, b), new Vehicle(VehicleType.TRUCK));
+
+        assertEquals(3, route.size());
+        assertEquals(early, route.get(2));
+    }
+
+    @Test
+    void testParseTimeSlot() {
+        assertArrayEquals(new int[]{9 * 60, 12 * 60 + 30}, ParseUtil.parseTimeSlot("09:00-12:30"));
+        assertEquals(null, ParseUtil.parseTimeSlot(" "));
+        assertThrows(BadRequestException.class, () -> ParseUtil.parseTimeSlot("12:00-09:00"));
+        assertThrows(BadRequestException.class, () -> ParseUtil.parseTimeSlot("morning"));
+    }
+
+    /**
+     * Replays the route from the warehouse opening and counts the stops served within their slot.
+     */
+    private int onTimeStops(List<Delivery> route) {
+        return (int) replay(route).stream().filter(late -> !late).count();
+    }
+
+    private int firstLateStop(List<Delivery> route) {
+        int index = replay(route).indexOf(true);
+        return index < 0 ? route.size() : index;
+    }
+
+    /**
+     * @return for each stop, whether service starts after its slot
+     */
+    private List<Boolean> replay(List<Delivery> route) {
+        double time = warehouse.getOpenTime().toSecondOfDay() / 60.0;
+        double lat = warehouse.getLatitude();
+        double lon = warehouse.getLongitude();
+        List<Boolean> late = new ArrayList<>();
+        for (Delivery d : route) {
+            time += DistanceCalculator.calculateDistance(lat, lon, d.getLatitude(), d.getLongitude()) * 60 / SPEED_KMH;
+            int[] slot = ParseUtil.parseTimeSlot(d.getTimeSlot());
+            if (slot != null) time = Math.max(time, slot[0]);
+            late.add(slot != null && time > slot[1]);
+            time += SERVICE_MINUTES;
+            lat = d.getLatitude();
+            lon = d.getLongitude();
+        }
+        return late;
+    }
+
+    private Delivery delivery(long id, double lat, double lon, String timeSlot) {
+        Delivery d = new Delivery();
+        d.setId(id);
+        d.setLatitude(lat);
+        d.setLongitude(lon);
+        d.setWeightKg(1.0);
+        d.setVolumeM3(0.1);
+        d.setTimeSlot(timeSlot);
+        return d;
+    }
+}
@@ -0,0 +1,78 @@
+package com.kyojin.tawsila.service;
+
+import com.kyojin.tawsila.dto.BulkResultDTO;
+import com.kyojin.tawsila.dto.DeliveryDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+public class DeliveryBulkImportTest {
+
+    @Autowired
+    private DeliveryService deliveryService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void testRowsAreInsertedInBatches() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<DeliveryDTO> rows = IntStream.range(0, 1000).mapToObj(i -> delivery(33.5 + i * 0.0001)).toList();
+
+        statistics.clear();
+        BulkResultDTO result = deliveryService.createDeliveries(rows.iterator());
+
+        assertThat(result.getReceived()).isEqualTo(1000);
+        assertThat(result.getCreated()).isEqualTo(1000);
+        assertThat(result.getErrors()).isEmpty();
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1000);
+        // 20 sequence calls for blocks of 50 ids and one statement per batch, not one per row
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(50);
+    }
+
+    @Test
+    void testInvalidRowsAreReportedWithoutAborting() {
+        List<DeliveryDTO> rows = new ArrayList<>();
+        rows.add(delivery(33.5));
+        DeliveryDTO missingWeight = delivery(33.6);
+        missingWeight.setWeightKg(null);
+        rows.add(missingWeight);
+        DeliveryDTO badStatus = delivery(33.7);
+        badStatus.setStatus("LOST");
+        rows.add(badStatus);
+        DeliveryDTO withTour = delivery(33.8);
+        withTour.setTour(new DeliveryDTO.TourEmbeddedDTO(1L, null, null));
+        rows.add(withTour);
+        rows.add(delivery(33.9));
+
+        BulkResultDTO result = deliveryService.createDeliveries(rows.iterator());
+
+        assertThat(result.getReceived()).isEqualTo(5);
+        assertThat(result.getCreated()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting(BulkResultDTO.RowError::getRow).containsExactly(2, 3, 4);
+        assertThat(result.getErrors().get(0).getMessage()).isEqualTo("Weight in kg is required");
+        assertThat(result.getErrors().get(1).getMessage()).isEqualTo("Invalid status value: LOST");
+    }
+
+    private DeliveryDTO delivery(double latitude) {
+        DeliveryDTO dto = new DeliveryDTO();
+        dto.setLatitude(latitude);
+        dto.setLongitude(-7.6);
+        dto.setWeightKg(2.0);
+        dto.setVolumeM3(0.1);
+        return dto;
+    }
+}
@@ -0,0 +1,95 @@
+package com.kyojin.tawsila.service;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Tour;
+import com.kyojin.tawsila.entity.Vehicle;
+import com.kyojin.tawsila.enums.VehicleType;
+import com.kyojin.tawsila.repository.DeliveryRepository;
+import com.kyojin.tawsila.repository.TourRepository;
+import com.kyojin.tawsila.repository.VehicleRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class ListingStatementCountTest {
+
+    @Autowired
+    private TourService tourService;
+
+    @Autowired
+    private DeliveryService deliveryService;
+
+    @Autowired
+    private TourRepository tourRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testListingDoesNotDependOnRowCount() {
+        createTours(2, 3);
+        long toursFew = countStatements(() -> tourService.getAllTours());
+        long deliveriesFew = countStatements(() -> deliveryService.getAllDeliveries());
+
+        createTours(10, 5);
+        long toursMany = countStatements(() -> tourService.getAllTours());
+        long deliveriesMany = countStatements(() -> deliveryService.getAllDeliveries());
+
+        assertThat(toursMany).isEqualTo(toursFew).isEqualTo(1);
+        assertThat(deliveriesMany).isEqualTo(deliveriesFew).isEqualTo(1);
+    }
+
+    private long countStatements(Runnable listing) {
+        statistics.clear();
+        listing.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void createTours(int tours, int deliveriesPerTour) {
+        for (int t = 0; t < tours; t++) {
+            Vehicle vehicle = vehicleRepository.save(new Vehicle(VehicleType.VAN));
+
+            Tour tour = new Tour();
+            tour.setDate(LocalDate.now());
+            tour.setVehicle(vehicle);
+            List<Delivery> deliveries = new ArrayList<>();
+            for (int d = 0; d < deliveriesPerTour; d++) {
+                deliveries.add(Delivery.builder()
+                        .latitude(33.5 + d * 0.01)
+                        .longitude(-7.5 - t * 0.01)
+                        .weightKg(1.0)
+                        .volumeM3(0.1)
+                        .tour(tour)
+                        .build());
+            }
+            tour.setDeliveries(deliveries);
+            tourRepository.save(tour);
+        }
+        // a delivery without a tour is listed as well
+        deliveryRepository.save(Delivery.builder().latitude(33.6).longitude(-7.6).weightKg(1.0).volumeM3(0.1).build());
+    }
+}
@@ -0,0 +1,91 @@
+package com.kyojin.tawsila.service;
+
+import com.kyojin.tawsila.dto.VehicleDTO;
+import com.kyojin.tawsila.entity.Tour;
+import com.kyojin.tawsila.entity.Vehicle;
+import com.kyojin.tawsila.enums.VehicleType;
+import com.kyojin.tawsila.repository.TourRepository;
+import com.kyojin.tawsila.repository.VehicleRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class VehicleCacheTest {
+
+    @Autowired
+    private VehicleService vehicleService;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private TourRepository tourRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testVehiclesAreReadFromTheCache() {
+        Vehicle vehicle = vehicleRepository.save(new Vehicle(VehicleType.VAN));
+        Tour tour = new Tour();
+        tour.setDate(LocalDate.now());
+        tour.setVehicle(vehicle);
+        Long tourId = tourRepository.save(tour).getId();
+        vehicleRepository.findAll();
+
+        statistics.clear();
+        assertThat(vehicleRepository.findById(vehicle.getId())).isPresent();
+        assertThat(vehicleRepository.findAll()).extracting(Vehicle::getId).contains(vehicle.getId());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        // the tour row is read, its vehicle is not
+        statistics.clear();
+        assertThat(tourRepository.findById(tourId).orElseThrow().getVehicle().getType()).isEqualTo(VehicleType.VAN);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        assertThat(meterRegistry.get("hibernate.second.level.cache.requests")
+                .tag("region", "vehicles").tag("result", "hit")
+                .functionCounter().count()).isPositive();
+    }
+
+    @Test
+    void testWritesThroughTheServiceAreSeenRightAway() {
+        VehicleDTO dto = new VehicleDTO();
+        dto.setType("BIKE");
+        Long id = vehicleService.createVehicle(dto).getId();
+        assertThat(vehicleService.getVehicleById(id)).get().extracting(VehicleDTO::getType).isEqualTo("BIKE");
+        List<VehicleDTO> fleet = vehicleService.getAllVehicles();
+        assertThat(fleet).extracting(VehicleDTO::getId).contains(id);
+
+        dto.setType("TRUCK");
+        vehicleService.updateVehicle(id, dto);
+        assertThat(vehicleService.getVehicleById(id)).get().extracting(VehicleDTO::getType).isEqualTo("TRUCK");
+        assertThat(vehicleService.getAllVehicles()).filteredOn(v -> v.getId().equals(id))
+                .extracting(VehicleDTO::getType).containsExactly("TRUCK");
+
+        vehicleService.deleteVehicle(id);
+        assertThat(vehicleService.getVehicleById(id)).isEmpty();
+        assertThat(vehicleService.getAllVehicles()).extracting(VehicleDTO::getId).doesNotContain(id);
+    }
+}
@@ -0,0 +1,55 @@
+package com.kyojin.tawsila.util;
+
+import com.kyojin.tawsila.entity.Delivery;
+import com.kyojin.tawsila.entity.Vehicle;
+import com.kyojin.tawsila.enums.AlgorithmType;
+import com.kyojin.tawsila.enums.VehicleType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class TourFingerprintTest {
+
+    private final Vehicle van = new Vehicle(VehicleType.VAN);
+
+    @Test
+    void testOptimizationIgnoresDeliveryOrder() {
+        Delivery a = delivery(1L, 33.5, -7.5);
+        Delivery b = delivery(2L, 33.6, -7.6);
+
+        assertEquals(TourFingerprint.forOptimization(AlgorithmType.CLARKE_WRIGHT, van, List.of(a, b)),
+                TourFingerprint.forOptimization(AlgorithmType.CLARKE_WRIGHT, van, List.of(b, a)));
+    }
+
+    @Test
+    void testOptimizationChangesWithContent() {
+        Delivery a = delivery(1L, 33.5, -7.5);
+        Delivery b = delivery(2L, 33.6, -7.6);
+        String fingerprint = TourFingerprint.forOptimization(AlgorithmType.CLARKE_WRIGHT, van, List.of(a, b));
+
+        assertNotEquals(fingerprint,
+                TourFingerprint.forOptimization(AlgorithmType.NEAREST_NEIGHBOR, van, List.of(a, b)));
+        assertNotEquals(fingerprint,
+                TourFingerprint.forOptimization(AlgorithmType.CLARKE_WRIGHT, new Vehicle(VehicleType.TRUCK), List.of(a, b)));
+
+        b.setWeightKg(2.0);
+        assertNotEquals(fingerprint,
+                TourFingerprint.forOptimization(AlgorithmType.CLARKE_WRIGHT, van, List.of(a, b)));
+        b.setLatitude(33.7);
+        assertNotEquals(fingerprint,
+                TourFingerprint.forOptimization(AlgorithmType.CLARKE_WRIGHT, van, List.of(a, b)));
+    }
+
+    private Delivery delivery(Long id, double lat, double lon) {
+        Delivery d = new Delivery();
+        d.setId(id);
+        d.setLatitude(lat);
+        d.setLongitude(lon);
+        d.setWeightKg(1.0);
+        d.setVolumeM3(0.1);
+        return d;
+    }
+}